@@ -0,0 +1,100 @@
+package net.tonbot.plugin.trivia;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sedmelluq.discord.lavaplayer.format.AudioDataFormat;
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
+import com.sedmelluq.discord.lavaplayer.track.playback.AllocatingAudioFrameBuffer;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameBuffer;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.NonAllocatingAudioFrameBuffer;
+
+/**
+ * Measures how much is allocated to hand one 20 ms Opus frame from lavaplayer's frame buffer to Discord4J. Each
+ * operation writes a frame into the buffer, the way lavaplayer's playback thread does, and then reads it back out.
+ * <ul>
+ * <li>{@code legacyProvide}: the default allocating frame buffer, read with {@code provide()}, which is what
+ * {@link LavaplayerAudioProvider} used to do.</li>
+ * <li>{@code mutableFrameProvide}: the non-allocating frame buffer, read through {@link LavaplayerAudioProvider}.</li>
+ * </ul>
+ * Multiply {@code gc.alloc.rate.norm} (bytes per operation) by 50 to get bytes per second of playback, per guild.
+ *
+ * Run with {@code gradle jmh -PjmhInclude=AudioFrameAllocationBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioFrameAllocationBenchmark {
+	
+	// Buffer duration that lavaplayer uses by default.
+	private static final int BUFFER_DURATION_MS = 5000;
+	
+	// Frame sizes of a 64 kbps stream vary a little from frame to frame.
+	private static final int[] FRAME_SIZES = { 150, 160, 161, 170, 158, 163 };
+	
+	private byte[] payload;
+	private MutableAudioFrame producerFrame;
+	private int frameIndex;
+	
+	private AudioFrameBuffer allocatingBuffer;
+	private AudioFrameBuffer nonAllocatingBuffer;
+	private LavaplayerAudioProvider audioProvider;
+	
+	@Setup
+	public void setup() {
+		AudioDataFormat format = StandardAudioDataFormats.DISCORD_OPUS;
+		
+		payload = new byte[format.maximumChunkSize()];
+		new Random(42).nextBytes(payload);
+		
+		producerFrame = new MutableAudioFrame();
+		producerFrame.setBuffer(ByteBuffer.allocate(format.maximumChunkSize()));
+		producerFrame.setFormat(format);
+		producerFrame.setVolume(100);
+		
+		allocatingBuffer = new AllocatingAudioFrameBuffer(BUFFER_DURATION_MS, format, new AtomicBoolean());
+		nonAllocatingBuffer = new NonAllocatingAudioFrameBuffer(BUFFER_DURATION_MS, format, new AtomicBoolean());
+		audioProvider = new LavaplayerAudioProvider(nonAllocatingBuffer);
+	}
+	
+	@Benchmark
+	public byte[] legacyProvide() throws InterruptedException {
+		allocatingBuffer.consume(nextFrame());
+		
+		AudioFrame frame = allocatingBuffer.provide();
+		return frame != null ? frame.getData() : null;
+	}
+	
+	@Benchmark
+	public byte[] mutableFrameProvide() throws InterruptedException {
+		nonAllocatingBuffer.consume(nextFrame());
+		
+		return audioProvider.isReady() ? audioProvider.provide() : null;
+	}
+	
+	private AudioFrame nextFrame() {
+		int size = FRAME_SIZES[frameIndex % FRAME_SIZES.length];
+		producerFrame.setTimecode(frameIndex * 20L);
+		producerFrame.store(payload, 0, size);
+		frameIndex++;
+		return producerFrame;
+	}
+}
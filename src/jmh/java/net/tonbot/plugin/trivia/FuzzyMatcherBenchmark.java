@@ -0,0 +1,149 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.tonbot.plugin.trivia.model.TypoTolerance;
+
+/**
+ * Compares the regex based matching that {@link FuzzyMatcher} used to do against the current
+ * single pass normalizer with candidates compiled by {@link FuzzyMatcher#compile(Iterable)}, the way
+ * questions match guesses. With {@code maxTypos} above 0, the current matcher also tries the
+ * compiled typo patterns, which the legacy matcher had no equivalent of.
+ *
+ * Run with {@code gradle jmh -PjmhInclude=FuzzyMatcherBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FuzzyMatcherBenchmark {
+	
+	@Param({ "1", "8" })
+	public int candidateCount;
+	
+	@Param({ "0", "20" })
+	public int synonymGroupCount;
+	
+	@Param({ "0", "2" })
+	public int maxTypos;
+	
+	private List<String> candidates;
+	private List<List<String>> synonyms;
+	private String guess;
+	
+	private LegacyFuzzyMatcher legacyMatcher;
+	private FuzzyMatcher matcher;
+	private AnswerCandidates answerCandidates;
+	
+	@Setup
+	public void setup() {
+		candidates = new ArrayList<>();
+		for (int i = 0; i < candidateCount; i++) {
+			candidates.add("The Answer, Number " + i + "!");
+		}
+		
+		synonyms = new ArrayList<>();
+		for (int i = 0; i < synonymGroupCount; i++) {
+			List<String> group = new ArrayList<>();
+			group.add("Synonym " + i + "-A");
+			group.add("Synonym " + i + "-B");
+			synonyms.add(group);
+		}
+		
+		// A wrong guess is the common case and forces every candidate to be examined.
+		guess = "  the  answer number  " + candidateCount + " ";
+		
+		legacyMatcher = new LegacyFuzzyMatcher(synonyms);
+		matcher = new FuzzyMatcher(synonyms, maxTypos > 0 ? new TypoTolerance(maxTypos, 5) : null);
+		answerCandidates = matcher.compile(candidates);
+	}
+	
+	@Benchmark
+	public boolean legacyMatches() {
+		return legacyMatcher.matches(guess, candidates);
+	}
+	
+	@Benchmark
+	public boolean matches() {
+		return matcher.matches(guess, answerCandidates);
+	}
+	
+	@Benchmark
+	public String legacyNormalize() {
+		return LegacyFuzzyMatcher.normalize(guess);
+	}
+	
+	@Benchmark
+	public String normalize() {
+		return FuzzyMatcher.normalize(guess);
+	}
+	
+	/**
+	 * A copy of the regex based implementation that {@link FuzzyMatcher} replaced.
+	 */
+	private static class LegacyFuzzyMatcher {
+		
+		private final Map<String, List<String>> normalizedSynonymsIndex;
+		
+		LegacyFuzzyMatcher(List<List<String>> synonyms) {
+			this.normalizedSynonymsIndex = new HashMap<>();
+			for (List<String> group : synonyms) {
+				List<String> normalizedGroup = new ArrayList<>();
+				for (String term : group) {
+					normalizedGroup.add(normalize(term));
+				}
+				for (String term : normalizedGroup) {
+					normalizedSynonymsIndex.put(term, normalizedGroup);
+				}
+			}
+		}
+		
+		boolean matches(String messageStr, Iterable<String> candidates) {
+			String normalizedInput = normalize(messageStr);
+			Set<String> inputAndSynonyms = new LinkedHashSet<>();
+			inputAndSynonyms.add(normalizedInput);
+			inputAndSynonyms.addAll(normalizedSynonymsIndex.getOrDefault(normalizedInput, new ArrayList<>()));
+			
+			for (String normalizedInputOrSynonym : inputAndSynonyms) {
+				for (String candidate : candidates) {
+					String normalizedCandidate = normalize(candidate);
+					
+					if (normalizedInputOrSynonym.equalsIgnoreCase(normalizedCandidate)) {
+						return true;
+					}
+				}
+			}
+			
+			return false;
+		}
+		
+		static String normalize(String phrase) {
+			String normalized = phrase.trim();
+			normalized = normalized.replaceAll("\\p{Punct}", "");
+			normalized = normalized.replaceAll("\\s+", " ");
+			normalized = normalized.toLowerCase();
+			
+			return normalized;
+		}
+	}
+}
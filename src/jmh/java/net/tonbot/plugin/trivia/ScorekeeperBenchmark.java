@@ -0,0 +1,170 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Measures scorekeeping for a round of a large community game. Each operation plays a whole round: for every
+ * question, participants give incorrect answers in a random order, one of them answers correctly the way
+ * {@link TriviaSession} takes a correct answer, and the question ends. The records are then built.
+ * <ul>
+ * <li>{@code legacyScorekeeper}: a copy of the old scorekeeper, which kept a boxed {@code Long}-keyed
+ * {@link HashMap} of {@link QuestionRecord}s per question, cloned for every known participant.</li>
+ * <li>{@code scorekeeper}: {@link Scorekeeper}, which keeps primitive maps of incorrect answers per question.</li>
+ * </ul>
+ * Compare {@code gc.alloc.rate.norm} (bytes per round) as well as the time.
+ *
+ * Run with {@code gradle jmh -PjmhInclude=ScorekeeperBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScorekeeperBenchmark {
+	
+	private static final double SCORE_DECAY_FACTOR = 0.5;
+	
+	private static final int QUESTIONS = 10;
+	
+	@Param({ "500" })
+	private int participants;
+	
+	// The number of incorrect answers per question, as a multiple of the number of participants.
+	@Param({ "3" })
+	private int incorrectAnswersPerParticipant;
+	
+	private long[][] incorrectAnswerers;
+	private long[] winners;
+	
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		
+		// Discord user IDs are snowflakes, which are far apart.
+		long[] userIds = new long[participants];
+		for (int i = 0; i < participants; i++) {
+			userIds[i] = 100_000_000_000_000_000L + random.nextInt(Integer.MAX_VALUE) * 4_194_304L;
+		}
+		
+		incorrectAnswerers = new long[QUESTIONS][participants * incorrectAnswersPerParticipant];
+		winners = new long[QUESTIONS];
+		for (int q = 0; q < QUESTIONS; q++) {
+			for (int i = 0; i < incorrectAnswerers[q].length; i++) {
+				incorrectAnswerers[q][i] = userIds[random.nextInt(participants)];
+			}
+			winners[q] = userIds[random.nextInt(participants)];
+		}
+	}
+	
+	@Benchmark
+	public Map<Long, RoundRecord> legacyScorekeeper() {
+		LegacyScorekeeper scorekeeper = new LegacyScorekeeper(SCORE_DECAY_FACTOR);
+		for (int q = 0; q < QUESTIONS; q++) {
+			scorekeeper.setupQuestion(10);
+			for (long userId : incorrectAnswerers[q]) {
+				scorekeeper.logIncorrectAnswer(userId);
+			}
+			scorekeeper.getQuestionRecord(winners[q]).getIncorrectAnswers();
+			scorekeeper.logCorrectAnswer(winners[q]);
+			scorekeeper.endQuestion();
+		}
+		return scorekeeper.getRecords();
+	}
+	
+	@Benchmark
+	public Map<Long, RoundRecord> scorekeeper() {
+		Scorekeeper scorekeeper = new Scorekeeper(SCORE_DECAY_FACTOR);
+		for (int q = 0; q < QUESTIONS; q++) {
+			scorekeeper.setupQuestion(10);
+			for (long userId : incorrectAnswerers[q]) {
+				scorekeeper.logIncorrectAnswer(userId);
+			}
+			scorekeeper.getIncorrectAnswers(winners[q]);
+			scorekeeper.logCorrectAnswer(winners[q]);
+			scorekeeper.endQuestion();
+		}
+		return scorekeeper.getRecords();
+	}
+	
+	/**
+	 * How {@link Scorekeeper} used to keep score.
+	 */
+	private static class LegacyScorekeeper {
+
+		private final Map<Long, RoundRecord> overallRecords = new HashMap<>();
+		private final Map<Long, QuestionRecord> currentQuestionRecords = new HashMap<>();
+		private final List<QuestionRecord> questionRecordHistory = new ArrayList<>();
+		private final double scoreDecayFactor;
+		
+		private long currentQuestionStartTimeMs;
+		private QuestionRecord currentReferenceQuestionRecord;
+		
+		LegacyScorekeeper(double scoreDecayFactor) {
+			this.scoreDecayFactor = scoreDecayFactor;
+		}
+		
+		void setupQuestion(long points) {
+			currentQuestionStartTimeMs = System.currentTimeMillis();
+			currentQuestionRecords.clear();
+			currentReferenceQuestionRecord = new QuestionRecord(points, scoreDecayFactor);
+			for (Long userId : overallRecords.keySet()) {
+				currentQuestionRecords.put(userId, currentReferenceQuestionRecord.clone());
+			}
+		}
+		
+		void endQuestion() {
+			for (Entry<Long, QuestionRecord> entry : currentQuestionRecords.entrySet()) {
+				RoundRecord record = overallRecords.get(entry.getKey());
+				if (record == null) {
+					record = new RoundRecord();
+					record.getQuestionRecords().addAll(questionRecordHistory);
+					overallRecords.put(entry.getKey(), record);
+				}
+				record.getQuestionRecords().add(entry.getValue());
+			}
+			currentQuestionRecords.clear();
+			questionRecordHistory.add(currentReferenceQuestionRecord);
+		}
+		
+		long logCorrectAnswer(long userId) {
+			QuestionRecord questionRecord = getQuestionRecord(userId);
+			questionRecord.setAnsweredCorrectly(true);
+			questionRecord.setTimeToAnswerMs(System.currentTimeMillis() - currentQuestionStartTimeMs);
+			return questionRecord.getEarnedPoints();
+		}
+		
+		void logIncorrectAnswer(long userId) {
+			QuestionRecord questionRecord = getQuestionRecord(userId);
+			questionRecord.setIncorrectAnswers(questionRecord.getIncorrectAnswers() + 1);
+		}
+		
+		QuestionRecord getQuestionRecord(long userId) {
+			return currentQuestionRecords.computeIfAbsent(userId, i -> currentReferenceQuestionRecord.clone());
+		}
+		
+		Map<Long, RoundRecord> getRecords() {
+			return ImmutableMap.copyOf(overallRecords);
+		}
+	}
+}
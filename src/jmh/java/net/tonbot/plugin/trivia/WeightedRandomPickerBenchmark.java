@@ -0,0 +1,111 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the linear scan that {@link WeightedRandomPicker} used to do on every pick against sampling from a
+ * precomputed {@link AliasSampler}.
+ *
+ * Run with {@code gradle jmh -PjmhInclude=WeightedRandomPickerBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeightedRandomPickerBenchmark {
+	
+	@Param({ "5", "100" })
+	public int keyCount;
+	
+	private Map<Integer, Long> weightedKeys;
+	private Random random;
+	private WeightedRandomPicker picker;
+	private AliasSampler<Integer> sampler;
+	
+	@Setup
+	public void setup() {
+		random = new Random(42);
+		weightedKeys = new LinkedHashMap<>();
+		for (int i = 0; i < keyCount; i++) {
+			// Every fifth weight is missing and takes on the average.
+			weightedKeys.put(i, i % 5 == 0 ? null : (long) random.nextInt(1000));
+		}
+		
+		picker = new WeightedRandomPicker(random);
+		sampler = AliasSampler.of(weightedKeys);
+	}
+	
+	@Benchmark
+	public Integer legacyPick() {
+		return legacyPick(weightedKeys);
+	}
+	
+	@Benchmark
+	public Integer pickBuildingSampler() {
+		return picker.pick(weightedKeys);
+	}
+	
+	@Benchmark
+	public Integer pickPrecomputedSampler() {
+		return picker.pick(sampler);
+	}
+	
+	/**
+	 * A copy of the implementation that {@link AliasSampler} replaced.
+	 */
+	private Integer legacyPick(Map<Integer, Long> weightedKeys) {
+		List<Integer> objs = new ArrayList<>();
+		List<Long> weights = new ArrayList<>();
+		weightedKeys.entrySet().stream()
+			.forEach(entry -> {
+				objs.add(entry.getKey());
+				weights.add(entry.getValue());
+			});
+		
+		long average = (long) weights.stream()
+			.filter(w -> w != null)
+			.mapToLong(w -> w)
+			.average()
+			.orElseGet(() -> 1d);
+		
+		List<Long> computableWeights = new ArrayList<>();
+		for (Long w : weights) {
+			computableWeights.add(w == null ? average : w);
+		}
+		
+		long bound = computableWeights.stream()
+			.mapToLong(w -> w)
+			.sum();
+		
+		int randomNumber = random.nextInt((int) bound) + 1;
+		
+		long x = 0;
+		for (int i = 0; i < computableWeights.size(); i++) {
+			x += computableWeights.get(i);
+			if (x >= randomNumber) {
+				return objs.get(i);
+			}
+		}
+		
+		throw new IllegalStateException();
+	}
+}
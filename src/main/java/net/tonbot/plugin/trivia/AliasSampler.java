@@ -0,0 +1,165 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Samples keys in proportion to their weights in constant time, using Vose's
+ * alias method. Building a sampler takes linear time, so it should be built
+ * once per set of weights and reused. Sampling does not allocate.
+ * <p>
+ * This class is immutable and thread safe, as long as the {@link Random} that
+ * is passed in is.
+ *
+ * @param <T>
+ *            The key type.
+ */
+public class AliasSampler<T> {
+
+	private final Object[] keys;
+	private final double[] probabilities;
+	private final int[] aliases;
+
+	private AliasSampler(Object[] keys, double[] probabilities, int[] aliases) {
+		this.keys = keys;
+		this.probabilities = probabilities;
+		this.aliases = aliases;
+	}
+
+	/**
+	 * Builds a sampler from a map where the values are the weights.
+	 *
+	 * @param weightedKeys
+	 *            Map of keys to their weights. Non-null, non-empty. See
+	 *            {@link #of(List, List)} for the rules on weights.
+	 * @return A new {@link AliasSampler}.
+	 */
+	public static <T> AliasSampler<T> of(Map<T, Long> weightedKeys) {
+		Preconditions.checkNotNull(weightedKeys, "weightedKeys must be non-null.");
+		Preconditions.checkArgument(!weightedKeys.isEmpty(), "weightedKeys must be non-empty.");
+
+		Object[] keys = new Object[weightedKeys.size()];
+		Long[] weights = new Long[weightedKeys.size()];
+		int i = 0;
+		for (Entry<T, Long> entry : weightedKeys.entrySet()) {
+			keys[i] = entry.getKey();
+			weights[i] = entry.getValue();
+			i++;
+		}
+
+		return build(keys, weights);
+	}
+
+	/**
+	 * Builds a sampler.
+	 *
+	 * @param objs
+	 *            The objects to pick from. Non-null, non-empty.
+	 * @param weights
+	 *            The weights. Each weight must be non-negative. Must be the same
+	 *            size as {@code objs}. Null elements are permitted; those will take
+	 *            on weights that are the average of the other weights. If all
+	 *            elements are null, then they effectively have weight 1 each.
+	 *            Non-null, non-empty.
+	 * @return A new {@link AliasSampler}.
+	 * @throws IllegalArgumentException
+	 *             if every weight is zero.
+	 */
+	public static <T> AliasSampler<T> of(List<T> objs, List<Long> weights) {
+		Preconditions.checkNotNull(objs, "objs must be non-null.");
+		Preconditions.checkNotNull(weights, "weights must be non-null.");
+		Preconditions.checkArgument(!objs.isEmpty(), "objs must not be empty.");
+		Preconditions.checkArgument(objs.size() == weights.size(), "The length of objs and weights must be equal.");
+
+		return build(objs.toArray(), weights.toArray(new Long[weights.size()]));
+	}
+
+	private static <T> AliasSampler<T> build(Object[] keys, Long[] weights) {
+		int n = keys.length;
+
+		// Null weights take on the average of the other weights.
+		double nonNullSum = 0;
+		int nonNullCount = 0;
+		for (Long w : weights) {
+			if (w != null) {
+				Preconditions.checkArgument(w >= 0, "Each weight must be non-negative.");
+				nonNullSum += w;
+				nonNullCount++;
+			}
+		}
+		double average = nonNullCount == 0 ? 1 : Math.floor(nonNullSum / nonNullCount);
+
+		double[] scaled = new double[n];
+		double total = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = weights[i] == null ? average : weights[i];
+			total += scaled[i];
+		}
+		Preconditions.checkArgument(total > 0, "At least one weight must be positive.");
+
+		// Scale so that the average weight is 1.
+		int[] small = new int[n];
+		int[] large = new int[n];
+		int smallSize = 0;
+		int largeSize = 0;
+		for (int i = 0; i < n; i++) {
+			scaled[i] = scaled[i] * n / total;
+			if (scaled[i] < 1) {
+				small[smallSize++] = i;
+			} else {
+				large[largeSize++] = i;
+			}
+		}
+
+		double[] probabilities = new double[n];
+		int[] aliases = new int[n];
+		while (smallSize > 0 && largeSize > 0) {
+			int less = small[--smallSize];
+			int more = large[--largeSize];
+
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if (scaled[more] < 1) {
+				small[smallSize++] = more;
+			} else {
+				large[largeSize++] = more;
+			}
+		}
+
+		// Whatever is left over is 1, give or take rounding errors.
+		while (largeSize > 0) {
+			probabilities[large[--largeSize]] = 1;
+		}
+		while (smallSize > 0) {
+			probabilities[small[--smallSize]] = 1;
+		}
+
+		return new AliasSampler<>(keys, probabilities, aliases);
+	}
+
+	/**
+	 * Picks a random key, based on the weights.
+	 *
+	 * @param random
+	 *            The source of randomness. Non-null.
+	 * @return A key.
+	 */
+	@SuppressWarnings("unchecked")
+	public T sample(Random random) {
+		int i = random.nextInt(keys.length);
+		return (T) (random.nextDouble() < probabilities[i] ? keys[i] : keys[aliases[i]]);
+	}
+
+	/**
+	 * Gets the number of keys.
+	 */
+	public int size() {
+		return keys.length;
+	}
+}
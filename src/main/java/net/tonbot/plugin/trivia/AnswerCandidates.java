@@ -0,0 +1,53 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.List;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * The acceptable answers to a question, compiled by {@link FuzzyMatcher} so
+ * that guesses can be checked against them cheaply. Instances should be created
+ * once per question.
+ */
+public class AnswerCandidates {
+	
+	private final Set<String> normalizedCandidates;
+	private final List<LevenshteinPattern> typoPatterns;
+	
+	AnswerCandidates(Set<String> normalizedCandidates, List<LevenshteinPattern> typoPatterns) {
+		this.normalizedCandidates = ImmutableSet.copyOf(
+				Preconditions.checkNotNull(normalizedCandidates, "normalizedCandidates must be non-null."));
+		this.typoPatterns = ImmutableList.copyOf(
+				Preconditions.checkNotNull(typoPatterns, "typoPatterns must be non-null."));
+	}
+	
+	/**
+	 * Gets the normalized candidates which must be matched exactly.
+	 *
+	 * @return The normalized candidates. Non-null.
+	 */
+	Set<String> getNormalizedCandidates() {
+		return normalizedCandidates;
+	}
+	
+	/**
+	 * Checks whether if the normalized guess is within the typo tolerance of any
+	 * of the candidates.
+	 *
+	 * @param normalizedGuess
+	 *            The normalized guess. Non-null.
+	 * @return True if one of the candidates is close enough to the guess.
+	 */
+	boolean matchesWithTypos(String normalizedGuess) {
+		for (int i = 0; i < typoPatterns.size(); i++) {
+			if (typoPatterns.get(i).matches(normalizedGuess)) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+}
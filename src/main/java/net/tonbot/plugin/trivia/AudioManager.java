@@ -1,87 +1,141 @@
 package net.tonbot.plugin.trivia;
 
 import java.io.File;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Preconditions;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
-import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason;
 
-import net.tonbot.common.TonbotTechnicalFault;
 import sx.blah.discord.handle.obj.IGuild;
 import sx.blah.discord.handle.obj.IVoiceChannel;
 import sx.blah.discord.util.MissingPermissionsException;
 
+/**
+ * Manages the bot's voice connection and playback in a guild for a single trivia session.
+ * This class is thread safe.
+ */
 class AudioManager {
 
+	// How long after a cue should have finished to leave anyway, in case the end of the track is never reported.
+	static final long LEAVE_FALLBACK_MARGIN_MS = 5000;
+	
+	// Lavaplayer reports a duration of Long.MAX_VALUE when it is unknown. Cues are expected to be shorter than this.
+	static final long UNKNOWN_CUE_DURATION_MS = 30000;
+	
 	private final IGuild guild;
-	private final AudioPlayerManager audioPlayerManager;
+	private final GuildAudioPool guildAudioPool;
+	private final AudioTrackLoader audioTrackLoader;
+	private final HashedWheelTimer timer;
 	
+	private GuildAudioPool.Lease lease;
 	private AudioPlayer audioPlayer;
+	private LavaplayerAudioProvider audioProvider;
 	
-	public AudioManager(IGuild guild, AudioPlayerManager audioPlayerManager) {
+	public AudioManager(IGuild guild, GuildAudioPool guildAudioPool, AudioTrackLoader audioTrackLoader, HashedWheelTimer timer) {
 		this.guild = Preconditions.checkNotNull(guild, "guild must be non-null.");
-		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager, "audioPlayerManager must be non-null.");
+		this.guildAudioPool = Preconditions.checkNotNull(guildAudioPool, "guildAudioPool must be non-null.");
+		this.audioTrackLoader = Preconditions.checkNotNull(audioTrackLoader, "audioTrackLoader must be non-null.");
+		this.timer = Preconditions.checkNotNull(timer, "timer must be non-null.");
 	}
 	
 	/**
-	 * Connect to the given voice channel.
+	 * Connect to the given voice channel, reusing the guild's pooled connection and player if possible.
 	 * @param voiceChannel The voice channel to join. Non-null.
 	 * @throws MissingPermissionsException if there are no permissions to connect to that voice channel.
 	 * @throws AlreadyInAnotherVoiceChannelException if the bot is already connected to some other voice channel.
 	 */
-	public void joinVC(IVoiceChannel voiceChannel) {
+	public synchronized void joinVC(IVoiceChannel voiceChannel) {
 		Preconditions.checkNotNull(voiceChannel, "voiceChannel must be non-null.");
 		
-		IVoiceChannel currentVc = guild.getConnectedVoiceChannel();
-		
-		if (guild.getConnectedVoiceChannel() == null) {
-			voiceChannel.join();
-			
-			this.audioPlayer = audioPlayerManager.createPlayer();
-			guild.getAudioManager().setAudioProvider(new LavaplayerAudioProvider(audioPlayer));
-			
-		} else if (currentVc.getLongID() != voiceChannel.getLongID()) {
-			throw new AlreadyInAnotherVoiceChannelException("Already connected to another voice channel.", currentVc);
+		if (this.lease != null) {
+			return;
 		}
+		
+		this.lease = guildAudioPool.acquire(guild, voiceChannel);
+		this.audioPlayer = lease.getAudioPlayer();
+		this.audioProvider = lease.getAudioProvider();
 	}
 	
 	/**
-	 * Leaves whatever voice channel the bot is in.
+	 * Gives the voice connection back to the pool. The bot leaves the voice channel once it has been idle for 
+	 * a while, unless another round picks it up first.
 	 * No-op if it's not in any voice channel.
 	 */
-	public void leaveVC() {
-		IVoiceChannel currentVc = guild.getConnectedVoiceChannel();
-		if (currentVc != null) {
-			this.audioPlayer.destroy();
+	public synchronized void leaveVC() {
+		if (this.lease != null) {
+			guildAudioPool.release(lease);
+			this.lease = null;
 			this.audioPlayer = null;
-			currentVc.leave();
+			this.audioProvider = null;
 		}
 	}
 	
 	/**
-	 * Gets an {@link AudioTrack} from a file.
-	 * @param audioFile The audio file. Non-null.
-	 * @return {@link AudioTrack}.
+	 * Leaves the voice channel, but only if it is still the one that was joined with the given lease, so that
+	 * a late call can't release a voice channel which was joined again since.
 	 */
-	public AudioTrack findTrack(File audioFile) {
+	private synchronized void leaveVC(GuildAudioPool.Lease joinedLease) {
+		if (this.lease == joinedLease) {
+			leaveVC();
+		}
+	}
+	
+	/**
+	 * Plays an audio {@link File} and leaves the voice channel once it has finished, without blocking.
+	 * If the end of the track is never reported, it leaves anyway shortly after the track should have ended.
+	 * Leaves immediately if it's not connected to a voice channel.
+	 * @param audioFile An audio {@link File}. Non-null.
+	 */
+	public synchronized void playThenLeaveVC(File audioFile) {
 		Preconditions.checkNotNull(audioFile, "audioFile must be non-null.");
 		
+		if (this.audioPlayer == null) {
+			return;
+		}
+		
+		AudioTrack audioTrack;
 		try {
-			SingleTrackLoadResultHandler trackLoadResultHandler = new SingleTrackLoadResultHandler();
-			audioPlayerManager.loadItem(audioFile.getAbsolutePath(), trackLoadResultHandler).get();
-			AudioTrack audioTrack = trackLoadResultHandler.getAudioTrack();
+			audioTrack = findTrack(audioFile);
+		} catch (RuntimeException e) {
+			leaveVC();
+			throw e;
+		}
+		
+		AudioPlayer player = this.audioPlayer;
+		GuildAudioPool.Lease joinedLease = this.lease;
+		AudioEventAdapter trackEndListener = new AudioEventAdapter() {
 			
-			if (audioTrack == null) {
-				throw new TonbotTechnicalFault("Unable to load track at " + audioFile + " for some reason...");
+			@Override
+			public void onTrackEnd(AudioPlayer endedPlayer, AudioTrack track, AudioTrackEndReason endReason) {
+				// Starting the cue ends whatever was playing before it, which is not a reason to leave.
+				if (track == audioTrack) {
+					endedPlayer.removeListener(this);
+					leaveVC(joinedLease);
+				}
 			}
-			
-			return audioTrack;
-			
-		} catch (InterruptedException | ExecutionException e) {
-			throw new TonbotTechnicalFault("Unable to load track at " + audioFile, e);
-		}
+		};
+		player.addListener(trackEndListener);
+		playInVC(audioTrack, 0);
+		
+		long durationMs = audioTrack.getDuration() == Long.MAX_VALUE ? UNKNOWN_CUE_DURATION_MS : audioTrack.getDuration();
+		timer.schedule(() -> {
+			player.removeListener(trackEndListener);
+			leaveVC(joinedLease);
+		}, durationMs + LEAVE_FALLBACK_MARGIN_MS, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Gets an {@link AudioTrack} from a file.
+	 * @param audioFile The audio file. Non-null.
+	 * @return A new {@link AudioTrack}, cloned from a cached prototype if the file was loaded before.
+	 */
+	public AudioTrack findTrack(File audioFile) {
+		Preconditions.checkNotNull(audioFile, "audioFile must be non-null.");
+		
+		return audioTrackLoader.load(audioFile);
 	}
 
 	/**
@@ -90,21 +144,36 @@ class AudioManager {
 	 * @param audioTrack {@link AudioTrack}. Non-null.
 	 * @param position The position of the {@link AudioTrack} to play, in milliseconds.
 	 */
-	public void playInVC(AudioTrack audioTrack, long position) {
+	public synchronized void playInVC(AudioTrack audioTrack, long position) {
 		Preconditions.checkNotNull(audioTrack, "audioTrack must be non-null.");
 		Preconditions.checkArgument(position >= 0, "position must be positive.");
 		
 		if (this.audioPlayer != null) {
+			audioProvider.stopClip();
 			audioTrack.setPosition(position);
 			audioPlayer.playTrack(audioTrack);
 		}
 	}
 	
+	/**
+	 * Plays a pre-encoded {@link OpusClip} in the current voice channel, in place of whatever is playing.
+	 * No-op if it's not connected to a voice channel.
+	 * @param clip {@link OpusClip}. Non-null.
+	 */
+	public synchronized void playInVC(OpusClip clip) {
+		Preconditions.checkNotNull(clip, "clip must be non-null.");
+		
+		if (this.audioPlayer != null) {
+			audioPlayer.stopTrack();
+			audioProvider.playClip(clip);
+		}
+	}
+	
 	/**
 	 * Plays an audio {@link File} immediately. 
 	 * @param audioFile An audio {@link File}. Non-null.
 	 */
-	public void playInVC(File audioFile) {
+	public synchronized void playInVC(File audioFile) {
 		Preconditions.checkNotNull(audioFile, "audioFile must be non-null.");
 		
 		if (this.audioPlayer != null) {
@@ -116,8 +185,9 @@ class AudioManager {
 	/**
 	 * Stops playing the current track.
 	 */
-	public void stopPlaying() {
+	public synchronized void stopPlaying() {
 		if (audioPlayer != null) {
+			audioProvider.stopClip();
 			audioPlayer.stopTrack();
 		}
 	}
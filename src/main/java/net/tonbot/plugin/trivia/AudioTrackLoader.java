@@ -0,0 +1,85 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+
+import lombok.Data;
+import net.tonbot.common.TonbotTechnicalFault;
+
+/**
+ * Loads {@link AudioTrack}s from files. The first load of a file probes and
+ * parses it with lavaplayer and keeps the result as a prototype. Every load
+ * after that is a cheap {@link AudioTrack#makeClone()} of the prototype, so the
+ * same cues and tracks can be played round after round without being parsed
+ * again. A file which is modified is loaded from scratch.
+ * <p>
+ * This class is thread safe.
+ */
+class AudioTrackLoader {
+	
+	private static final int MAX_CACHED_TRACKS = 512;
+	
+	private final AudioPlayerManager audioPlayerManager;
+	private final Cache<TrackKey, AudioTrack> prototypes;
+	
+	@Inject
+	public AudioTrackLoader(AudioPlayerManager audioPlayerManager) {
+		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager, "audioPlayerManager must be non-null.");
+		this.prototypes = CacheBuilder.newBuilder()
+				.maximumSize(MAX_CACHED_TRACKS)
+				.build();
+	}
+	
+	/**
+	 * Gets an {@link AudioTrack} from a file. Each call returns a new track which
+	 * may be played independently of any other.
+	 * 
+	 * @param audioFile
+	 *            The audio file. Non-null.
+	 * @return {@link AudioTrack}.
+	 * @throws TonbotTechnicalFault
+	 *             if the file could not be loaded.
+	 */
+	public AudioTrack load(File audioFile) {
+		Preconditions.checkNotNull(audioFile, "audioFile must be non-null.");
+		
+		TrackKey key = new TrackKey(audioFile.getAbsoluteFile(), audioFile.lastModified());
+		AudioTrack prototype = prototypes.getIfPresent(key);
+		if (prototype == null) {
+			prototype = loadUncached(audioFile);
+			prototypes.put(key, prototype);
+		}
+		
+		return prototype.makeClone();
+	}
+	
+	private AudioTrack loadUncached(File audioFile) {
+		try {
+			SingleTrackLoadResultHandler trackLoadResultHandler = new SingleTrackLoadResultHandler();
+			audioPlayerManager.loadItem(audioFile.getAbsolutePath(), trackLoadResultHandler).get();
+			AudioTrack audioTrack = trackLoadResultHandler.getAudioTrack();
+			
+			if (audioTrack == null) {
+				throw new TonbotTechnicalFault("Unable to load track at " + audioFile + " for some reason...");
+			}
+			
+			return audioTrack;
+			
+		} catch (InterruptedException | ExecutionException e) {
+			throw new TonbotTechnicalFault("Unable to load track at " + audioFile, e);
+		}
+	}
+	
+	@Data
+	private static class TrackKey {
+		private final File file;
+		private final long lastModified;
+	}
+}
@@ -1,36 +1,53 @@
 package net.tonbot.plugin.trivia;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
-
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
+import net.tonbot.plugin.trivia.model.TypoTolerance;
+
 public class FuzzyMatcher {
 	
 	private final Map<String, List<String>> normalizedSynonymsIndex;
+	private final TypoTolerance typoTolerance;
 	
 	public FuzzyMatcher(List<List<String>> synonyms) {
+		this(synonyms, null);
+	}
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param synonyms
+	 *            Groups of terms which are interchangeable. Nullable.
+	 * @param typoTolerance
+	 *            The {@link TypoTolerance}. If null, then guesses must match
+	 *            exactly after normalization.
+	 */
+	public FuzzyMatcher(List<List<String>> synonyms, TypoTolerance typoTolerance) {
 		if (synonyms == null) {
 			this.normalizedSynonymsIndex = ImmutableMap.of();
 		} else {
 			this.normalizedSynonymsIndex = generateNormalizedSynonymsIndex(synonyms);
 		}
+		this.typoTolerance = typoTolerance;
 	}
 	
 	private Map<String, List<String>> generateNormalizedSynonymsIndex(List<List<String>> synonyms) {
 		List<List<String>> normalizedSynonyms = synonyms.stream()
-			.map(group -> 
+			.map(group ->
 				group.stream()
-					.map(this::normalize)
-					.collect(Collectors.toList())
+					.map(FuzzyMatcher::normalize)
+					.collect(ImmutableList.toImmutableList())
 			)
 			.collect(Collectors.toList());
 		
@@ -43,48 +60,177 @@ public class FuzzyMatcher {
 			}
 		}
 		
-		return normalizedSynonymIndex;
+		return ImmutableMap.copyOf(normalizedSynonymIndex);
 	}
-
-	public boolean matches(String messageStr, Iterable<String> candidates) {
-		Preconditions.checkNotNull(candidates, "candidate must be non-null.");
+	
+	/**
+	 * Compiles the acceptable answers of a question so that they can be matched
+	 * against with {@link #matches(String, AnswerCandidates)}. This should be done
+	 * once per question rather than once per guess.
+	 * <p>
+	 * If typos are tolerated, then each candidate and its synonyms which are at
+	 * least the minimum length are precompiled into {@link LevenshteinPattern}s.
+	 *
+	 * @param candidates
+	 *            The acceptable answers. Non-null.
+	 * @return The {@link AnswerCandidates}.
+	 */
+	public AnswerCandidates compile(Iterable<String> candidates) {
+		Preconditions.checkNotNull(candidates, "candidates must be non-null.");
+		
+		ImmutableSet.Builder<String> normalizedCandidatesBuilder = ImmutableSet.builder();
+		for (String candidate : candidates) {
+			normalizedCandidatesBuilder.add(normalize(candidate));
+		}
+		Set<String> normalizedCandidates = normalizedCandidatesBuilder.build();
+		
+		List<LevenshteinPattern> typoPatterns = new ArrayList<>();
+		if (typoTolerance != null && typoTolerance.getMaxDistance() > 0) {
+			Set<String> expandedCandidates = new LinkedHashSet<>(normalizedCandidates);
+			for (String candidate : normalizedCandidates) {
+				List<String> synonyms = normalizedSynonymsIndex.get(candidate);
+				if (synonyms != null) {
+					expandedCandidates.addAll(synonyms);
+				}
+			}
+			
+			for (String candidate : expandedCandidates) {
+				if (candidate.length() >= typoTolerance.getMinLength()) {
+					// A guess should never be accepted by having every character wrong.
+					int maxDistance = Math.min(typoTolerance.getMaxDistance(), candidate.length() - 1);
+					if (maxDistance > 0) {
+						typoPatterns.add(new LevenshteinPattern(candidate, maxDistance));
+					}
+				}
+			}
+		}
+		
+		return new AnswerCandidates(normalizedCandidates, typoPatterns);
+	}
+	
+	/**
+	 * Checks whether if the message, or any of its synonyms, matches one of the
+	 * candidates. If typos are tolerated, then a message which is close enough to
+	 * one of the candidates or their synonyms is also accepted.
+	 *
+	 * @param messageStr
+	 *            The user's message. Nullable.
+	 * @param candidates
+	 *            Candidates which were compiled by {@link #compile(Iterable)}.
+	 *            Non-null.
+	 * @return True if the message matches one of the candidates.
+	 */
+	public boolean matches(String messageStr, AnswerCandidates candidates) {
+		Preconditions.checkNotNull(candidates, "candidates must be non-null.");
 		
 		if (messageStr == null) {
 			return false;
 		}
 		
 		String normalizedInput = normalize(messageStr);
-		List<String> normalizedSynonyms = normalizedSynonymsIndex.getOrDefault(normalizedInput, ImmutableList.of());
+		if (matchesExactly(normalizedInput, candidates.getNormalizedCandidates())) {
+			return true;
+		}
 		
-		Set<String> inputAndSynonyms = ImmutableSet.<String>builder()
-				.add(normalizedInput)
-				.addAll(normalizedSynonyms)
-				.build();
+		return candidates.matchesWithTypos(normalizedInput);
+	}
+	
+	private boolean matchesExactly(String normalizedInput, Set<String> normalizedCandidates) {
+		if (normalizedCandidates.contains(normalizedInput)) {
+			return true;
+		}
 		
-		for (String normalizedInputOrSynonym : inputAndSynonyms) {
-			for (String candidate : candidates) {
-				String normalizedCandidate = normalize(candidate);
-
-				if (StringUtils.equalsIgnoreCase(normalizedInputOrSynonym, normalizedCandidate)) {
+		List<String> normalizedSynonyms = normalizedSynonymsIndex.get(normalizedInput);
+		if (normalizedSynonyms != null) {
+			for (int i = 0; i < normalizedSynonyms.size(); i++) {
+				if (normalizedCandidates.contains(normalizedSynonyms.get(i))) {
 					return true;
 				}
 			}
 		}
-
+		
 		return false;
 	}
-
-	private String normalize(String phrase) {
-		String normalized = phrase.trim();
-
-		// Punctuation should be removed.
-		normalized = normalized.replaceAll("\\p{Punct}", "");
+	
+	/**
+	 * Normalizes a phrase in a single pass: punctuation is removed, runs of
+	 * whitespace are collapsed into a single space, leading and trailing whitespace
+	 * is dropped, and everything is lower cased. If the phrase is already
+	 * normalized, then it is returned as is.
+	 *
+	 * @param phrase
+	 *            The phrase. Non-null.
+	 * @return The normalized phrase.
+	 */
+	public static String normalize(String phrase) {
+		if (isNormalized(phrase)) {
+			return phrase;
+		}
 		
-		// Multi-space characters should be replaced with a single space
-		normalized = normalized.replaceAll("\\s+", " ");
+		int length = phrase.length();
+		StringBuilder sb = new StringBuilder(length);
+		boolean pendingSpace = false;
 		
-		normalized = normalized.toLowerCase();
-
-		return normalized;
+		for (int i = 0; i < length; i++) {
+			char c = phrase.charAt(i);
+			
+			if (isPunctuation(c)) {
+				continue;
+			}
+			
+			if (isWhitespace(c)) {
+				// Leading whitespace is dropped.
+				pendingSpace = sb.length() > 0;
+				continue;
+			}
+			
+			if (pendingSpace) {
+				sb.append(' ');
+				pendingSpace = false;
+			}
+			
+			sb.append(Character.toLowerCase(c));
+		}
+		
+		return sb.toString();
+	}
+	
+	private static boolean isNormalized(String phrase) {
+		int length = phrase.length();
+		char previous = ' ';
+		
+		for (int i = 0; i < length; i++) {
+			char c = phrase.charAt(i);
+			
+			if (isPunctuation(c) || Character.toLowerCase(c) != c) {
+				return false;
+			}
+			
+			if (isWhitespace(c) && (c != ' ' || previous == ' ')) {
+				return false;
+			}
+			
+			previous = c;
+		}
+		
+		// Trailing whitespace is not allowed.
+		return length == 0 || previous != ' ';
+	}
+	
+	/**
+	 * Equivalent to the POSIX {@code \p{Punct}} character class.
+	 */
+	private static boolean isPunctuation(char c) {
+		return (c >= '!' && c <= '/')
+				|| (c >= ':' && c <= '@')
+				|| (c >= '[' && c <= '`')
+				|| (c >= '{' && c <= '~');
+	}
+	
+	/**
+	 * Equivalent to the {@code \s} character class.
+	 */
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
 	}
 }
@@ -0,0 +1,207 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+
+import sx.blah.discord.handle.obj.IGuild;
+import sx.blah.discord.handle.obj.IVoiceChannel;
+import sx.blah.discord.util.MissingPermissionsException;
+
+/**
+ * Keeps one voice connection, {@link AudioPlayer}, and
+ * {@link LavaplayerAudioProvider} per guild. When a round releases them, they
+ * linger for a while before the bot leaves the voice channel, so that a
+ * follow-up round in the same channel can reuse them instead of reconnecting.
+ * <p>
+ * This class is thread safe.
+ */
+class GuildAudioPool {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(GuildAudioPool.class);
+	
+	static final long IDLE_TIMEOUT_MS = 60000;
+	
+	private final AudioPlayerManager audioPlayerManager;
+	private final HashedWheelTimer timer;
+	
+	// Guild ID to its pooled audio. Guarded by this.
+	private final Map<Long, GuildAudio> guildAudios;
+	
+	@Inject
+	public GuildAudioPool(AudioPlayerManager audioPlayerManager, HashedWheelTimer timer) {
+		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager, "audioPlayerManager must be non-null.");
+		this.timer = Preconditions.checkNotNull(timer, "timer must be non-null.");
+		this.guildAudios = new HashMap<>();
+	}
+	
+	/**
+	 * Joins the voice channel, reusing the guild's pooled player if there is one.
+	 * The player is only handed over once it has been released, so that two
+	 * rounds never share it.
+	 * 
+	 * @param guild
+	 *            The {@link IGuild}. Non-null.
+	 * @param voiceChannel
+	 *            The voice channel to join. Non-null.
+	 * @return A new {@link Lease}.
+	 * @throws MissingPermissionsException
+	 *             if there are no permissions to connect to that voice channel.
+	 * @throws AlreadyInAnotherVoiceChannelException
+	 *             if the bot is connected to some other voice channel which is
+	 *             still in use.
+	 * @throws VoiceChannelInUseException
+	 *             if another round still holds the guild's player.
+	 */
+	public synchronized Lease acquire(IGuild guild, IVoiceChannel voiceChannel) {
+		Preconditions.checkNotNull(guild, "guild must be non-null.");
+		Preconditions.checkNotNull(voiceChannel, "voiceChannel must be non-null.");
+		
+		GuildAudio guildAudio = guildAudios.get(guild.getLongID());
+		IVoiceChannel currentVc = guild.getConnectedVoiceChannel();
+		
+		boolean inAnotherVc = currentVc != null && currentVc.getLongID() != voiceChannel.getLongID();
+		boolean leased = guildAudio != null && guildAudio.lease != null;
+		
+		if (inAnotherVc && (guildAudio == null || leased)) {
+			throw new AlreadyInAnotherVoiceChannelException("Already connected to another voice channel.", currentVc);
+		}
+		
+		if (leased) {
+			throw new VoiceChannelInUseException("Another round is using the guild's audio player.", voiceChannel);
+		}
+		
+		if (inAnotherVc) {
+			// Idle in another channel, so just move.
+			voiceChannel.join();
+		} else if (currentVc == null) {
+			voiceChannel.join();
+		}
+		
+		if (guildAudio == null) {
+			AudioPlayer audioPlayer = audioPlayerManager.createPlayer();
+			guildAudio = new GuildAudio(guild, audioPlayer, new LavaplayerAudioProvider(audioPlayer));
+			guildAudios.put(guild.getLongID(), guildAudio);
+		} else {
+			LOG.debug("Reusing the audio player of guild {}.", guild.getLongID());
+		}
+		
+		if (guildAudio.idleTimeout != null) {
+			guildAudio.idleTimeout.cancel();
+			guildAudio.idleTimeout = null;
+		}
+		
+		// Reconnecting may have reset the provider, and other code may have replaced it.
+		if (guild.getAudioManager().getAudioProvider() != guildAudio.audioProvider) {
+			guild.getAudioManager().setAudioProvider(guildAudio.audioProvider);
+		}
+		
+		Lease lease = new Lease(guildAudio);
+		guildAudio.lease = lease;
+		
+		return lease;
+	}
+	
+	/**
+	 * Stops playback and returns the player to the pool. The bot stays in the
+	 * voice channel until the player has been idle for {@link #IDLE_TIMEOUT_MS}.
+	 * No-op if the lease has already been released.
+	 * 
+	 * @param lease
+	 *            The {@link Lease}. Non-null.
+	 */
+	public synchronized void release(Lease lease) {
+		Preconditions.checkNotNull(lease, "lease must be non-null.");
+		
+		GuildAudio guildAudio = lease.guildAudio;
+		if (guildAudio.lease != lease) {
+			return;
+		}
+		
+		guildAudio.lease = null;
+		guildAudio.audioProvider.stopClip();
+		guildAudio.audioPlayer.stopTrack();
+		guildAudio.idleTimeout = timer.schedule(() -> expire(guildAudio), IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+	}
+	
+	private synchronized void expire(GuildAudio guildAudio) {
+		if (guildAudio.lease != null || guildAudios.get(guildAudio.guild.getLongID()) != guildAudio) {
+			return;
+		}
+		
+		close(guildAudio);
+	}
+	
+	/**
+	 * Destroys every pooled player and leaves every voice channel, including those
+	 * which are still leased.
+	 */
+	public synchronized void shutdown() {
+		for (GuildAudio guildAudio : guildAudios.values().toArray(new GuildAudio[0])) {
+			close(guildAudio);
+		}
+	}
+	
+	private void close(GuildAudio guildAudio) {
+		guildAudios.remove(guildAudio.guild.getLongID());
+		guildAudio.lease = null;
+		if (guildAudio.idleTimeout != null) {
+			guildAudio.idleTimeout.cancel();
+		}
+		
+		guildAudio.audioPlayer.destroy();
+		
+		try {
+			IVoiceChannel currentVc = guildAudio.guild.getConnectedVoiceChannel();
+			if (currentVc != null) {
+				currentVc.leave();
+			}
+		} catch (Exception e) {
+			LOG.warn("Unable to leave the voice channel of guild {}.", guildAudio.guild.getLongID(), e);
+		}
+	}
+	
+	/**
+	 * A round's hold on a guild's pooled audio.
+	 */
+	static class Lease {
+		
+		private final GuildAudio guildAudio;
+		
+		private Lease(GuildAudio guildAudio) {
+			this.guildAudio = guildAudio;
+		}
+		
+		public AudioPlayer getAudioPlayer() {
+			return guildAudio.audioPlayer;
+		}
+		
+		public LavaplayerAudioProvider getAudioProvider() {
+			return guildAudio.audioProvider;
+		}
+	}
+	
+	private static class GuildAudio {
+		
+		private final IGuild guild;
+		private final AudioPlayer audioPlayer;
+		private final LavaplayerAudioProvider audioProvider;
+		
+		private Lease lease;
+		private HashedWheelTimer.Timeout idleTimeout;
+		
+		GuildAudio(IGuild guild, AudioPlayer audioPlayer, LavaplayerAudioProvider audioProvider) {
+			this.guild = guild;
+			this.audioPlayer = audioPlayer;
+			this.audioProvider = audioProvider;
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A timer backed by a hashed timing wheel. A single ticker thread advances the
+ * wheel and hands expired tasks off to the dispatch {@link Executor}, so any
+ * number of pending timeouts only costs one thread plus the dispatch pool.
+ * <p>
+ * Timeouts are accurate to within one tick, which is plenty for trivia
+ * question timers. This class is thread safe.
+ */
+class HashedWheelTimer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	private final Executor dispatchExecutor;
+	private final Queue<Timeout> pendingTimeouts;
+	private final Thread tickerThread;
+
+	private volatile boolean stopped;
+
+	/**
+	 * Constructor. The ticker thread is started immediately.
+	 *
+	 * @param tickDuration
+	 *            The duration of a single tick. Must be positive.
+	 * @param timeUnit
+	 *            The {@link TimeUnit} of {@code tickDuration}. Non-null.
+	 * @param ticksPerWheel
+	 *            The number of buckets in the wheel. Rounded up to the next
+	 *            power of two. Must be positive.
+	 * @param dispatchExecutor
+	 *            The {@link Executor} that expired tasks are run on. Non-null.
+	 */
+	public HashedWheelTimer(long tickDuration, TimeUnit timeUnit, int ticksPerWheel, Executor dispatchExecutor) {
+		Preconditions.checkArgument(tickDuration > 0, "tickDuration must be positive.");
+		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
+		Preconditions.checkArgument(ticksPerWheel > 0 && ticksPerWheel <= (1 << 30),
+				"ticksPerWheel must be positive and at most 2^30.");
+		this.dispatchExecutor = Preconditions.checkNotNull(dispatchExecutor, "dispatchExecutor must be non-null.");
+
+		this.tickNanos = timeUnit.toNanos(tickDuration);
+
+		int wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+		wheelSize = Math.max(wheelSize, 1);
+		this.wheel = new Bucket[wheelSize];
+		for (int i = 0; i < wheelSize; i++) {
+			this.wheel[i] = new Bucket();
+		}
+		this.mask = wheelSize - 1;
+
+		this.pendingTimeouts = new ConcurrentLinkedQueue<>();
+		this.stopped = false;
+
+		this.tickerThread = new Thread(this::runTicker, "Trivia Timer Wheel");
+		this.tickerThread.setDaemon(true);
+		this.tickerThread.start();
+	}
+
+	/**
+	 * Schedules a task to be run once after the given delay.
+	 *
+	 * @param task
+	 *            The task. Non-null.
+	 * @param delay
+	 *            The delay. Must be non-negative.
+	 * @param timeUnit
+	 *            The {@link TimeUnit} of {@code delay}. Non-null.
+	 * @return A {@link Timeout} which can be used to cancel the task.
+	 * @throws IllegalStateException
+	 *             if this timer has been stopped.
+	 */
+	public Timeout schedule(Runnable task, long delay, TimeUnit timeUnit) {
+		Preconditions.checkNotNull(task, "task must be non-null.");
+		Preconditions.checkArgument(delay >= 0, "delay must be non-negative.");
+		Preconditions.checkNotNull(timeUnit, "timeUnit must be non-null.");
+		Preconditions.checkState(!stopped, "The timer has been stopped.");
+
+		Timeout timeout = new Timeout(task, System.nanoTime() + timeUnit.toNanos(delay));
+		pendingTimeouts.add(timeout);
+
+		return timeout;
+	}
+
+	/**
+	 * Stops the ticker thread. Pending timeouts will never run. No-op if the timer
+	 * has already been stopped.
+	 */
+	public void stop() {
+		if (stopped) {
+			return;
+		}
+
+		stopped = true;
+		tickerThread.interrupt();
+		LOG.info("Stopping the trivia timer wheel.");
+	}
+
+	private void runTicker() {
+		long startTime = System.nanoTime();
+		long tick = 0;
+
+		while (!stopped) {
+			long tickDeadline = startTime + (tick + 1) * tickNanos;
+			long sleepNanos;
+			while ((sleepNanos = tickDeadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, sleepNanos);
+				if (stopped) {
+					return;
+				}
+			}
+
+			transferPendingTimeouts(startTime, tick);
+			expireTimeouts(wheel[(int) (tick & mask)], tickDeadline);
+			tick++;
+		}
+	}
+
+	private void transferPendingTimeouts(long startTime, long currentTick) {
+		Timeout timeout;
+		while ((timeout = pendingTimeouts.poll()) != null) {
+			if (timeout.isCancelled()) {
+				continue;
+			}
+
+			long calculatedTick = (timeout.deadline - startTime) / tickNanos;
+			timeout.remainingRounds = (calculatedTick - currentTick) / wheel.length;
+
+			// Timeouts that should have already expired are put in the current bucket.
+			long effectiveTick = Math.max(calculatedTick, currentTick);
+			wheel[(int) (effectiveTick & mask)].add(timeout);
+		}
+	}
+
+	private void expireTimeouts(Bucket bucket, long tickDeadline) {
+		Timeout timeout = bucket.head;
+		while (timeout != null) {
+			Timeout next = timeout.next;
+
+			if (timeout.isCancelled()) {
+				bucket.remove(timeout);
+			} else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+				bucket.remove(timeout);
+				dispatch(timeout);
+			} else {
+				timeout.remainingRounds--;
+			}
+
+			timeout = next;
+		}
+	}
+
+	private void dispatch(Timeout timeout) {
+		if (!timeout.state.compareAndSet(Timeout.ST_PENDING, Timeout.ST_EXPIRED)) {
+			return;
+		}
+
+		try {
+			dispatchExecutor.execute(() -> {
+				try {
+					timeout.task.run();
+				} catch (Exception e) {
+					LOG.error("Timer task has unexpectedly thrown an exception.", e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LOG.warn("Timer task was rejected by the dispatch executor.", e);
+		}
+	}
+
+	/**
+	 * A handle to a task scheduled on a {@link HashedWheelTimer}.
+	 */
+	static class Timeout {
+
+		private static final int ST_PENDING = 0;
+		private static final int ST_CANCELLED = 1;
+		private static final int ST_EXPIRED = 2;
+
+		private final Runnable task;
+		private final long deadline;
+		private final AtomicInteger state;
+
+		// Only accessed by the ticker thread.
+		private long remainingRounds;
+		private Timeout next;
+		private Timeout prev;
+
+		private Timeout(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+			this.state = new AtomicInteger(ST_PENDING);
+		}
+
+		/**
+		 * Cancels the task. This does not interrupt the task if it is already running.
+		 *
+		 * @return True if the task was cancelled before it was run. False if it has
+		 *         already been run or cancelled.
+		 */
+		public boolean cancel() {
+			return state.compareAndSet(ST_PENDING, ST_CANCELLED);
+		}
+
+		public boolean isCancelled() {
+			return state.get() == ST_CANCELLED;
+		}
+	}
+
+	/**
+	 * An intrusive doubly linked list of {@link Timeout}s. Only accessed by the
+	 * ticker thread.
+	 */
+	private static class Bucket {
+
+		private Timeout head;
+		private Timeout tail;
+
+		void add(Timeout timeout) {
+			if (head == null) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.prev = tail;
+				tail = timeout;
+			}
+		}
+
+		void remove(Timeout timeout) {
+			if (timeout.prev != null) {
+				timeout.prev.next = timeout.next;
+			} else {
+				head = timeout.next;
+			}
+
+			if (timeout.next != null) {
+				timeout.next.prev = timeout.prev;
+			} else {
+				tail = timeout.prev;
+			}
+
+			timeout.next = null;
+			timeout.prev = null;
+		}
+	}
+}
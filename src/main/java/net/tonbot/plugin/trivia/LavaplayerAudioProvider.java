@@ -1,35 +1,129 @@
 package net.tonbot.plugin.trivia;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+
 import com.google.common.base.Preconditions;
+import com.sedmelluq.discord.lavaplayer.format.StandardAudioDataFormats;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
-import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrameProvider;
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame;
 
 import sx.blah.discord.handle.audio.AudioEncodingType;
 import sx.blah.discord.handle.audio.IAudioProvider;
 
+/**
+ * Provides audio from an {@link AudioPlayer}, or from an {@link OpusClip} while
+ * one is playing. Clip frames are sent as they are, without touching the
+ * player.
+ * <p>
+ * Frames from the player are read into a single {@link MutableAudioFrame} and
+ * copied into an array that is reused for every frame of the same length, so
+ * steady playback does not allocate. Discord4J is done with the array returned
+ * by {@link #provide()} before it calls {@link #isReady()} again.
+ */
 class LavaplayerAudioProvider implements IAudioProvider {
-
-	private final AudioPlayer audioPlayer;
-
-	private AudioFrame lastFrame = null;
-
-	public LavaplayerAudioProvider(AudioPlayer audioPlayer) {
-		this.audioPlayer = Preconditions.checkNotNull(audioPlayer, "audioPlayer must be non-null.");
+	
+	private final AudioFrameProvider frameProvider;
+	private final MutableAudioFrame frame;
+	
+	// Output arrays, indexed by length. Opus frame sizes cluster around the
+	// bitrate, so only a handful of these are ever allocated.
+	private final byte[][] frameArrays;
+	
+	// Set by other threads, read by the audio thread.
+	private volatile ClipCursor clipCursor = null;
+	
+	private byte[] lastFrame = null;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param frameProvider
+	 *            Provides the Opus frames, usually an {@link AudioPlayer}. Non-null.
+	 */
+	public LavaplayerAudioProvider(AudioFrameProvider frameProvider) {
+		this.frameProvider = Preconditions.checkNotNull(frameProvider, "frameProvider must be non-null.");
+		
+		int maxFrameSize = StandardAudioDataFormats.DISCORD_OPUS.maximumChunkSize();
+		this.frame = new MutableAudioFrame();
+		this.frame.setBuffer(ByteBuffer.allocate(maxFrameSize));
+		this.frameArrays = new byte[maxFrameSize + 1][];
 	}
-
+	
+	/**
+	 * Starts playing a clip, replacing any clip that is currently playing.
+	 * 
+	 * @param clip
+	 *            The {@link OpusClip}. Non-null.
+	 */
+	public void playClip(OpusClip clip) {
+		Preconditions.checkNotNull(clip, "clip must be non-null.");
+		
+		this.clipCursor = new ClipCursor(clip.getFrames());
+	}
+	
+	/**
+	 * Stops playing the current clip, if there is one.
+	 */
+	public void stopClip() {
+		this.clipCursor = null;
+	}
+	
 	@Override
 	public AudioEncodingType getAudioEncodingType() {
 		return AudioEncodingType.OPUS;
 	}
-
+	
 	@Override
 	public boolean isReady() {
-		this.lastFrame = audioPlayer.provide();
-		return this.lastFrame != null;
+		ClipCursor cursor = this.clipCursor;
+		if (cursor != null) {
+			if (cursor.hasNext()) {
+				this.lastFrame = cursor.next();
+				return true;
+			}
+			
+			this.clipCursor = null;
+		}
+		
+		if (!frameProvider.provide(frame)) {
+			this.lastFrame = null;
+			return false;
+		}
+		
+		int length = frame.getDataLength();
+		byte[] data = frameArrays[length];
+		if (data == null) {
+			data = new byte[length];
+			frameArrays[length] = data;
+		}
+		frame.getData(data, 0);
+		
+		this.lastFrame = data;
+		return true;
 	}
-
+	
 	@Override
 	public byte[] provide() {
-		return this.lastFrame.data;
+		return this.lastFrame;
+	}
+	
+	private static class ClipCursor {
+		
+		private final List<byte[]> frames;
+		private int position = 0;
+		
+		ClipCursor(List<byte[]> frames) {
+			this.frames = frames;
+		}
+		
+		boolean hasNext() {
+			return position < frames.size();
+		}
+		
+		byte[] next() {
+			return frames.get(position++);
+		}
 	}
 }
@@ -0,0 +1,90 @@
+package net.tonbot.plugin.trivia;
+
+import java.awt.Color;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+
+import net.tonbot.common.Activity;
+import net.tonbot.common.ActivityDescriptor;
+import net.tonbot.common.BotUtils;
+import net.tonbot.common.Enactable;
+import net.tonbot.common.TonbotBusinessException;
+import net.tonbot.plugin.trivia.db.LeaderboardEntry;
+import net.tonbot.plugin.trivia.db.TriviaPersistentStore;
+import net.tonbot.plugin.trivia.model.TriviaMetadata;
+import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
+import sx.blah.discord.handle.obj.IUser;
+import sx.blah.discord.util.EmbedBuilder;
+
+class LeaderboardActivity implements Activity {
+
+	private static final ActivityDescriptor ACTIVITY_DESCRIPTOR = ActivityDescriptor.builder()
+			.route("trivia leaderboard")
+			.parameters(ImmutableList.of("[topic]"))
+			.description("Shows who has earned the most points in this server.")
+			.build();
+	
+	private static final int LEADERBOARD_SIZE = 10;
+	
+	private final TriviaLibrary triviaLibrary;
+	private final TriviaPersistentStore store;
+	private final BotUtils botUtils;
+	private final Color accent;
+	
+	@Inject
+	public LeaderboardActivity(TriviaLibrary triviaLibrary, TriviaPersistentStore store, BotUtils botUtils, Color accent) {
+		this.triviaLibrary = Preconditions.checkNotNull(triviaLibrary, "triviaLibrary must be non-null.");
+		this.store = Preconditions.checkNotNull(store, "store must be non-null.");
+		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
+		this.accent = Preconditions.checkNotNull(accent, "accent must be non-null.");
+	}
+	
+	@Override
+	public ActivityDescriptor getDescriptor() {
+		return ACTIVITY_DESCRIPTOR;
+	}
+	
+	@Enactable()
+	public void enact(MessageReceivedEvent event, LeaderboardRequest request) {
+		
+		// Stats are recorded under the topic's name, rather than the name that is used to play it.
+		String topicName = null;
+		if (request.getTopic() != null) {
+			TriviaMetadata metadata = triviaLibrary.getTopicMetadata().get(request.getTopic());
+			if (metadata == null) {
+				throw new TonbotBusinessException(
+						"Invalid topic name. Use the ``trivia topics`` command to see the available topics.");
+			}
+			topicName = metadata.getName();
+		}
+		
+		List<LeaderboardEntry> leaderboard = store.getLeaderboard(event.getGuild().getLongID(), topicName, LEADERBOARD_SIZE);
+		
+		if (leaderboard.isEmpty()) {
+			botUtils.sendMessage(event.getChannel(), "Nobody has played " + (topicName != null ? topicName : "trivia") + " here yet!");
+			return;
+		}
+		
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < leaderboard.size(); i++) {
+			LeaderboardEntry entry = leaderboard.get(i);
+			// Only the guild's cached members are looked up, since fetching users from Discord would block on REST.
+			IUser user = event.getGuild().getUserByID(entry.getUserId());
+			String displayName = user != null ? user.getDisplayName(event.getGuild()) : Long.toString(entry.getUserId());
+			
+			sb.append((i + 1) + ". **" + displayName + "** " + entry.getPoints() + " points");
+			sb.append(" (" + entry.getPlays() + (entry.getPlays() == 1 ? " round" : " rounds") + ")\n");
+		}
+		
+		EmbedBuilder eb = new EmbedBuilder();
+		
+		eb.withTitle((topicName != null ? topicName : "Trivia") + " Leaderboard");
+		eb.withDescription(sb.toString());
+		eb.withColor(accent);
+		
+		botUtils.sendEmbed(event.getChannel(), eb.build());
+	}
+}
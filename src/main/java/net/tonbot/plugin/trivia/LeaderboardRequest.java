@@ -0,0 +1,15 @@
+package net.tonbot.plugin.trivia;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import net.tonbot.common.Param;
+
+@EqualsAndHashCode
+@ToString
+public class LeaderboardRequest {
+
+	@Getter
+	@Param(name = "topic", ordinal = 0, description = "The trivia topic name. Leave it out to rank everyone by their points in all topics.")
+	private String topic;
+}
@@ -0,0 +1,190 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A precompiled pattern which answers whether a text is within a bounded
+ * Levenshtein distance of the pattern. Patterns of up to 64 characters use
+ * Myers' bit-parallel algorithm (in Hyyrö's formulation for global distance),
+ * so a check is a handful of word operations per character of the text. Longer
+ * patterns fall back to a dynamic programming table restricted to a diagonal
+ * band.
+ * <p>
+ * This class is immutable and thread safe.
+ */
+class LevenshteinPattern {
+	
+	private static final int MAX_BIT_PARALLEL_LENGTH = Long.SIZE;
+	private static final int ASCII_SIZE = 128;
+	
+	private final String pattern;
+	private final int maxDistance;
+	
+	// Position bitmasks, only used when the pattern fits in a word.
+	private final long[] asciiPeq;
+	private final Map<Character, Long> nonAsciiPeq;
+	private final long lastBit;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param pattern
+	 *            The pattern. Non-null.
+	 * @param maxDistance
+	 *            The maximum distance for a text to be accepted. Must be
+	 *            non-negative.
+	 */
+	public LevenshteinPattern(String pattern, int maxDistance) {
+		this.pattern = Preconditions.checkNotNull(pattern, "pattern must be non-null.");
+		Preconditions.checkArgument(maxDistance >= 0, "maxDistance must be non-negative.");
+		this.maxDistance = maxDistance;
+		
+		int length = pattern.length();
+		if (length > 0 && length <= MAX_BIT_PARALLEL_LENGTH) {
+			this.asciiPeq = new long[ASCII_SIZE];
+			Map<Character, Long> nonAsciiPeq = new HashMap<>();
+			for (int i = 0; i < length; i++) {
+				char c = pattern.charAt(i);
+				long bit = 1L << i;
+				if (c < ASCII_SIZE) {
+					this.asciiPeq[c] |= bit;
+				} else {
+					nonAsciiPeq.merge(c, bit, (a, b) -> a | b);
+				}
+			}
+			this.nonAsciiPeq = nonAsciiPeq;
+			this.lastBit = 1L << (length - 1);
+		} else {
+			this.asciiPeq = null;
+			this.nonAsciiPeq = null;
+			this.lastBit = 0;
+		}
+	}
+	
+	/**
+	 * Checks whether if the text is within the maximum distance of this pattern.
+	 *
+	 * @param text
+	 *            The text. Non-null.
+	 * @return True if the Levenshtein distance between the text and this pattern
+	 *         is no more than the maximum distance.
+	 */
+	public boolean matches(String text) {
+		Preconditions.checkNotNull(text, "text must be non-null.");
+		
+		int m = pattern.length();
+		int n = text.length();
+		
+		// The distance is at least the difference in lengths.
+		if (Math.abs(m - n) > maxDistance) {
+			return false;
+		}
+		
+		if (m == 0 || n == 0) {
+			return true;
+		}
+		
+		if (asciiPeq != null) {
+			return matchesBitParallel(text);
+		}
+		
+		return matchesBanded(text);
+	}
+	
+	private boolean matchesBitParallel(String text) {
+		int n = text.length();
+		long pv = -1L;
+		long mv = 0L;
+		int score = pattern.length();
+		
+		for (int j = 0; j < n; j++) {
+			long eq = peq(text.charAt(j));
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			
+			if ((ph & lastBit) != 0) {
+				score++;
+			} else if ((mh & lastBit) != 0) {
+				score--;
+			}
+			
+			// The score can drop by at most one per remaining character.
+			if (score - (n - j - 1) > maxDistance) {
+				return false;
+			}
+			
+			// A carry of 1 into the top row, since the distance to an empty pattern grows
+			// with each character of the text.
+			ph = (ph << 1) | 1L;
+			mh = mh << 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+		}
+		
+		return score <= maxDistance;
+	}
+	
+	private long peq(char c) {
+		if (c < ASCII_SIZE) {
+			return asciiPeq[c];
+		}
+		
+		Long mask = nonAsciiPeq.get(c);
+		return mask == null ? 0L : mask;
+	}
+	
+	/**
+	 * Ukkonen's cutoff: only cells within {@code maxDistance} of the diagonal can
+	 * lead to an accepted distance, so everything outside the band is treated as
+	 * infinite.
+	 */
+	private boolean matchesBanded(String text) {
+		int m = pattern.length();
+		int n = text.length();
+		int infinity = maxDistance + 1;
+		
+		int[] previous = new int[n + 1];
+		int[] current = new int[n + 1];
+		for (int j = 0; j <= n; j++) {
+			previous[j] = j <= maxDistance ? j : infinity;
+		}
+		
+		for (int i = 1; i <= m; i++) {
+			int from = Math.max(1, i - maxDistance);
+			int to = Math.min(n, i + maxDistance);
+			
+			current[0] = i <= maxDistance ? i : infinity;
+			if (from > 1) {
+				current[from - 1] = infinity;
+			}
+			
+			int rowMin = current[0];
+			char pc = pattern.charAt(i - 1);
+			for (int j = from; j <= to; j++) {
+				int cost = pc == text.charAt(j - 1) ? 0 : 1;
+				int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+				value = Math.min(value, infinity);
+				current[j] = value;
+				rowMin = Math.min(rowMin, value);
+			}
+			if (to < n) {
+				current[to + 1] = infinity;
+			}
+			
+			if (rowMin > maxDistance) {
+				return false;
+			}
+			
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		
+		return previous[n] <= maxDistance;
+	}
+}
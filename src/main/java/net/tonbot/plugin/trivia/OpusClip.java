@@ -0,0 +1,43 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A short piece of a track, already encoded as the 20 millisecond Opus frames
+ * that are sent to Discord.
+ */
+class OpusClip {
+	
+	static final long FRAME_DURATION_MS = 20;
+	
+	private final List<byte[]> frames;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param frames
+	 *            The Opus frames, in order. Non-null.
+	 */
+	public OpusClip(List<byte[]> frames) {
+		Preconditions.checkNotNull(frames, "frames must be non-null.");
+		
+		this.frames = ImmutableList.copyOf(frames);
+	}
+	
+	/**
+	 * Gets the Opus frames. The frames' arrays must not be modified.
+	 */
+	public List<byte[]> getFrames() {
+		return frames;
+	}
+	
+	/**
+	 * Gets the duration of the clip in milliseconds.
+	 */
+	public long getDurationMs() {
+		return frames.size() * FRAME_DURATION_MS;
+	}
+}
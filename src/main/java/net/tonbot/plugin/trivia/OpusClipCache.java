@@ -0,0 +1,318 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer;
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.playback.AudioFrame;
+
+/**
+ * A disk cache of {@link OpusClip}s. Each track is cut into a few clips, each
+ * starting at a random position within an equal share of the track, so that
+ * questions still start at varied positions. Clips are encoded on a single
+ * background thread by running the track through a lavaplayer
+ * {@link AudioPlayer} which is not connected to any voice channel, so
+ * questions which use a cached clip need no live transcoding at all.
+ * <p>
+ * Clips are keyed by the track's path, size, last modified time, and the clip
+ * length, so changed tracks are encoded again. The cache directory may be
+ * deleted at any time. Whenever clips are encoded, the least recently used
+ * clips are deleted until the cache fits in its maximum size.
+ * <p>
+ * This class is thread safe.
+ */
+class OpusClipCache {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(OpusClipCache.class);
+	
+	static final int CLIPS_PER_TRACK = 4;
+	
+	private static final int MAGIC = 0x4F505553; // "OPUS"
+	private static final int VERSION = 1;
+	
+	// How long to wait for the player to produce a frame before giving up on a clip.
+	private static final long FRAME_TIMEOUT_MS = 5000;
+	
+	private static final String CLIP_SUFFIX = ".opus";
+	private static final String TEMP_SUFFIX = ".tmp";
+	
+	private final File cacheDir;
+	private final long maxCacheBytes;
+	private final AudioPlayerManager audioPlayerManager;
+	private final AudioTrackLoader audioTrackLoader;
+	private final Random random;
+	private final ExecutorService encoderExecutor;
+	
+	// Keys of tracks which are queued or being encoded.
+	private final Set<String> pendingKeys;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param cacheDir
+	 *            The directory to keep clips in. Non-null.
+	 * @param maxCacheBytes
+	 *            The maximum total size of the clips, in bytes. Must be positive.
+	 * @param audioPlayerManager
+	 *            {@link AudioPlayerManager}. Non-null.
+	 * @param audioTrackLoader
+	 *            {@link AudioTrackLoader}. Non-null.
+	 * @param random
+	 *            {@link Random}. Non-null.
+	 */
+	public OpusClipCache(
+			File cacheDir,
+			long maxCacheBytes,
+			AudioPlayerManager audioPlayerManager,
+			AudioTrackLoader audioTrackLoader,
+			Random random) {
+		Preconditions.checkArgument(maxCacheBytes > 0, "maxCacheBytes must be positive.");
+		
+		this.cacheDir = Preconditions.checkNotNull(cacheDir, "cacheDir must be non-null.");
+		this.maxCacheBytes = maxCacheBytes;
+		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager, "audioPlayerManager must be non-null.");
+		this.audioTrackLoader = Preconditions.checkNotNull(audioTrackLoader, "audioTrackLoader must be non-null.");
+		this.random = Preconditions.checkNotNull(random, "random must be non-null.");
+		this.encoderExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+				.setNameFormat("Trivia Opus Clip Encoder")
+				.setDaemon(true)
+				.setPriority(Thread.MIN_PRIORITY)
+				.build());
+		this.pendingKeys = ConcurrentHashMap.newKeySet();
+		
+		this.cacheDir.mkdirs();
+	}
+	
+	/**
+	 * Gets a random cached clip of the given track. If the track's clips are not
+	 * cached, then they are queued up to be encoded in the background.
+	 * 
+	 * @param audioFile
+	 *            The track's audio file. Non-null.
+	 * @param clipDurationMs
+	 *            The length of the clip, in milliseconds. Must be positive.
+	 * @return A clip, or empty if the track's clips have not been encoded yet.
+	 */
+	public Optional<OpusClip> getClip(File audioFile, long clipDurationMs) {
+		Preconditions.checkNotNull(audioFile, "audioFile must be non-null.");
+		Preconditions.checkArgument(clipDurationMs > 0, "clipDurationMs must be positive.");
+		
+		String key = getKey(audioFile, clipDurationMs);
+		File clipFile = getClipFile(key, random.nextInt(CLIPS_PER_TRACK));
+		
+		if (clipFile.isFile()) {
+			try {
+				OpusClip clip = read(clipFile);
+				
+				// The last modified time doubles as the last used time, so that pruning keeps clips which are in use.
+				clipFile.setLastModified(System.currentTimeMillis());
+				
+				return Optional.of(clip);
+			} catch (IOException e) {
+				LOG.warn("Unable to read Opus clip {}. It will be encoded again.", clipFile.getAbsolutePath(), e);
+				clipFile.delete();
+			}
+		}
+		
+		if (pendingKeys.add(key)) {
+			encoderExecutor.execute(() -> {
+				try {
+					encode(audioFile, clipDurationMs, key);
+				} catch (Exception e) {
+					LOG.warn("Unable to encode Opus clips for {}.", audioFile.getAbsolutePath(), e);
+				} finally {
+					pendingKeys.remove(key);
+				}
+				
+				prune();
+			});
+		}
+		
+		return Optional.empty();
+	}
+	
+	/**
+	 * Stops encoding clips. Clips which are being encoded are abandoned.
+	 */
+	public void shutdown() {
+		encoderExecutor.shutdownNow();
+	}
+	
+	/**
+	 * Deletes the least recently used clips until the cache fits in its maximum
+	 * size, along with any clips which were left half written. Must only be called
+	 * while no clips are being written.
+	 */
+	void prune() {
+		File[] files = cacheDir.listFiles();
+		if (files == null) {
+			return;
+		}
+		
+		// Read each time once, since clips in use may be touched while sorting.
+		Map<File, Long> lastUsed = new HashMap<>();
+		long totalBytes = 0;
+		for (File file : files) {
+			if (file.getName().endsWith(TEMP_SUFFIX)) {
+				file.delete();
+			} else if (file.getName().endsWith(CLIP_SUFFIX)) {
+				lastUsed.put(file, file.lastModified());
+				totalBytes += file.length();
+			}
+		}
+		
+		if (totalBytes <= maxCacheBytes) {
+			return;
+		}
+		
+		List<File> clipFiles = new ArrayList<>(lastUsed.keySet());
+		clipFiles.sort(Comparator.comparing(lastUsed::get));
+		
+		int deleted = 0;
+		for (File clipFile : clipFiles) {
+			if (totalBytes <= maxCacheBytes) {
+				break;
+			}
+			
+			long length = clipFile.length();
+			if (clipFile.delete()) {
+				totalBytes -= length;
+				deleted++;
+			}
+		}
+		
+		LOG.info("Deleted {} least recently used Opus clips from {}.", deleted, cacheDir.getAbsolutePath());
+	}
+	
+	private void encode(File audioFile, long clipDurationMs, String key) throws IOException {
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		AudioTrack track = audioTrackLoader.load(audioFile);
+		long segmentMs = Math.max(track.getDuration() - clipDurationMs, 0) / CLIPS_PER_TRACK;
+		int frameCount = (int) (clipDurationMs / OpusClip.FRAME_DURATION_MS);
+		
+		for (int i = 0; i < CLIPS_PER_TRACK; i++) {
+			File clipFile = getClipFile(key, i);
+			if (clipFile.isFile()) {
+				continue;
+			}
+			
+			long position = segmentMs * i + (long) (random.nextDouble() * segmentMs);
+			List<byte[]> frames = encodeClip(i == 0 ? track : audioTrackLoader.load(audioFile), position, frameCount);
+			if (frames.isEmpty()) {
+				throw new IOException("No audio was produced at position " + position);
+			}
+			write(new OpusClip(frames), clipFile);
+		}
+		
+		LOG.info("Encoded {} Opus clips of {} in {} ms.", CLIPS_PER_TRACK, audioFile.getAbsolutePath(),
+				stopwatch.elapsed(TimeUnit.MILLISECONDS));
+	}
+	
+	private List<byte[]> encodeClip(AudioTrack track, long position, int frameCount) throws IOException {
+		AudioPlayer player = audioPlayerManager.createPlayer();
+		try {
+			track.setPosition(position);
+			player.playTrack(track);
+			
+			List<byte[]> frames = new ArrayList<>(frameCount);
+			while (frames.size() < frameCount) {
+				AudioFrame frame = player.provide(FRAME_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				if (frame != null) {
+					frames.add(frame.getData());
+				} else if (player.getPlayingTrack() == null) {
+					// The track ended early.
+					break;
+				}
+			}
+			
+			return frames;
+		} catch (TimeoutException e) {
+			throw new IOException("Timed out while encoding " + track.getIdentifier(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while encoding " + track.getIdentifier(), e);
+		} finally {
+			player.destroy();
+		}
+	}
+	
+	private String getKey(File audioFile, long clipDurationMs) {
+		String identity = audioFile.getAbsolutePath() + "|" + audioFile.length() + "|" + audioFile.lastModified()
+				+ "|" + clipDurationMs;
+		return Hashing.sha256().hashString(identity, StandardCharsets.UTF_8).toString();
+	}
+	
+	private File getClipFile(String key, int index) {
+		return new File(cacheDir, key + "-" + index + CLIP_SUFFIX);
+	}
+	
+	static OpusClip read(File clipFile) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(clipFile)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not an Opus clip, or made by a different version of this plugin.");
+			}
+			
+			int frameCount = in.readInt();
+			if (frameCount < 0) {
+				throw new IOException("Opus clip has a malformed header.");
+			}
+			
+			List<byte[]> frames = new ArrayList<>(frameCount);
+			for (int i = 0; i < frameCount; i++) {
+				byte[] frame = new byte[in.readUnsignedShort()];
+				in.readFully(frame);
+				frames.add(frame);
+			}
+			
+			return new OpusClip(frames);
+		}
+	}
+	
+	static void write(OpusClip clip, File clipFile) throws IOException {
+		File tempFile = new File(clipFile.getParentFile(), clipFile.getName() + TEMP_SUFFIX);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(clip.getFrames().size());
+			for (byte[] frame : clip.getFrames()) {
+				out.writeShort(frame.length);
+				out.write(frame);
+			}
+		}
+		
+		Files.move(tempFile.toPath(), clipFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -0,0 +1,88 @@
+package net.tonbot.plugin.trivia;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A shuffled deck of question indices which is dealt one card at a time. Each
+ * draw advances a partial Fisher–Yates shuffle by one step, so it takes
+ * constant time. The identity permutation is never materialized: only the
+ * positions that have been swapped are remembered, so a deck costs memory in
+ * proportion to the number of draws rather than the number of questions.
+ * <p>
+ * This class is not thread safe.
+ */
+class QuestionDeck {
+	
+	private final int size;
+	private final int maxDraws;
+	
+	// Positions at or past numDrawn whose value is no longer their own position.
+	private final Map<Integer, Integer> swapped;
+	
+	private int numDrawn;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param size
+	 *            The number of questions to draw from. Must be non-negative.
+	 * @param maxDraws
+	 *            The maximum number of times that the deck will be drawn from.
+	 *            Must be between 0 and {@code size}, inclusive.
+	 */
+	public QuestionDeck(int size, int maxDraws) {
+		Preconditions.checkArgument(size >= 0, "size must be non-negative.");
+		Preconditions.checkArgument(maxDraws >= 0 && maxDraws <= size, "maxDraws must be between 0 and size.");
+		
+		this.size = size;
+		this.maxDraws = maxDraws;
+		this.swapped = new HashMap<>();
+		this.numDrawn = 0;
+	}
+	
+	/**
+	 * Whether there are draws remaining.
+	 * 
+	 * @return True iff {@link #draw(Random)} may be called.
+	 */
+	public boolean hasNext() {
+		return numDrawn < maxDraws;
+	}
+	
+	/**
+	 * Draws the next question index. Every index is returned at most once.
+	 * 
+	 * @param random
+	 *            The source of randomness. Non-null.
+	 * @return An index between 0 (inclusive) and the deck's size (exclusive).
+	 * @throws IllegalStateException
+	 *             if the maximum number of draws has been reached.
+	 */
+	public int draw(Random random) {
+		Preconditions.checkNotNull(random, "random must be non-null.");
+		Preconditions.checkState(hasNext(), "No draws remaining.");
+		
+		int pick = numDrawn + random.nextInt(size - numDrawn);
+		int picked = valueAt(pick);
+		
+		// Move the value at the front of the undrawn range into the picked position.
+		// The front position is about to become drawn, so it no longer needs to be remembered.
+		if (pick != numDrawn) {
+			swapped.put(pick, valueAt(numDrawn));
+		}
+		swapped.remove(numDrawn);
+		
+		numDrawn++;
+		
+		return picked;
+	}
+	
+	private int valueAt(int position) {
+		Integer value = swapped.get(position);
+		return value == null ? position : value;
+	}
+}
@@ -12,6 +12,13 @@ public interface QuestionHandler {
 	 */
 	Question getQuestion();
 	
+	/**
+	 * Prepares anything that the question will need once it starts. Called once,
+	 * on a worker thread, before {@link #notifyStart(long, long, long)} and
+	 * possibly while the previous question is still winding down.
+	 */
+	void prefetch();
+	
 	/**
 	 * 
 	 * @param questionNumber
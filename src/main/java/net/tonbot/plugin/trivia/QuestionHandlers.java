@@ -1,7 +1,5 @@
 package net.tonbot.plugin.trivia;
 
-import org.jaudiotagger.audio.AudioFileIO;
-
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 
@@ -15,6 +13,7 @@ import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionHandler;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestion;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionGenerator;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionHandler;
+import net.tonbot.plugin.trivia.musicid.SongTagIndex;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestion;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestionGenerator;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestionHandler;
@@ -25,19 +24,19 @@ class QuestionHandlers {
 	private final MultipleChoiceQuestionGenerator multipleChoiceQuestionGenerator;
 	private final MusicIdQuestionGenerator musicIdQuestionGenerator;
 	
-	private final AudioFileIO audioFileIO;
+	private final SongTagIndex songTagIndex;
 	
 	@Inject
 	public QuestionHandlers(
 			ShortAnswerQuestionGenerator shortAnswerQuestionGenerator,
 			MultipleChoiceQuestionGenerator multipleChoiceQuestionGenerator,
 			MusicIdQuestionGenerator musicIdQuestionGenerator,
-			AudioFileIO audioFileIO) {
+			SongTagIndex songTagIndex) {
 		this.shortAnswerQuestionGenerator = Preconditions.checkNotNull(shortAnswerQuestionGenerator, "shortAnswerQuestionGenerator must be non-null.");
 		this.multipleChoiceQuestionGenerator = Preconditions.checkNotNull(multipleChoiceQuestionGenerator, "multipleChoiceQuestionGenerator must be non-null.");
 		this.musicIdQuestionGenerator = Preconditions.checkNotNull(musicIdQuestionGenerator, "musicIdQuestionGenerator must be non-null.");
 		
-		this.audioFileIO = Preconditions.checkNotNull(audioFileIO, "audioFileIO must be non-null.");
+		this.songTagIndex = Preconditions.checkNotNull(songTagIndex, "songTagIndex must be non-null.");
 	}
 	
 	public QuestionHandler get(QuestionTemplate questionTemplate, TriviaConfiguration config, TriviaListener listener, LoadedTrivia loadedTrivia) {
@@ -52,7 +51,7 @@ class QuestionHandlers {
 			return new ShortAnswerQuestionHandler(question, listener, loadedTrivia);
 		} else if (questionTemplate instanceof MusicIdQuestionTemplate) {
 			MusicIdQuestion question = musicIdQuestionGenerator.generate(loadedTrivia, config, (MusicIdQuestionTemplate) questionTemplate);
-			return new MusicIdQuestionHandler(question, config, listener, loadedTrivia, audioFileIO);
+			return new MusicIdQuestionHandler(question, config, listener, loadedTrivia, songTagIndex);
 		} else {
 			throw new IllegalArgumentException("Unsupported question template type: " + questionTemplate.getClass().getName());
 		}
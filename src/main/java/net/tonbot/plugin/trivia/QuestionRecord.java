@@ -48,8 +48,22 @@ class QuestionRecord {
 			return 0;
 		}
 		
-		long earnedPoints = (long) Math.ceil(value * Math.pow(scoreDecayFactor, incorrectAnswers));
-		return earnedPoints;
+		return getEarnedPoints(value, scoreDecayFactor, incorrectAnswers);
+	}
+	
+	/**
+	 * Gets the points earned for correctly answering a question.
+	 * 
+	 * @param value
+	 *            The number of points that the question is worth normally.
+	 * @param scoreDecayFactor
+	 *            The score decay factor.
+	 * @param incorrectAnswers
+	 *            The number of incorrect answers given before the correct one.
+	 * @return The earned points.
+	 */
+	static long getEarnedPoints(long value, double scoreDecayFactor, long incorrectAnswers) {
+		return (long) Math.ceil(value * Math.pow(scoreDecayFactor, incorrectAnswers));
 	}
 	
 	/**
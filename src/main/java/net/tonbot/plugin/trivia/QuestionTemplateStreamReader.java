@@ -0,0 +1,122 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import net.tonbot.plugin.trivia.model.QuestionTemplate;
+import net.tonbot.plugin.trivia.model.QuestionTemplateBundle;
+
+/**
+ * Reads questions.json one question at a time, so that only a single question
+ * is ever held as a JSON tree. Questions which fail to deserialize, validate or
+ * pass the sanity check are logged and skipped instead of failing the whole
+ * topic.
+ */
+class QuestionTemplateStreamReader {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(QuestionTemplateStreamReader.class);
+	
+	// A rough size of a question in questions.json, used to presize the list of questions.
+	private static final int ESTIMATED_BYTES_PER_QUESTION = 200;
+	
+	private static final String QUESTIONS_FIELD = "questions";
+	
+	private final ObjectMapper objectMapper;
+	
+	public QuestionTemplateStreamReader(ObjectMapper objectMapper) {
+		this.objectMapper = Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+	}
+	
+	/**
+	 * Reads a questions file.
+	 *
+	 * @param questionsFile
+	 *            The questions file. Non-null.
+	 * @return The {@link QuestionTemplateBundle} containing every valid question.
+	 * @throws IOException
+	 *             if the file could not be read or is not well formed JSON.
+	 */
+	public QuestionTemplateBundle read(File questionsFile) throws IOException {
+		return read(questionsFile, q -> {});
+	}
+	
+	/**
+	 * Reads a questions file, sanity checking each question as it is read.
+	 *
+	 * @param questionsFile
+	 *            The questions file. Non-null.
+	 * @param questionCheck
+	 *            The sanity check, which throws {@link TriviaTopicSanityException}
+	 *            for questions that should be skipped. Non-null.
+	 * @return The {@link QuestionTemplateBundle} containing every valid question.
+	 * @throws IOException
+	 *             if the file could not be read or is not well formed JSON.
+	 */
+	public QuestionTemplateBundle read(File questionsFile, Consumer<QuestionTemplate> questionCheck) throws IOException {
+		Preconditions.checkNotNull(questionsFile, "questionsFile must be non-null.");
+		Preconditions.checkNotNull(questionCheck, "questionCheck must be non-null.");
+		
+		int expectedSize = (int) Math.min(Integer.MAX_VALUE, questionsFile.length() / ESTIMATED_BYTES_PER_QUESTION);
+		ImmutableList.Builder<QuestionTemplate> questionTemplates = ImmutableList.builderWithExpectedSize(expectedSize);
+		boolean foundQuestions = false;
+		int skipped = 0;
+		
+		try (JsonParser parser = objectMapper.getFactory().createParser(questionsFile)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "Expected questions file to contain an object.");
+			}
+			
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				
+				if (!QUESTIONS_FIELD.equals(fieldName)) {
+					parser.skipChildren();
+					continue;
+				}
+				
+				if (value != JsonToken.START_ARRAY) {
+					throw new JsonParseException(parser, "Expected questions to be an array.");
+				}
+				foundQuestions = true;
+				
+				int index = 0;
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					JsonNode node = parser.readValueAsTree();
+					try {
+						QuestionTemplate questionTemplate = objectMapper.treeToValue(node, QuestionTemplate.class);
+						questionCheck.accept(questionTemplate);
+						questionTemplates.add(questionTemplate);
+					} catch (JsonProcessingException | IllegalArgumentException | TriviaTopicSanityException e) {
+						LOG.warn("Skipping question {} in {}: {}", index, questionsFile.getAbsolutePath(), e.getMessage());
+						skipped++;
+					}
+					index++;
+				}
+			}
+		}
+		
+		if (!foundQuestions) {
+			throw new IOException("Questions file " + questionsFile.getAbsolutePath() + " has no questions field.");
+		}
+		
+		if (skipped > 0) {
+			LOG.warn("Skipped {} invalid questions in {}.", skipped, questionsFile.getAbsolutePath());
+		}
+		
+		return new QuestionTemplateBundle(questionTemplates.build());
+	}
+}
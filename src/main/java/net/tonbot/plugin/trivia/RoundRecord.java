@@ -45,4 +45,25 @@ public class RoundRecord {
 				.filter(qr -> qr.isAnsweredCorrectly())
 				.count();
 	}
+	
+	/**
+	 * Gets the total time taken to answer the correctly answered questions, for
+	 * those questions where the time was recorded.
+	 */
+	public long getTotalTimeToAnswerMs() {
+		return questionRecords.stream()
+				.filter(qr -> qr.isAnsweredCorrectly() && (qr.getTimeToAnswerMs() != null))
+				.mapToLong(qr -> qr.getTimeToAnswerMs())
+				.sum();
+	}
+	
+	/**
+	 * Gets the number of correctly answered questions where the time taken to
+	 * answer was recorded.
+	 */
+	public long getTotalTimedAnswers() {
+		return questionRecords.stream()
+				.filter(qr -> qr.isAnsweredCorrectly() && (qr.getTimeToAnswerMs() != null))
+				.count();
+	}
 }
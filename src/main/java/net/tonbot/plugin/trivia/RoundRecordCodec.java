@@ -0,0 +1,134 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Writes and reads {@link RoundRecord}s in a compact binary form, for
+ * serializers which embed round records in their own values. The format has no
+ * version of its own; it is versioned by the format which embeds it.
+ * <p>
+ * Layout:
+ * <ul>
+ * <li>The number of questions, packed.</li>
+ * <li>Three bits per question, packed into bytes: whether it was answered
+ * correctly, whether the time to answer was recorded, and whether its score
+ * decay factor is the same as the previous question's.</li>
+ * <li>For each question: the value, packed; the score decay factor as a
+ * double, unless it is the same as the previous question's; the number of
+ * incorrect answers, packed; and the time to answer, packed, if it was
+ * recorded.</li>
+ * </ul>
+ */
+public class RoundRecordCodec {
+
+	private static final int BITS_PER_QUESTION = 3;
+	
+	private static final int ANSWERED_CORRECTLY = 0;
+	private static final int HAS_TIME_TO_ANSWER = 1;
+	private static final int SAME_DECAY_FACTOR = 2;
+	
+	private RoundRecordCodec() {
+	}
+	
+	/**
+	 * Writes a round record.
+	 *
+	 * @param out
+	 *            The output. Non-null.
+	 * @param roundRecord
+	 *            The round record. Non-null.
+	 * @throws IOException
+	 *             if the output could not be written to.
+	 */
+	public static void write(DataOutput2 out, RoundRecord roundRecord) throws IOException {
+		Preconditions.checkNotNull(out, "out must be non-null.");
+		Preconditions.checkNotNull(roundRecord, "roundRecord must be non-null.");
+		
+		List<QuestionRecord> questionRecords = roundRecord.getQuestionRecords();
+		int count = questionRecords.size();
+		out.packInt(count);
+		
+		byte[] flags = new byte[flagBytes(count)];
+		for (int i = 0; i < count; i++) {
+			QuestionRecord questionRecord = questionRecords.get(i);
+			setFlag(flags, i, ANSWERED_CORRECTLY, questionRecord.isAnsweredCorrectly());
+			setFlag(flags, i, HAS_TIME_TO_ANSWER, questionRecord.getTimeToAnswerMs() != null);
+			setFlag(flags, i, SAME_DECAY_FACTOR, i > 0
+					&& questionRecord.getScoreDecayFactor() == questionRecords.get(i - 1).getScoreDecayFactor());
+		}
+		out.write(flags);
+		
+		for (int i = 0; i < count; i++) {
+			QuestionRecord questionRecord = questionRecords.get(i);
+			out.packLong(questionRecord.getValue());
+			if (!getFlag(flags, i, SAME_DECAY_FACTOR)) {
+				out.writeDouble(questionRecord.getScoreDecayFactor());
+			}
+			out.packLong(questionRecord.getIncorrectAnswers());
+			if (questionRecord.getTimeToAnswerMs() != null) {
+				out.packLong(questionRecord.getTimeToAnswerMs());
+			}
+		}
+	}
+	
+	/**
+	 * Reads a round record which was written by
+	 * {@link #write(DataOutput2, RoundRecord)}.
+	 *
+	 * @param in
+	 *            The input. Non-null.
+	 * @return The {@link RoundRecord}.
+	 * @throws IOException
+	 *             if the input could not be read from.
+	 */
+	public static RoundRecord read(DataInput2 in) throws IOException {
+		Preconditions.checkNotNull(in, "in must be non-null.");
+		
+		int count = in.unpackInt();
+		byte[] flags = new byte[flagBytes(count)];
+		in.readFully(flags);
+		
+		List<QuestionRecord> questionRecords = new ArrayList<>(count);
+		double scoreDecayFactor = 0;
+		for (int i = 0; i < count; i++) {
+			long value = in.unpackLong();
+			if (!getFlag(flags, i, SAME_DECAY_FACTOR)) {
+				scoreDecayFactor = in.readDouble();
+			}
+			long incorrectAnswers = in.unpackLong();
+			Long timeToAnswerMs = getFlag(flags, i, HAS_TIME_TO_ANSWER) ? in.unpackLong() : null;
+			
+			questionRecords.add(new QuestionRecord(
+					value,
+					scoreDecayFactor,
+					getFlag(flags, i, ANSWERED_CORRECTLY),
+					incorrectAnswers,
+					timeToAnswerMs));
+		}
+		
+		return new RoundRecord(questionRecords);
+	}
+	
+	private static int flagBytes(int questionCount) {
+		return (questionCount * BITS_PER_QUESTION + 7) / 8;
+	}
+	
+	private static void setFlag(byte[] flags, int question, int flag, boolean value) {
+		if (value) {
+			int bit = question * BITS_PER_QUESTION + flag;
+			flags[bit / 8] |= 1 << (bit % 8);
+		}
+	}
+	
+	private static boolean getFlag(byte[] flags, int question, int flag) {
+		int bit = question * BITS_PER_QUESTION + flag;
+		return (flags[bit / 8] & (1 << (bit % 8))) != 0;
+	}
+}
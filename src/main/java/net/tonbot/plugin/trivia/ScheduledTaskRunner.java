@@ -1,10 +1,5 @@
 package net.tonbot.plugin.trivia;
 
-import java.util.TimerTask;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -12,26 +7,31 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * A handle onto the shared {@link HashedWheelTimer} which holds at most one
+ * scheduled task at a time.
+ */
 class ScheduledTaskRunner {
 
 	private static Logger LOG = LoggerFactory.getLogger(ScheduledTaskRunner.class);
-	
-	private final ScheduledExecutorService executorService;
+
+	private final HashedWheelTimer timer;
 	private final ReentrantLock lock;
-	
-	private ScheduledFuture<?> scheduledTaskFuture;
 
-	public ScheduledTaskRunner() {
-		ThreadFactory tf = new ThreadFactoryBuilder().setNameFormat("Scheduled Task Runner %d").build();
-		this.executorService = Executors.newScheduledThreadPool(1, tf);
+	private HashedWheelTimer.Timeout scheduledTimeout;
+	private boolean shutdown;
+
+	public ScheduledTaskRunner(HashedWheelTimer timer) {
+		this.timer = Preconditions.checkNotNull(timer, "timer must be non-null.");
 		this.lock = new ReentrantLock();
+		this.shutdown = false;
 	}
 
 	/**
 	 * Schedules a task, replacing the previous one, if any.
-	 * 
+	 * No-op if this runner has been shut down.
+	 *
 	 * @param runnable
 	 *            A new runnable to be run. Non-null.
 	 * @param delay
@@ -46,18 +46,15 @@ class ScheduledTaskRunner {
 
 		lock.lock();
 		try {
-			if (this.scheduledTaskFuture != null) {
-				this.scheduledTaskFuture.cancel(false);
+			if (this.shutdown) {
+				return;
 			}
 
-			this.scheduledTaskFuture = this.executorService.schedule(new TimerTask() {
-
-				@Override
-				public void run() {
-					runnable.run();
-				}
+			if (this.scheduledTimeout != null) {
+				this.scheduledTimeout.cancel();
+			}
 
-			}, delay, timeUnit);
+			this.scheduledTimeout = this.timer.schedule(runnable, delay, timeUnit);
 		} finally {
 			lock.unlock();
 		}
@@ -65,25 +62,36 @@ class ScheduledTaskRunner {
 
 	/**
 	 * Cancels the previously scheduled task, if it exists. Tasks may still be
-	 * scheduled after cancellation of the previous task. 
+	 * scheduled after cancellation of the previous task.
 	 * This operation does not interrupt any currently executing task.
 	 */
 	public void cancel() {
 		lock.lock();
 		try {
-			if (this.scheduledTaskFuture != null) {
-				this.scheduledTaskFuture.cancel(false);
+			if (this.scheduledTimeout != null) {
+				this.scheduledTimeout.cancel();
+				this.scheduledTimeout = null;
 			}
 		} finally {
 			lock.unlock();
 		}
 	}
-	
+
 	/**
-	 * Attempts to stop all actively executing tasks, and prevent queued tasks from executing.
+	 * Cancels the previously scheduled task, if it exists, and prevents any further tasks from being scheduled.
+	 * The shared timer itself is unaffected.
 	 */
-	public void shutdownNow() {
-		this.executorService.shutdownNow();
-		LOG.info("Shutting down ScheduledTaskRunner.");
+	public void shutdown() {
+		lock.lock();
+		try {
+			this.shutdown = true;
+			if (this.scheduledTimeout != null) {
+				this.scheduledTimeout.cancel();
+				this.scheduledTimeout = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+		LOG.debug("Shut down ScheduledTaskRunner.");
 	}
 }
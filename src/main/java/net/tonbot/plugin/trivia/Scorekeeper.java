@@ -1,159 +1,170 @@
 package net.tonbot.plugin.trivia;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongLongHashMap;
+import org.eclipse.collections.impl.set.mutable.primitive.LongHashSet;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 
+/**
+ * Keeps score for a round. Scores are kept per question, rather than per user:
+ * each question holds its point value, its winner, and the number of incorrect
+ * answers of only those users who gave any. Nothing is stored for a user who
+ * did not answer a question, so asking a question costs the same no matter how
+ * many users are playing. {@link RoundRecord}s are built from the questions
+ * only when {@link #getRecords()} is called.
+ */
 class Scorekeeper {
 
-	// A map of scorekeeping records up to but not including the current question.
-	private final Map<Long, RoundRecord> overallRecords;
+	// The questions that have ended, in the order they were asked.
+	private final List<QuestionScores> endedQuestions;
 	
-	// The map of QuestionRecords for the current question that are being updated as users attempt to answer it.
-	// Invariant: Keyset is always a superset of overallRecords' keyset.
-	private final Map<Long, QuestionRecord> currentQuestionRecords;
+	// The users who have answered any of the questions that have ended.
+	private final LongHashSet participants;
 	
 	private final double scoreDecayFactor;
-
-	private Long currentQuestionPointValue;
-	private long currentQuestionStartTimeMs;
 	
-	// Contains a history of reference QuestionRecords for question that were already completed.
-	// Because participants can join the trivia at any time, the scorekeeper may need to backfill
-	// records that were missed. It will backfill them with question records from this collection.
-	private List<QuestionRecord> questionRecordHistory;
+	// The current question, or null if there is none.
+	private QuestionScores currentQuestion;
 	
-	// The current reference question record.
-	private QuestionRecord currentReferenceQuestionRecord;
-
 	public Scorekeeper(double scoreDecayFactor) {
-		this.overallRecords = new HashMap<>();
-		this.currentQuestionRecords = new HashMap<>();
+		this.endedQuestions = new ArrayList<>();
+		this.participants = new LongHashSet();
 		this.scoreDecayFactor = scoreDecayFactor;
-		this.questionRecordHistory = new ArrayList<>();
 	}
-
+	
 	/**
 	 * Sets up a question with the given amount of points.
-	 * 
+	 *
 	 * @param points
 	 *            The number of points. Must be non-negative.
 	 */
 	public void setupQuestion(long points) {
 		Preconditions.checkNotNull(points >= 0, "points must be non-negative.");
-
-		this.currentQuestionPointValue = points;
-		this.currentQuestionStartTimeMs = System.currentTimeMillis();
-		this.currentQuestionRecords.clear();
 		
-		this.currentReferenceQuestionRecord = new QuestionRecord(points, scoreDecayFactor);
+		// Usually about as many users answer incorrectly as did last question, so size for them up front.
+		int expectedIncorrectAnswerers = endedQuestions.isEmpty()
+				? 0
+				: endedQuestions.get(endedQuestions.size() - 1).incorrectAnswers.size();
 		
-		// Ensures that currentReferenceQuestionRecord's keyset is always a superset of overallRecords' keyset.
-		for (Long userId : overallRecords.keySet()) {
-			this.currentQuestionRecords.put(userId, this.currentReferenceQuestionRecord.clone());
-		}
+		this.currentQuestion = new QuestionScores(points, System.currentTimeMillis(), expectedIncorrectAnswerers);
 	}
 	
 	/**
 	 * Ends the current question. No-op if there is currently no active question.
 	 */
 	public void endQuestion() {
-		if (this.currentQuestionPointValue == null) {
+		if (this.currentQuestion == null) {
 			return;
 		}
 		
 		// State change - clears the current question
-		mergeCurrentRecordsIntoOverallRecords();
-		this.questionRecordHistory.add(currentReferenceQuestionRecord);
-		this.currentReferenceQuestionRecord = null;
-		this.currentQuestionPointValue = null;
+		participants.addAll(currentQuestion.incorrectAnswers.keySet());
+		if (currentQuestion.answered) {
+			participants.add(currentQuestion.winnerId);
+		}
+		
+		this.endedQuestions.add(currentQuestion);
+		this.currentQuestion = null;
 	}
-
+	
 	/**
 	 * Logs that the user has supplied a correct answer.
-	 * 
+	 *
 	 * @param userId
 	 *            The ID of the user that provided the correct answer.
 	 * @return The actual number of points awarded.
 	 * @throws IllegalStateException
-	 *             if a question has not yet been set up.
+	 *             if a question has not yet been set up, or if another user has
+	 *             already answered it correctly.
 	 */
 	public long logCorrectAnswer(long userId) {
-		Preconditions.checkState(this.currentQuestionPointValue != null, "Question has not yet been set up.");
-
-		QuestionRecord questionRecord = this.currentQuestionRecords
-				.computeIfAbsent(userId, i -> currentReferenceQuestionRecord.clone());
-
-		questionRecord.setAnsweredCorrectly(true);
-		questionRecord.setTimeToAnswerMs(System.currentTimeMillis() - currentQuestionStartTimeMs);
+		Preconditions.checkState(this.currentQuestion != null, "Question has not yet been set up.");
+		Preconditions.checkState(!currentQuestion.answered || currentQuestion.winnerId == userId,
+				"Question has already been answered correctly by another user.");
 		
-		return questionRecord.getEarnedPoints();
-	}
-	
-	private void mergeCurrentRecordsIntoOverallRecords() {
-		
-		// This is safe, since currentQuestionRecords keyset is a superset of overallRecords' keyset.
-		for (Entry<Long, QuestionRecord> currentQuestionRecordEntry : currentQuestionRecords.entrySet()) {
-			long uid = currentQuestionRecordEntry.getKey();
-			
-			RoundRecord record = overallRecords.get(uid);
-			if (record == null) {
-				// New user. Must backfill all question records.
-				record = new RoundRecord();
-				record.getQuestionRecords().addAll(questionRecordHistory);
-				
-				overallRecords.put(uid, record);
-			}
-			
-			record.getQuestionRecords().add(currentQuestionRecordEntry.getValue());
-		}
+		currentQuestion.answered = true;
+		currentQuestion.winnerId = userId;
+		currentQuestion.timeToAnswerMs = System.currentTimeMillis() - currentQuestion.startTimeMs;
 		
-		this.currentQuestionRecords.clear();
+		return QuestionRecord.getEarnedPoints(currentQuestion.points, scoreDecayFactor, getIncorrectAnswers(userId));
 	}
-
+	
 	/**
 	 * Logs that the user has supplied an incorrect answer.
-	 * 
+	 *
 	 * @param userId
 	 *            The user ID.
 	 * @throws IllegalStateException
 	 *             if a question has not yet been set up.
 	 */
 	public void logIncorrectAnswer(long userId) {
-		Preconditions.checkState(this.currentQuestionPointValue != null, "Question has not yet been set up.");
+		Preconditions.checkState(this.currentQuestion != null, "Question has not yet been set up.");
 		
-		QuestionRecord questionRecord = this.currentQuestionRecords
-				.computeIfAbsent(userId, i -> currentReferenceQuestionRecord.clone());
-
-		questionRecord.setIncorrectAnswers(questionRecord.getIncorrectAnswers() + 1);
+		currentQuestion.incorrectAnswers.addToValue(userId, 1);
 	}
-
+	
 	/**
-	 * Gets the {@link QuestionRecord} for the current question and given
-	 * user ID.
-	 * 
+	 * Gets the number of incorrect answers the user has given to the current
+	 * question.
+	 *
 	 * @param userId
 	 *            User ID.
-	 * @returns The {@link QuestionRecord} for that user.
+	 * @return The number of incorrect answers.
+	 * @throws IllegalStateException
+	 *             if a question has not yet been set up.
 	 */
-	public QuestionRecord getQuestionRecord(long userId) {
-		QuestionRecord questionRecord = this.currentQuestionRecords
-				.computeIfAbsent(userId, i -> currentReferenceQuestionRecord.clone());
+	public long getIncorrectAnswers(long userId) {
+		Preconditions.checkState(this.currentQuestion != null, "Question has not yet been set up.");
 		
-		return questionRecord;
+		return currentQuestion.incorrectAnswers.get(userId);
 	}
-
+	
 	/**
-	 * Gets an immutable map of the overall records.
-	 * 
+	 * Builds the records of the questions that have ended. Every user who
+	 * answered any of them has a {@link QuestionRecord} for each of them.
+	 *
 	 * @return An immutable map a map of user IDs to all activity logged for that user.
 	 */
 	public Map<Long, RoundRecord> getRecords() {
-		return ImmutableMap.copyOf(overallRecords);
+		ImmutableMap.Builder<Long, RoundRecord> records = ImmutableMap.builder();
+		participants.forEach(userId -> {
+			List<QuestionRecord> questionRecords = new ArrayList<>(endedQuestions.size());
+			for (QuestionScores question : endedQuestions) {
+				boolean won = question.answered && question.winnerId == userId;
+				questionRecords.add(new QuestionRecord(
+						question.points,
+						scoreDecayFactor,
+						won,
+						question.incorrectAnswers.get(userId),
+						won ? question.timeToAnswerMs : null));
+			}
+			records.put(userId, new RoundRecord(questionRecords));
+		});
+		
+		return records.build();
+	}
+	
+	private static class QuestionScores {
+
+		private final long points;
+		private final long startTimeMs;
+		
+		// Users who have not answered incorrectly have no entry.
+		private final LongLongHashMap incorrectAnswers;
+		
+		private boolean answered;
+		private long winnerId;
+		private long timeToAnswerMs;
+		
+		QuestionScores(long points, long startTimeMs, int expectedIncorrectAnswerers) {
+			this.points = points;
+			this.startTimeMs = startTimeMs;
+			this.incorrectAnswers = new LongLongHashMap(expectedIncorrectAnswerers);
+		}
 	}
 }
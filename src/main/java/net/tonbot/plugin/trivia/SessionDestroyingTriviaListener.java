@@ -10,6 +10,7 @@ import net.tonbot.common.TonbotTechnicalFault;
 import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionEndEvent;
 import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionStartEvent;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionEndEvent;
+import net.tonbot.plugin.trivia.musicid.MusicIdQuestionPrefetchEvent;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionStartEvent;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestionEndEvent;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestionStartEvent;
@@ -73,6 +74,11 @@ class SessionDestroyingTriviaListener implements TriviaListener {
 		run(() -> listener.onShortAnswerQuestionEnd(shortAnswerQuestionEndEvent));
 	}
 
+	@Override
+	public void onMusicIdQuestionPrefetch(MusicIdQuestionPrefetchEvent musicIdQuestionPrefetchEvent) {
+		run(() -> listener.onMusicIdQuestionPrefetch(musicIdQuestionPrefetchEvent));
+	}
+
 	@Override
 	public void onMusicIdQuestionStart(MusicIdQuestionStartEvent musicIdQuestionStartEvent) {
 		run(() -> listener.onMusicIdQuestionStart(musicIdQuestionStartEvent));
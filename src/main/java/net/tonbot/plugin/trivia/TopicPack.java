@@ -0,0 +1,308 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import net.tonbot.plugin.trivia.model.Choice;
+import net.tonbot.plugin.trivia.model.MultipleChoiceQuestionTemplate;
+import net.tonbot.plugin.trivia.model.MusicIdQuestionTemplate;
+import net.tonbot.plugin.trivia.model.QuestionTemplate;
+import net.tonbot.plugin.trivia.model.QuestionTemplateBundle;
+import net.tonbot.plugin.trivia.model.ShortAnswerQuestionTemplate;
+import net.tonbot.plugin.trivia.model.SongPropertyData;
+import net.tonbot.plugin.trivia.musicid.SongProperty;
+
+/**
+ * A compiled, memory-mapped form of a topic's {@code questions.json}. Packs are
+ * created by {@link TopicPackWriter}. Question templates are decoded from the
+ * mapped file whenever they are accessed, so an open pack costs almost nothing
+ * on the heap.
+ * <p>
+ * Layout, with all numbers big-endian:
+ * <ul>
+ * <li>Header: magic, version, the size and last modified time of the
+ * {@code questions.json} it was compiled from, then the number of strings,
+ * questions, referenced files, and music ID questions.</li>
+ * <li>String offsets: one int per string, plus the end offset.</li>
+ * <li>Question offsets: one int per question, plus the end offset.</li>
+ * <li>Referenced files: one string ID per image or audio file used by the
+ * questions.</li>
+ * <li>String data: UTF-8.</li>
+ * <li>Question data: see {@link TopicPackWriter}.</li>
+ * </ul>
+ * This class is thread safe.
+ */
+class TopicPack {
+	
+	static final String PACK_FILE_NAME = "questions.pack";
+	
+	static final int MAGIC = 0x54515043; // "TQPC"
+	static final int VERSION = 2;
+	static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4;
+	
+	static final byte TYPE_SHORT_ANSWER = 1;
+	static final byte TYPE_MULTIPLE_CHOICE = 2;
+	static final byte TYPE_MUSIC_ID = 3;
+	
+	// Marks a list which is absent, as opposed to empty.
+	static final int ABSENT = -1;
+	
+	private final ByteBuffer buffer;
+	private final int stringCount;
+	private final int questionCount;
+	private final int referencedFileCount;
+	private final int musicIdQuestionCount;
+	private final int stringOffsetsStart;
+	private final int questionOffsetsStart;
+	private final int referencedFilesStart;
+	private final int stringDataStart;
+	private final int questionDataStart;
+	
+	private TopicPack(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		
+		if (buffer.capacity() < HEADER_SIZE) {
+			throw new IOException("Topic pack is truncated.");
+		}
+		
+		this.stringCount = buffer.getInt(24);
+		this.questionCount = buffer.getInt(28);
+		this.referencedFileCount = buffer.getInt(32);
+		this.musicIdQuestionCount = buffer.getInt(36);
+		if (stringCount < 0 || questionCount < 0 || referencedFileCount < 0
+				|| musicIdQuestionCount < 0 || musicIdQuestionCount > questionCount) {
+			throw new IOException("Topic pack has a malformed header.");
+		}
+		
+		this.stringOffsetsStart = HEADER_SIZE;
+		this.questionOffsetsStart = stringOffsetsStart + 4 * (stringCount + 1);
+		this.referencedFilesStart = questionOffsetsStart + 4 * (questionCount + 1);
+		this.stringDataStart = referencedFilesStart + 4 * referencedFileCount;
+		if (stringDataStart > buffer.capacity()) {
+			throw new IOException("Topic pack is truncated.");
+		}
+		
+		int stringDataEnd = stringDataStart + buffer.getInt(stringOffsetsStart + 4 * stringCount);
+		this.questionDataStart = stringDataEnd;
+		int questionDataEnd = questionDataStart + buffer.getInt(questionOffsetsStart + 4 * questionCount);
+		if (stringDataEnd > buffer.capacity() || questionDataEnd != buffer.capacity()) {
+			throw new IOException("Topic pack is truncated.");
+		}
+	}
+	
+	/**
+	 * Opens a topic pack, if one exists and is up to date with the
+	 * {@code questions.json} it was compiled from.
+	 *
+	 * @param packFile
+	 *            The pack file. Non-null.
+	 * @param questionsFile
+	 *            The {@code questions.json} file. Non-null.
+	 * @return The {@link TopicPack}, or empty if the pack does not exist, was made
+	 *         by a different version of this plugin, or is stale.
+	 * @throws IOException
+	 *             if the pack could not be read or is malformed.
+	 */
+	public static Optional<TopicPack> open(File packFile, File questionsFile) throws IOException {
+		Preconditions.checkNotNull(packFile, "packFile must be non-null.");
+		Preconditions.checkNotNull(questionsFile, "questionsFile must be non-null.");
+		
+		if (!packFile.isFile()) {
+			return Optional.empty();
+		}
+		
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Topic pack is too large.");
+			}
+			
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			return Optional.empty();
+		}
+		
+		if (buffer.getLong(8) != questionsFile.length() || buffer.getLong(16) != questionsFile.lastModified()) {
+			return Optional.empty();
+		}
+		
+		return Optional.of(new TopicPack(buffer));
+	}
+	
+	/**
+	 * Gets the question templates. Each call to the list's {@code get} method
+	 * decodes a new {@link QuestionTemplate} from the pack.
+	 *
+	 * @return The {@link QuestionTemplateBundle}.
+	 */
+	public QuestionTemplateBundle getQuestionBundle() {
+		return QuestionTemplateBundle.wrap(new QuestionTemplateList(null), musicIdQuestionCount);
+	}
+	
+	/**
+	 * Gets the question templates which pass a sanity check. Every question is
+	 * decoded once to be checked, but the questions which pass are still decoded
+	 * from the pack whenever they are accessed.
+	 *
+	 * @param questionCheck
+	 *            The sanity check, which throws {@link TriviaTopicSanityException}
+	 *            for questions that should be left out. Non-null.
+	 * @return The {@link QuestionTemplateBundle} of the questions which passed.
+	 */
+	public QuestionTemplateBundle getQuestionBundle(Consumer<QuestionTemplate> questionCheck) {
+		Preconditions.checkNotNull(questionCheck, "questionCheck must be non-null.");
+		
+		int[] passed = new int[questionCount];
+		int passedCount = 0;
+		int passedMusicIdCount = 0;
+		for (int i = 0; i < questionCount; i++) {
+			QuestionTemplate questionTemplate = decodeQuestion(i);
+			try {
+				questionCheck.accept(questionTemplate);
+			} catch (TriviaTopicSanityException e) {
+				continue;
+			}
+			
+			passed[passedCount++] = i;
+			if (questionTemplate instanceof MusicIdQuestionTemplate) {
+				passedMusicIdCount++;
+			}
+		}
+		
+		return QuestionTemplateBundle.wrap(
+				new QuestionTemplateList(Arrays.copyOf(passed, passedCount)), passedMusicIdCount);
+	}
+	
+	/**
+	 * Gets the paths of every image and audio file which the questions use,
+	 * relative to the topic directory.
+	 *
+	 * @return The referenced file paths.
+	 */
+	public List<String> getReferencedFiles() {
+		ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (int i = 0; i < referencedFileCount; i++) {
+			builder.add(getString(buffer.getInt(referencedFilesStart + 4 * i)));
+		}
+		return builder.build();
+	}
+	
+	private String getString(int id) {
+		if (id < 0 || id >= stringCount) {
+			throw new IllegalStateException("Topic pack refers to a non-existent string " + id);
+		}
+		
+		int start = buffer.getInt(stringOffsetsStart + 4 * id);
+		int end = buffer.getInt(stringOffsetsStart + 4 * (id + 1));
+		
+		byte[] bytes = new byte[end - start];
+		ByteBuffer view = buffer.duplicate();
+		view.position(stringDataStart + start);
+		view.get(bytes);
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private QuestionTemplate decodeQuestion(int index) {
+		ByteBuffer in = buffer.duplicate();
+		in.position(questionDataStart + buffer.getInt(questionOffsetsStart + 4 * index));
+		
+		byte type = in.get();
+		long points = in.getLong();
+		List<String> imagePaths = readStrings(in);
+		
+		switch (type) {
+		case TYPE_SHORT_ANSWER:
+			return ShortAnswerQuestionTemplate.builder()
+					.points(points)
+					.imagePaths(imagePaths)
+					.question(getString(in.getInt()))
+					.answers(readStrings(in))
+					.build();
+		case TYPE_MULTIPLE_CHOICE:
+			String question = getString(in.getInt());
+			int choiceCount = in.getInt();
+			List<Choice> choices = new ArrayList<>(choiceCount);
+			for (int i = 0; i < choiceCount; i++) {
+				String value = getString(in.getInt());
+				boolean isCorrect = in.get() != 0;
+				choices.add(new Choice(value, isCorrect));
+			}
+			return MultipleChoiceQuestionTemplate.builder()
+					.points(points)
+					.imagePaths(imagePaths)
+					.question(question)
+					.choices(choices)
+					.build();
+		case TYPE_MUSIC_ID:
+			String audioPath = getString(in.getInt());
+			int propertyCount = in.getInt();
+			Map<SongProperty, SongPropertyData> properties = new LinkedHashMap<>();
+			for (int i = 0; i < propertyCount; i++) {
+				SongProperty property = SongProperty.valueOf(getString(in.getInt()));
+				properties.put(property, new SongPropertyData(readStrings(in)));
+			}
+			return MusicIdQuestionTemplate.builder()
+					.points(points)
+					.imagePaths(imagePaths)
+					.audioPath(audioPath)
+					.properties(properties)
+					.build();
+		default:
+			throw new IllegalStateException("Topic pack contains a question of unknown type " + type);
+		}
+	}
+	
+	private List<String> readStrings(ByteBuffer in) {
+		int count = in.getInt();
+		if (count == ABSENT) {
+			return null;
+		}
+		
+		List<String> strings = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			strings.add(getString(in.getInt()));
+		}
+		return strings;
+	}
+	
+	private class QuestionTemplateList extends AbstractList<QuestionTemplate> implements RandomAccess {
+		
+		// The indices of the pack's questions which are in this list, or null if all of them are.
+		private final int[] questionIndices;
+		
+		QuestionTemplateList(int[] questionIndices) {
+			this.questionIndices = questionIndices;
+		}
+		
+		@Override
+		public QuestionTemplate get(int index) {
+			Preconditions.checkElementIndex(index, size());
+			return decodeQuestion(questionIndices == null ? index : questionIndices[index]);
+		}
+		
+		@Override
+		public int size() {
+			return questionIndices == null ? questionCount : questionIndices.length;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+
+import net.tonbot.plugin.trivia.model.QuestionTemplateBundle;
+import net.tonbot.plugin.trivia.model.TriviaMetadata;
+
+/**
+ * Command line tool which compiles the questions.json of trivia topic
+ * directories into {@link TopicPack}s.
+ * <p>
+ * Usage: {@code TopicPackCompiler <topic dir> [<topic dir> ...]}
+ * <p>
+ * Or, from the project: {@code gradle compileTopicPacks -Ptopics=<topic dir>[,<topic dir>...]}
+ */
+public class TopicPackCompiler {
+	
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.err.println("Usage: TopicPackCompiler <topic dir> [<topic dir> ...]");
+			System.exit(1);
+		}
+		
+		ObjectMapper objectMapper = TriviaModule.createObjectMapper();
+		QuestionTemplateStreamReader questionsReader = new QuestionTemplateStreamReader(objectMapper);
+		TriviaTopicSanityChecker sanityChecker = new TriviaTopicSanityChecker();
+		TopicPackWriter writer = new TopicPackWriter();
+		
+		int failures = 0;
+		for (String arg : args) {
+			File topicDir = new File(arg);
+			try {
+				compile(topicDir, objectMapper, questionsReader, sanityChecker, writer);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("Unable to compile " + topicDir.getAbsolutePath() + ": " + e);
+				failures++;
+			}
+		}
+		
+		if (failures > 0) {
+			System.exit(1);
+		}
+	}
+	
+	private static void compile(
+			File topicDir,
+			ObjectMapper objectMapper,
+			QuestionTemplateStreamReader questionsReader,
+			TriviaTopicSanityChecker sanityChecker,
+			TopicPackWriter writer) throws IOException {
+		File metadataFile = new File(topicDir, "metadata.json");
+		if (!metadataFile.isFile()) {
+			throw new IOException("metadata.json is missing.");
+		}
+		
+		File questionsFile = new File(topicDir, "questions.json");
+		if (!questionsFile.isFile()) {
+			throw new IOException("questions.json is missing.");
+		}
+		
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		// Leave out questions which would fail the sanity checks when the pack is loaded.
+		TriviaMetadata metadata = objectMapper.readValue(metadataFile, TriviaMetadata.class);
+		QuestionTemplateBundle questionBundle = questionsReader.read(questionsFile,
+				sanityChecker.questionCheck(metadata, topicDir));
+		File packFile = new File(topicDir, TopicPack.PACK_FILE_NAME);
+		writer.write(questionBundle, questionsFile, packFile);
+		
+		System.out.println("Compiled " + questionBundle.getQuestionTemplates().size() + " questions into "
+				+ packFile.getAbsolutePath() + " (" + packFile.length() + " bytes) in "
+				+ stopwatch.elapsed(TimeUnit.MILLISECONDS) + " ms.");
+	}
+}
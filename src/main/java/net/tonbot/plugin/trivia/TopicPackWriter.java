@@ -0,0 +1,223 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+
+import net.tonbot.plugin.trivia.model.Choice;
+import net.tonbot.plugin.trivia.model.MultipleChoiceQuestionTemplate;
+import net.tonbot.plugin.trivia.model.MusicIdQuestionTemplate;
+import net.tonbot.plugin.trivia.model.QuestionTemplate;
+import net.tonbot.plugin.trivia.model.QuestionTemplateBundle;
+import net.tonbot.plugin.trivia.model.ShortAnswerQuestionTemplate;
+import net.tonbot.plugin.trivia.model.SongPropertyData;
+import net.tonbot.plugin.trivia.musicid.SongProperty;
+
+/**
+ * Writes {@link TopicPack}s. Strings are deduplicated into a single table and
+ * questions refer to them by ID.
+ * <p>
+ * Every question starts with its type (byte), points (long), and image paths
+ * (a string list). A string list is a count followed by that many string IDs,
+ * or {@link TopicPack#ABSENT} for a missing list. Then, depending on the type:
+ * <ul>
+ * <li>Short answer: question (string ID), answers (string list).</li>
+ * <li>Multiple choice: question (string ID), choice count, then for each
+ * choice its value (string ID) and whether it is correct (byte).</li>
+ * <li>Music ID: audio path (string ID), property count, then for each property
+ * its name (string ID) and answers (string list).</li>
+ * </ul>
+ */
+class TopicPackWriter {
+	
+	/**
+	 * Compiles the question bundle into a pack file. The pack is written to a
+	 * temporary file first and then moved into place, so readers never see a
+	 * partially written pack.
+	 *
+	 * @param questionBundle
+	 *            The {@link QuestionTemplateBundle} read from the questions file.
+	 *            Non-null.
+	 * @param questionsFile
+	 *            The {@code questions.json} file that the bundle was read from.
+	 *            Used to detect stale packs. Non-null.
+	 * @param packFile
+	 *            The pack file to write. Non-null.
+	 * @throws IOException
+	 *             if the pack could not be written.
+	 */
+	public void write(QuestionTemplateBundle questionBundle, File questionsFile, File packFile) throws IOException {
+		Preconditions.checkNotNull(questionBundle, "questionBundle must be non-null.");
+		Preconditions.checkNotNull(questionsFile, "questionsFile must be non-null.");
+		Preconditions.checkNotNull(packFile, "packFile must be non-null.");
+		
+		StringTable strings = new StringTable();
+		Set<Integer> referencedFiles = new LinkedHashSet<>();
+		
+		List<QuestionTemplate> questionTemplates = questionBundle.getQuestionTemplates();
+		int[] questionOffsets = new int[questionTemplates.size() + 1];
+		ByteArrayOutputStream questionBytes = new ByteArrayOutputStream();
+		DataOutputStream questionData = new DataOutputStream(questionBytes);
+		for (int i = 0; i < questionTemplates.size(); i++) {
+			questionOffsets[i] = questionData.size();
+			writeQuestion(questionTemplates.get(i), strings, referencedFiles, questionData);
+		}
+		questionOffsets[questionTemplates.size()] = questionData.size();
+		
+		long totalSize = (long) TopicPack.HEADER_SIZE
+				+ 4L * (strings.size() + 1)
+				+ 4L * questionOffsets.length
+				+ 4L * referencedFiles.size()
+				+ strings.dataSize()
+				+ questionData.size();
+		if (totalSize > Integer.MAX_VALUE) {
+			throw new IOException("Topic pack would be too large.");
+		}
+		
+		File tempFile = new File(packFile.getParentFile(), packFile.getName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+			out.writeInt(TopicPack.MAGIC);
+			out.writeInt(TopicPack.VERSION);
+			out.writeLong(questionsFile.length());
+			out.writeLong(questionsFile.lastModified());
+			out.writeInt(strings.size());
+			out.writeInt(questionTemplates.size());
+			out.writeInt(referencedFiles.size());
+			out.writeInt(questionBundle.getMusicIdQuestionCount());
+			
+			int stringOffset = 0;
+			for (byte[] string : strings.encoded()) {
+				out.writeInt(stringOffset);
+				stringOffset += string.length;
+			}
+			out.writeInt(stringOffset);
+			
+			for (int questionOffset : questionOffsets) {
+				out.writeInt(questionOffset);
+			}
+			
+			for (int stringId : referencedFiles) {
+				out.writeInt(stringId);
+			}
+			
+			for (byte[] string : strings.encoded()) {
+				out.write(string);
+			}
+			
+			questionBytes.writeTo(out);
+		}
+		
+		Files.move(tempFile.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+	
+	private void writeQuestion(QuestionTemplate q, StringTable strings, Set<Integer> referencedFiles,
+			DataOutputStream out) throws IOException {
+		byte type;
+		if (q instanceof ShortAnswerQuestionTemplate) {
+			type = TopicPack.TYPE_SHORT_ANSWER;
+		} else if (q instanceof MultipleChoiceQuestionTemplate) {
+			type = TopicPack.TYPE_MULTIPLE_CHOICE;
+		} else if (q instanceof MusicIdQuestionTemplate) {
+			type = TopicPack.TYPE_MUSIC_ID;
+		} else {
+			throw new IllegalArgumentException("Unsupported question template type: " + q.getClass().getName());
+		}
+		
+		out.writeByte(type);
+		out.writeLong(q.getPoints());
+		writeStrings(q.getImagePaths(), strings, out);
+		for (String imagePath : q.getImagePaths()) {
+			referencedFiles.add(strings.idOf(imagePath));
+		}
+		
+		if (q instanceof ShortAnswerQuestionTemplate) {
+			ShortAnswerQuestionTemplate saq = (ShortAnswerQuestionTemplate) q;
+			out.writeInt(strings.idOf(saq.getQuestion()));
+			writeStrings(saq.getAnswers(), strings, out);
+		} else if (q instanceof MultipleChoiceQuestionTemplate) {
+			MultipleChoiceQuestionTemplate mcq = (MultipleChoiceQuestionTemplate) q;
+			out.writeInt(strings.idOf(mcq.getQuestion()));
+			out.writeInt(mcq.getCorrectChoices().size() + mcq.getIncorrectChoices().size());
+			for (Choice choice : mcq.getCorrectChoices()) {
+				writeChoice(choice, strings, out);
+			}
+			for (Choice choice : mcq.getIncorrectChoices()) {
+				writeChoice(choice, strings, out);
+			}
+		} else {
+			MusicIdQuestionTemplate miq = (MusicIdQuestionTemplate) q;
+			int audioPathId = strings.idOf(miq.getAudioPath());
+			referencedFiles.add(audioPathId);
+			out.writeInt(audioPathId);
+			out.writeInt(miq.getProperties().size());
+			for (Entry<SongProperty, SongPropertyData> entry : miq.getProperties().entrySet()) {
+				out.writeInt(strings.idOf(entry.getKey().name()));
+				writeStrings(entry.getValue().getAnswers().orElse(null), strings, out);
+			}
+		}
+	}
+	
+	private void writeChoice(Choice choice, StringTable strings, DataOutputStream out) throws IOException {
+		out.writeInt(strings.idOf(choice.getValue()));
+		out.writeByte(choice.isCorrect() ? 1 : 0);
+	}
+	
+	private void writeStrings(List<String> values, StringTable strings, DataOutputStream out) throws IOException {
+		if (values == null) {
+			out.writeInt(TopicPack.ABSENT);
+			return;
+		}
+		
+		out.writeInt(values.size());
+		for (String value : values) {
+			out.writeInt(strings.idOf(value));
+		}
+	}
+	
+	private static class StringTable {
+		
+		private final Map<String, Integer> ids = new LinkedHashMap<>();
+		private final List<byte[]> encoded = new ArrayList<>();
+		private long dataSize = 0;
+		
+		int idOf(String value) {
+			Integer id = ids.get(value);
+			if (id == null) {
+				id = encoded.size();
+				ids.put(value, id);
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				encoded.add(bytes);
+				dataSize += bytes.length;
+			}
+			return id;
+		}
+		
+		int size() {
+			return encoded.size();
+		}
+		
+		long dataSize() {
+			return dataSize;
+		}
+		
+		List<byte[]> encoded() {
+			return encoded;
+		}
+	}
+}
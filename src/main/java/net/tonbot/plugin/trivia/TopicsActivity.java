@@ -10,6 +10,7 @@ import net.tonbot.common.Activity;
 import net.tonbot.common.ActivityDescriptor;
 import net.tonbot.common.BotUtils;
 import net.tonbot.common.Enactable;
+import net.tonbot.plugin.trivia.model.TriviaMetadata;
 import sx.blah.discord.handle.impl.events.guild.channel.message.MessageReceivedEvent;
 import sx.blah.discord.util.EmbedBuilder;
 
@@ -38,15 +39,15 @@ class TopicsActivity implements Activity {
 	@Enactable(deleteCommand = true)
 	public void enact(MessageReceivedEvent event) {
 
-		Map<String, LoadedTrivia> triviaMap = triviaLibrary.getTrivia();
+		Map<String, TriviaMetadata> topicMetadata = triviaLibrary.getTopicMetadata();
 
 		EmbedBuilder eb = new EmbedBuilder();
 		eb.withTitle("Trivia Topics");
 		
-		triviaMap.entrySet().stream()
+		topicMetadata.entrySet().stream()
 			.sorted((a, b) -> a.getKey().compareTo(b.getKey()))
 			.forEach(entry -> {
-				eb.appendField(entry.getKey(), entry.getValue().getTriviaTopic().getMetadata().getDescription(), false);
+				eb.appendField(entry.getKey(), entry.getValue().getDescription(), false);
 			});
 
 		eb.withFooterText("Use the ``trivia play`` command to play them.");
@@ -2,109 +2,374 @@ package net.tonbot.plugin.trivia;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
 
 import net.tonbot.plugin.trivia.model.QuestionTemplateBundle;
 import net.tonbot.plugin.trivia.model.TriviaMetadata;
 import net.tonbot.plugin.trivia.model.TriviaTopic;
 
+/**
+ * Holds the trivia topics found in the topics directory. By default, every
+ * topic is fully loaded at startup. If lazy loading is enabled, then only each
+ * topic's metadata is read at startup and questions are loaded when the topic
+ * is first played, into a cache that is bounded by
+ * {@link TriviaLibraryConfiguration#getMaxCachedTopics()}.
+ */
 class TriviaLibrary {
-
+	
 	private static final Logger LOG = LoggerFactory.getLogger(TriviaLibrary.class);
-
+	
+	private static final int MAX_SCAN_PARALLELISM = 8;
+	
 	private final File triviaTopicsDir;
 	private final ObjectMapper objectMapper;
+	private final QuestionTemplateStreamReader questionsReader;
 	private final TriviaTopicSanityChecker sanityChecker;
-
-	private Map<String, LoadedTrivia> loadedTrivia;
-
+	
+	private final boolean lazyLoading;
+	private final int maxCachedTopics;
+	
+	// Only used when lazy loading is enabled. Replaced on reload, rather than invalidated, so that a load which was
+	// already in progress can only put the stale topic into the old cache. Always assigned before the snapshot.
+	private volatile LoadingCache<String, LoadedTrivia> loadedTriviaCache;
+	
+	// Replaced wholesale on reload so that readers never need to lock.
+	private volatile Snapshot snapshot;
+	
 	@Inject
-	public TriviaLibrary(File triviaDataDir, ObjectMapper objectMapper, TriviaTopicSanityChecker sanityChecker) {
+	public TriviaLibrary(
+			File triviaDataDir,
+			ObjectMapper objectMapper,
+			TriviaTopicSanityChecker sanityChecker,
+			TriviaLibraryConfiguration config) {
 		Preconditions.checkNotNull(triviaDataDir, "triviaDataDir must be non-null.");
 		this.triviaTopicsDir = new File(triviaDataDir, "topics");
 		this.triviaTopicsDir.mkdirs();
 		
 		this.objectMapper = Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+		this.questionsReader = new QuestionTemplateStreamReader(objectMapper);
 		this.sanityChecker = Preconditions.checkNotNull(sanityChecker, "sanityChecker must be non-null.");
-		this.loadedTrivia = new HashMap<>();
-
-		scan();
+		Preconditions.checkNotNull(config, "config must be non-null.");
+		
+		this.lazyLoading = config.isLazyLoading();
+		this.maxCachedTopics = config.getMaxCachedTopics();
+		
+		if (lazyLoading) {
+			this.loadedTriviaCache = newLoadedTriviaCache();
+			this.snapshot = Snapshot.ofMetadata(scan(this::readMetadataFromDir));
+		} else {
+			this.loadedTriviaCache = null;
+			this.snapshot = Snapshot.ofLoadedTrivia(scan(this::load));
+		}
 	}
-
-	private void scan() {
+	
+	/**
+	 * Gets the directory which contains all of the trivia topics.
+	 */
+	public File getTriviaTopicsDir() {
+		return triviaTopicsDir;
+	}
+	
+	/**
+	 * Re-reads the given topics from disk and atomically replaces them. Topics
+	 * whose directories no longer exist, or which are now corrupt, are removed.
+	 * Sessions which have already started keep the {@link LoadedTrivia} that they
+	 * started with.
+	 * 
+	 * @param triviaTopicNames
+	 *            The names of the topics to reload. Non-null.
+	 */
+	public synchronized void reload(Set<String> triviaTopicNames) {
+		Preconditions.checkNotNull(triviaTopicNames, "triviaTopicNames must be non-null.");
+		
+		Snapshot current = this.snapshot;
+		Map<String, TriviaMetadata> topicMetadata = new HashMap<>(current.topicMetadata);
+		Map<String, LoadedTrivia> loadedTrivia = new HashMap<>(current.loadedTrivia);
+		
+		for (String triviaTopicName : triviaTopicNames) {
+			File dir = new File(triviaTopicsDir, triviaTopicName);
+			topicMetadata.remove(triviaTopicName);
+			loadedTrivia.remove(triviaTopicName);
+			
+			if (!dir.isDirectory()) {
+				LOG.info("Trivia topic {} has been removed.", triviaTopicName);
+				continue;
+			}
+			
+			if (lazyLoading) {
+				tryLoad(dir, this::readMetadataFromDir)
+						.ifPresent(metadata -> topicMetadata.put(triviaTopicName, metadata));
+			} else {
+				tryLoad(dir, this::load)
+						.ifPresent(lt -> loadedTrivia.put(triviaTopicName, lt));
+			}
+		}
+		
+		if (lazyLoading) {
+			// The topics which did not change stay cached.
+			Map<String, LoadedTrivia> unchanged = new HashMap<>(loadedTriviaCache.asMap());
+			unchanged.keySet().removeAll(triviaTopicNames);
+			
+			LoadingCache<String, LoadedTrivia> cache = newLoadedTriviaCache();
+			cache.putAll(unchanged);
+			this.loadedTriviaCache = cache;
+		}
+		
+		this.snapshot = lazyLoading ? Snapshot.ofMetadata(topicMetadata) : Snapshot.ofLoadedTrivia(loadedTrivia);
+		
+		LOG.info("Reloaded trivia topics {}.", triviaTopicNames);
+	}
+	
+	private LoadingCache<String, LoadedTrivia> newLoadedTriviaCache() {
+		return CacheBuilder.newBuilder()
+				.maximumSize(maxCachedTopics)
+				.build(CacheLoader.from(triviaTopicName -> load(new File(triviaTopicsDir, triviaTopicName))));
+	}
+	
+	/**
+	 * Loads every topic directory in parallel on a bounded {@link ForkJoinPool}.
+	 * Corrupt topics are logged and left out.
+	 */
+	private <T> Map<String, T> scan(Function<File, T> loader) {
 		File[] dirs = triviaTopicsDir.listFiles(f -> f.isDirectory());
-		for (File dir : dirs) {
-			try {
-				TriviaTopic triviaTopic = readTriviaTopicFromDir(dir);
-				LoadedTrivia loadedTrivia = LoadedTrivia.builder()
-						.triviaTopic(triviaTopic)
-						.triviaTopicDir(dir)
-						.build();
-				this.loadedTrivia.put(dir.getName(), loadedTrivia);
-			} catch (CorruptTopicException e) {
-				LOG.warn("Trivia topic at {} is corrupt.", dir.getAbsolutePath(), e);
+		if (dirs == null || dirs.length == 0) {
+			return ImmutableMap.of();
+		}
+		
+		Stopwatch scanStopwatch = Stopwatch.createStarted();
+		int parallelism = Math.min(MAX_SCAN_PARALLELISM, Math.min(dirs.length, Runtime.getRuntime().availableProcessors()));
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<ForkJoinTask<Optional<T>>> tasks = new ArrayList<>(dirs.length);
+			for (File dir : dirs) {
+				tasks.add(pool.submit(() -> tryLoad(dir, loader)));
+			}
+			
+			ImmutableMap.Builder<String, T> builder = ImmutableMap.builder();
+			for (int i = 0; i < dirs.length; i++) {
+				String topicName = dirs[i].getName();
+				getUninterruptibly(tasks.get(i))
+						.ifPresent(loaded -> builder.put(topicName, loaded));
 			}
+			
+			Map<String, T> loaded = builder.build();
+			LOG.info("Scanned {} of {} trivia topics in {} ms.", loaded.size(), dirs.length,
+					scanStopwatch.elapsed(TimeUnit.MILLISECONDS));
+			
+			return loaded;
+		} finally {
+			pool.shutdown();
 		}
 	}
-
+	
+	private <T> Optional<T> tryLoad(File dir, Function<File, T> loader) {
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		try {
+			T loaded = loader.apply(dir);
+			
+			LOG.debug("Scanned trivia topic {} in {} ms.", dir.getName(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+			
+			return Optional.of(loaded);
+		} catch (CorruptTopicException e) {
+			LOG.warn("Trivia topic at {} is corrupt.", dir.getAbsolutePath(), e);
+			return Optional.empty();
+		}
+	}
+	
+	private static <T> T getUninterruptibly(ForkJoinTask<T> task) {
+		try {
+			return Uninterruptibles.getUninterruptibly(task);
+		} catch (ExecutionException e) {
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new IllegalStateException("Unable to load trivia topic.", e.getCause());
+		}
+	}
+	
 	/**
-	 * Gets an immutable map of trivia topic names to {@link LoadedTrivia}s.
+	 * Gets an immutable map of trivia topic names to their metadata. This never
+	 * causes questions to be loaded.
 	 */
-	public Map<String, LoadedTrivia> getTrivia() {
-		return ImmutableMap.copyOf(loadedTrivia);
+	public Map<String, TriviaMetadata> getTopicMetadata() {
+		return snapshot.topicMetadata;
 	}
-
+	
 	/**
-	 * Gets a particular trivia topic by name.
-	 * 
+	 * Gets a particular trivia topic by name. If lazy loading is enabled, then this
+	 * may load the topic's questions.
+	 *
 	 * @param triviaTopicName
 	 *            Trivia topic name. Non-null.
-	 * @return An optional {@link TriviaTopic}.
+	 * @return An optional {@link TriviaTopic}. Empty if there is no such topic or
+	 *         if it could not be loaded.
 	 */
 	public Optional<LoadedTrivia> getTrivia(String triviaTopicName) {
 		Preconditions.checkNotNull(triviaTopicName, "triviaTopicName must be non-null.");
-
-		return Optional.ofNullable(loadedTrivia.get(triviaTopicName));
+		
+		Snapshot snapshot = this.snapshot;
+		if (!lazyLoading) {
+			return Optional.ofNullable(snapshot.loadedTrivia.get(triviaTopicName));
+		}
+		
+		if (!snapshot.topicMetadata.containsKey(triviaTopicName)) {
+			return Optional.empty();
+		}
+		
+		try {
+			return Optional.of(loadedTriviaCache.getUnchecked(triviaTopicName));
+		} catch (UncheckedExecutionException e) {
+			if (e.getCause() instanceof CorruptTopicException) {
+				LOG.warn("Trivia topic {} is corrupt.", triviaTopicName, e.getCause());
+				return Optional.empty();
+			}
+			throw e;
+		}
 	}
-
-	private TriviaTopic readTriviaTopicFromDir(File triviaTopicDir) {
+	
+	private LoadedTrivia load(File triviaTopicDir) {
+		Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		TriviaTopic triviaTopic = readTriviaTopicFromDir(triviaTopicDir);
+		LoadedTrivia loadedTrivia = LoadedTrivia.builder()
+				.triviaTopic(triviaTopic)
+				.triviaTopicDir(triviaTopicDir)
+				.build();
+		
+		LOG.info("Loaded trivia topic {} with {} questions in {} ms.", triviaTopicDir.getName(),
+				triviaTopic.getQuestionBundle().getQuestionTemplates().size(),
+				stopwatch.elapsed(TimeUnit.MILLISECONDS));
+		
+		return loadedTrivia;
+	}
+	
+	private TriviaMetadata readMetadataFromDir(File triviaTopicDir) {
 		File metadataFile = new File(triviaTopicDir, "metadata.json");
 		if (!metadataFile.exists()) {
 			throw new CorruptTopicException("metadata.json is missing.");
 		}
-
+		
 		File questionsFile = new File(triviaTopicDir, "questions.json");
 		if (!questionsFile.exists()) {
 			throw new CorruptTopicException("questions.json is missing.");
 		}
-
+		
 		try {
-			TriviaMetadata metadata = objectMapper.readValue(metadataFile, TriviaMetadata.class);
-			QuestionTemplateBundle questionBundle = objectMapper.readValue(questionsFile, QuestionTemplateBundle.class);
-
-			TriviaTopic triviaTopic = TriviaTopic.builder()
+			return objectMapper.readValue(metadataFile, TriviaMetadata.class);
+		} catch (IOException e) {
+			throw new CorruptTopicException("Couldn't deserialize metadata from trivia topic.", e);
+		}
+	}
+	
+	private TriviaTopic readTriviaTopicFromDir(File triviaTopicDir) {
+		TriviaMetadata metadata = readMetadataFromDir(triviaTopicDir);
+		File questionsFile = new File(triviaTopicDir, "questions.json");
+		
+		Optional<TopicPack> pack = tryOpenPack(triviaTopicDir, questionsFile);
+		if (pack.isPresent()) {
+			try {
+				sanityChecker.checkMetadata(metadata, triviaTopicDir);
+			} catch (TriviaTopicSanityException e) {
+				throw new CorruptTopicException("Trivia topic has failed sanity checks.", e);
+			}
+			
+			QuestionTemplateBundle questionBundle = pack.get().getQuestionBundle();
+			if (!sanityChecker.allExist(pack.get().getReferencedFiles(), triviaTopicDir)) {
+				// Like questions.json, questions which fail sanity checks are skipped rather than failing the whole topic.
+				int packedCount = questionBundle.getQuestionTemplates().size();
+				questionBundle = pack.get().getQuestionBundle(sanityChecker.questionCheck(metadata, triviaTopicDir));
+				LOG.warn("Skipped {} questions in the topic pack of {} which use missing files.",
+						packedCount - questionBundle.getQuestionTemplates().size(), triviaTopicDir.getAbsolutePath());
+			}
+			
+			return TriviaTopic.builder()
 					.metadata(metadata)
 					.questionBundle(questionBundle)
 					.build();
-
-			sanityChecker.check(triviaTopic, triviaTopicDir);
-
-			return triviaTopic;
-
+		}
+		
+		try {
+			sanityChecker.checkMetadata(metadata, triviaTopicDir);
+			
+			// Questions which fail sanity checks are skipped rather than failing the whole topic.
+			QuestionTemplateBundle questionBundle = questionsReader.read(questionsFile,
+					sanityChecker.questionCheck(metadata, triviaTopicDir));
+			
+			return TriviaTopic.builder()
+					.metadata(metadata)
+					.questionBundle(questionBundle)
+					.build();
+			
 		} catch (IOException e) {
 			throw new CorruptTopicException("Couldn't deserialize objects from trivia topic.", e);
 		} catch (TriviaTopicSanityException e) {
 			throw new CorruptTopicException("Trivia topic has failed sanity checks.", e);
 		}
 	}
+	
+	/**
+	 * Opens the topic's compiled {@link TopicPack}, if there is one which is up to
+	 * date with questions.json.
+	 */
+	private Optional<TopicPack> tryOpenPack(File triviaTopicDir, File questionsFile) {
+		File packFile = new File(triviaTopicDir, TopicPack.PACK_FILE_NAME);
+		try {
+			Optional<TopicPack> pack = TopicPack.open(packFile, questionsFile);
+			if (!pack.isPresent() && packFile.exists()) {
+				LOG.info("Topic pack {} is out of date. Falling back to questions.json.", packFile.getAbsolutePath());
+			}
+			return pack;
+		} catch (IOException e) {
+			LOG.warn("Unable to read topic pack {}. Falling back to questions.json.", packFile.getAbsolutePath(), e);
+			return Optional.empty();
+		}
+	}
+	
+	/**
+	 * An immutable view of the library at a point in time.
+	 */
+	private static class Snapshot {
+		
+		private final Map<String, TriviaMetadata> topicMetadata;
+		
+		// Empty when lazy loading is enabled.
+		private final Map<String, LoadedTrivia> loadedTrivia;
+		
+		private Snapshot(Map<String, TriviaMetadata> topicMetadata, Map<String, LoadedTrivia> loadedTrivia) {
+			this.topicMetadata = ImmutableMap.copyOf(topicMetadata);
+			this.loadedTrivia = ImmutableMap.copyOf(loadedTrivia);
+		}
+		
+		static Snapshot ofMetadata(Map<String, TriviaMetadata> topicMetadata) {
+			return new Snapshot(topicMetadata, ImmutableMap.of());
+		}
+		
+		static Snapshot ofLoadedTrivia(Map<String, LoadedTrivia> loadedTrivia) {
+			return new Snapshot(Maps.transformValues(loadedTrivia, lt -> lt.getTriviaTopic().getMetadata()), loadedTrivia);
+		}
+	}
 }
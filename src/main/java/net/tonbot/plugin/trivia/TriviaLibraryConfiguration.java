@@ -0,0 +1,40 @@
+package net.tonbot.plugin.trivia;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Controls how the {@link TriviaLibrary} loads topics. Read from
+ * {@code library.json} in the plugin's data directory, if it exists.
+ */
+@Data
+public class TriviaLibraryConfiguration {
+	
+	private static final int DEFAULT_MAX_CACHED_TOPICS = 16;
+	
+	// If true, only the metadata of each topic is loaded at startup. Questions are loaded when the topic is first played.
+	private final boolean lazyLoading;
+	
+	// The maximum number of topics whose questions are kept in memory when lazy loading.
+	private final int maxCachedTopics;
+	
+	// If true, changes to the topics directory are picked up without a restart. Off unless enabled.
+	private final boolean hotReload;
+	
+	@Builder
+	@JsonCreator
+	public TriviaLibraryConfiguration(
+			@JsonProperty("lazyLoading") Boolean lazyLoading,
+			@JsonProperty("maxCachedTopics") Integer maxCachedTopics,
+			@JsonProperty("hotReload") Boolean hotReload) {
+		Preconditions.checkArgument(maxCachedTopics == null || maxCachedTopics > 0, "maxCachedTopics must be greater than 0.");
+		
+		this.lazyLoading = lazyLoading == null ? false : lazyLoading;
+		this.maxCachedTopics = maxCachedTopics == null ? DEFAULT_MAX_CACHED_TOPICS : maxCachedTopics;
+		this.hotReload = hotReload == null ? false : hotReload;
+	}
+}
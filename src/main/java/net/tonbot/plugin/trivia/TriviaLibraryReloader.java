@@ -0,0 +1,229 @@
+package net.tonbot.plugin.trivia;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+
+import net.tonbot.plugin.trivia.musicid.SongTagIndex;
+
+/**
+ * Watches the trivia topics directory, and every directory under it, and
+ * reloads topics in the {@link TriviaLibrary} when their files change. Changes
+ * are debounced so that copying a topic in file by file only reloads it once.
+ */
+class TriviaLibraryReloader {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(TriviaLibraryReloader.class);
+	
+	// How long the topics directory must be quiet before changed topics are reloaded.
+	private static final long DEBOUNCE_MS = 2000;
+	
+	private final TriviaLibrary triviaLibrary;
+	private final TriviaLibraryConfiguration config;
+	private final SongTagIndex songTagIndex;
+	private final Path topicsDir;
+	
+	// Only accessed by the watcher thread.
+	private final Map<WatchKey, Path> watchedDirs;
+	
+	private WatchService watchService;
+	private Thread watcherThread;
+	
+	@Inject
+	public TriviaLibraryReloader(
+			TriviaLibrary triviaLibrary,
+			TriviaLibraryConfiguration config,
+			SongTagIndex songTagIndex) {
+		this.triviaLibrary = Preconditions.checkNotNull(triviaLibrary, "triviaLibrary must be non-null.");
+		this.config = Preconditions.checkNotNull(config, "config must be non-null.");
+		this.songTagIndex = Preconditions.checkNotNull(songTagIndex, "songTagIndex must be non-null.");
+		this.topicsDir = triviaLibrary.getTriviaTopicsDir().toPath();
+		this.watchedDirs = new HashMap<>();
+	}
+	
+	/**
+	 * Starts watching the topics directory in the background. No-op if hot reload
+	 * is disabled or if the reloader has already been started.
+	 */
+	public synchronized void start() {
+		if (!config.isHotReload() || watcherThread != null) {
+			return;
+		}
+		
+		try {
+			this.watchService = FileSystems.getDefault().newWatchService();
+			registerAll(watchService, topicsDir);
+		} catch (IOException e) {
+			LOG.error("Unable to watch {} for changes. Trivia topics will not be hot reloaded.", topicsDir, e);
+			closeWatchService();
+			return;
+		}
+		
+		this.watcherThread = new Thread(this::watch, "Trivia Library Reloader");
+		this.watcherThread.setDaemon(true);
+		this.watcherThread.start();
+		
+		LOG.info("Watching {} for trivia topic changes.", topicsDir);
+	}
+	
+	/**
+	 * Stops watching the topics directory. No-op if the reloader is not running.
+	 */
+	public synchronized void stop() {
+		if (watcherThread == null) {
+			return;
+		}
+		
+		closeWatchService();
+		watcherThread.interrupt();
+		watcherThread = null;
+	}
+	
+	private void closeWatchService() {
+		if (watchService == null) {
+			return;
+		}
+		
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			LOG.warn("Unable to close the trivia topics watch service.", e);
+		}
+		watchService = null;
+	}
+	
+	/**
+	 * Watches the directory and every directory under it.
+	 */
+	private void registerAll(WatchService watchService, Path dir) throws IOException {
+		try (Stream<Path> dirs = Files.walk(dir)) {
+			dirs.filter(Files::isDirectory).forEach(d -> register(watchService, d));
+		}
+	}
+	
+	private void register(WatchService watchService, Path dir) {
+		try {
+			WatchKey key = dir.register(watchService,
+					StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_DELETE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+			watchedDirs.put(key, dir);
+		} catch (IOException e) {
+			LOG.warn("Unable to watch {} for changes.", dir, e);
+		}
+	}
+	
+	private void watch() {
+		WatchService watchService = this.watchService;
+		Set<String> changedTopics = new HashSet<>();
+		
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = changedTopics.isEmpty()
+						? watchService.take()
+						: watchService.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+				
+				if (key == null) {
+					// Things have settled down.
+					reload(changedTopics);
+					changedTopics = new HashSet<>();
+					continue;
+				}
+				
+				collectChangedTopics(watchService, key, changedTopics);
+				
+				if (!key.reset()) {
+					watchedDirs.remove(key);
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// Stopped.
+		}
+		
+		LOG.info("Stopped watching {} for trivia topic changes.", topicsDir);
+	}
+	
+	private void collectChangedTopics(WatchService watchService, WatchKey key, Set<String> changedTopics) {
+		Path dir = watchedDirs.get(key);
+		if (dir == null) {
+			return;
+		}
+		
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				// Some events were lost, so everything is suspect.
+				changedTopics.addAll(triviaLibrary.getTopicMetadata().keySet());
+				try (Stream<Path> dirs = Files.list(topicsDir)) {
+					dirs.filter(Files::isDirectory)
+							.forEach(d -> changedTopics.add(d.getFileName().toString()));
+				} catch (IOException e) {
+					LOG.warn("Unable to list {}.", topicsDir, e);
+				}
+				continue;
+			}
+			
+			Path changed = dir.resolve((Path) event.context());
+			
+			// A directory which was created or moved in may already have files and directories in it.
+			if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+				try {
+					registerAll(watchService, changed);
+				} catch (IOException e) {
+					LOG.warn("Unable to watch {} for changes.", changed, e);
+				}
+			}
+			
+			// The topic is the first directory under the topics directory.
+			String topicName = topicsDir.relativize(changed).getName(0).toString();
+			
+			if (dir.equals(topicsDir)) {
+				if (Files.isDirectory(changed) || triviaLibrary.getTopicMetadata().containsKey(topicName)) {
+					// A topic was added, changed, or deleted.
+					changedTopics.add(topicName);
+				}
+			} else if (!isGeneratedFile(changed)) {
+				changedTopics.add(topicName);
+			}
+		}
+	}
+	
+	/**
+	 * Whether if the file is one that the plugin writes into topic directories itself, which should not cause the
+	 * topic to be reloaded.
+	 */
+	private boolean isGeneratedFile(Path file) {
+		String fileName = file.getFileName().toString();
+		return fileName.equals(SongTagIndex.INDEX_FILE_NAME) || fileName.endsWith(".tmp");
+	}
+	
+	private void reload(Set<String> changedTopics) {
+		try {
+			triviaLibrary.reload(changedTopics);
+			
+			// The reloaded topics' audio files may have changed, so their song tags are read again.
+			File triviaTopicsDir = triviaLibrary.getTriviaTopicsDir();
+			changedTopics.forEach(topic -> songTagIndex.invalidate(new File(triviaTopicsDir, topic)));
+		} catch (Exception e) {
+			LOG.error("Unable to reload trivia topics {}.", changedTopics, e);
+		}
+	}
+}
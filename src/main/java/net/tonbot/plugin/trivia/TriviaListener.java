@@ -3,6 +3,7 @@ package net.tonbot.plugin.trivia;
 import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionEndEvent;
 import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionStartEvent;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionEndEvent;
+import net.tonbot.plugin.trivia.musicid.MusicIdQuestionPrefetchEvent;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionStartEvent;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestionEndEvent;
 import net.tonbot.plugin.trivia.shortanswer.ShortAnswerQuestionStartEvent;
@@ -34,6 +35,14 @@ public interface TriviaListener {
 
 	void onShortAnswerQuestionEnd(ShortAnswerQuestionEndEvent shortAnswerQuestionEndEvent);
 
+	/**
+	 * Called ahead of {@link #onMusicIdQuestionStart(MusicIdQuestionStartEvent)} so that the audio can be loaded
+	 * before the question starts. This is called from a worker thread, possibly while the previous question is still
+	 * ending, so implementations must be thread safe.
+	 * @param musicIdQuestionPrefetchEvent {@link MusicIdQuestionPrefetchEvent}
+	 */
+	void onMusicIdQuestionPrefetch(MusicIdQuestionPrefetchEvent musicIdQuestionPrefetchEvent);
+
 	void onMusicIdQuestionStart(MusicIdQuestionStartEvent musicIdQuestionStartEvent);
 
 	void onMusicIdQuestionEnd(MusicIdQuestionEndEvent musicIdQuestionEndEvent);
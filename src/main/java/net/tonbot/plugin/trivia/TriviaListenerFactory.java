@@ -4,7 +4,6 @@ import java.awt.Color;
 
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
-import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 
 import net.tonbot.common.BotUtils;
 import net.tonbot.plugin.trivia.db.TriviaPersistentStore;
@@ -17,16 +16,22 @@ class TriviaListenerFactory {
 	private final IDiscordClient discordClient;
 	private final BotUtils botUtils;
 	private final Color accentColor;
-	private final AudioPlayerManager audioPlayerManager;
+	private final GuildAudioPool guildAudioPool;
+	private final AudioTrackLoader audioTrackLoader;
+	private final HashedWheelTimer timer;
 	private final TriviaPersistentStore store;
+	private final OpusClipCache opusClipCache;
 	
 	@Inject
-	public TriviaListenerFactory(IDiscordClient discordClient, BotUtils botUtils, Color accentColor, AudioPlayerManager audioPlayerManager, TriviaPersistentStore store) {
+	public TriviaListenerFactory(IDiscordClient discordClient, BotUtils botUtils, Color accentColor, GuildAudioPool guildAudioPool, AudioTrackLoader audioTrackLoader, HashedWheelTimer timer, TriviaPersistentStore store, OpusClipCache opusClipCache) {
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");		
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
 		this.accentColor = Preconditions.checkNotNull(accentColor, "accentColor must be non-null.");
-		this.audioPlayerManager = Preconditions.checkNotNull(audioPlayerManager, "audioPlayerManager must be non-null.");
+		this.guildAudioPool = Preconditions.checkNotNull(guildAudioPool, "guildAudioPool must be non-null.");
+		this.audioTrackLoader = Preconditions.checkNotNull(audioTrackLoader, "audioTrackLoader must be non-null.");
+		this.timer = Preconditions.checkNotNull(timer, "timer must be non-null.");
 		this.store = Preconditions.checkNotNull(store, "store must be non-null.");
+		this.opusClipCache = Preconditions.checkNotNull(opusClipCache, "opusClipCache must be non-null.");
 	}
 	
 	/**
@@ -39,6 +44,6 @@ class TriviaListenerFactory {
 		Preconditions.checkNotNull(initiator, "initiator must be non-null.");
 		Preconditions.checkNotNull(channel, "channel must be non-null.");
 		
-		return new TriviaListenerImpl(discordClient, initiator, channel, botUtils, accentColor, audioPlayerManager, store);
+		return new TriviaListenerImpl(discordClient, initiator, channel, botUtils, accentColor, guildAudioPool, audioTrackLoader, timer, store, opusClipCache);
 	}
 }
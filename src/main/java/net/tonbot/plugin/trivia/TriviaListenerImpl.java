@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -23,13 +24,13 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
-import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 
 import net.tonbot.common.BotUtils;
 import net.tonbot.common.TonbotBusinessException;
 import net.tonbot.plugin.trivia.db.TriviaPersistentStore;
 import net.tonbot.plugin.trivia.db.UserTriviaStats;
+import net.tonbot.plugin.trivia.db.UserTriviaStatsUpdate;
 import net.tonbot.plugin.trivia.model.Choice;
 import net.tonbot.plugin.trivia.model.TriviaMetadata;
 import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestion;
@@ -37,6 +38,7 @@ import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionEndEvent;
 import net.tonbot.plugin.trivia.multiplechoice.MultipleChoiceQuestionStartEvent;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestion;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionEndEvent;
+import net.tonbot.plugin.trivia.musicid.MusicIdQuestionPrefetchEvent;
 import net.tonbot.plugin.trivia.musicid.MusicIdQuestionStartEvent;
 import net.tonbot.plugin.trivia.musicid.SongMetadata;
 import net.tonbot.plugin.trivia.musicid.SongProperty;
@@ -75,18 +77,23 @@ class TriviaListenerImpl implements TriviaListener {
 	private final Color accentColor;
 	private final AudioManager audioManager;
 	private final ConcurrentLinkedQueue<IMessage> deletableMessages = new ConcurrentLinkedQueue<>();
+	// Clips and tracks which were loaded ahead of their questions, keyed by audio file.
+	private final Map<File, OpusClip> prefetchedClips = new ConcurrentHashMap<>();
+	private final Map<File, AudioTrack> prefetchedTracks = new ConcurrentHashMap<>();
 	private final TriviaPersistentStore store;
+	private final OpusClipCache opusClipCache;
 	
 	private LoadedAudioCues audioCues;
 
-	public TriviaListenerImpl(IDiscordClient discordClient, IUser initiator, IChannel channel, BotUtils botUtils, Color accentColor, AudioPlayerManager apm, TriviaPersistentStore store) {
+	public TriviaListenerImpl(IDiscordClient discordClient, IUser initiator, IChannel channel, BotUtils botUtils, Color accentColor, GuildAudioPool guildAudioPool, AudioTrackLoader audioTrackLoader, HashedWheelTimer timer, TriviaPersistentStore store, OpusClipCache opusClipCache) {
 		this.discordClient = Preconditions.checkNotNull(discordClient, "discordClient must be non-null.");
 		this.initiator = Preconditions.checkNotNull(initiator, "initiator must be non-null.");
 		this.channel = Preconditions.checkNotNull(channel, "channel must be non-null.");
 		this.botUtils = Preconditions.checkNotNull(botUtils, "botUtils must be non-null.");
 		this.accentColor = Preconditions.checkNotNull(accentColor, "accentColor must be non-null.");
-		this.audioManager = new AudioManager(channel.getGuild(), apm);
+		this.audioManager = new AudioManager(channel.getGuild(), guildAudioPool, audioTrackLoader, timer);
 		this.store = Preconditions.checkNotNull(store, "store must be non-null.");
+		this.opusClipCache = Preconditions.checkNotNull(opusClipCache, "opusClipCache must be non-null.");
 	}
 	
 	@Override
@@ -109,6 +116,8 @@ class TriviaListenerImpl implements TriviaListener {
 				throwNeedVoiceChannelException("I'm not allowed to connect to your voice channel.", channel.getGuild());
 			} catch (AlreadyInAnotherVoiceChannelException e) {
 				throw new TonbotBusinessException("I can't join your voice channel because I'm connected to :sound:``" + e.getVoiceChannel().getName() + "``");
+			} catch (VoiceChannelInUseException e) {
+				throw new TonbotBusinessException("Another round is already playing in :sound:``" + e.getVoiceChannel().getName() + "``. Please wait for it to end.");
 			}
 		}
 		
@@ -170,6 +179,8 @@ class TriviaListenerImpl implements TriviaListener {
 	public void onRoundEnd(RoundEndEvent roundEndEvent) {
 		LOG.info("Round has ended.");
 		purgeDeletableMessagesAsync();
+		prefetchedClips.clear();
+		prefetchedTracks.clear();
 		
 		Map<Long, RoundRecord> scorekeepingRecords = roundEndEvent.getScorekeepingRecords();
 		EmbedBuilder eb = new EmbedBuilder();
@@ -238,24 +249,19 @@ class TriviaListenerImpl implements TriviaListener {
 				scorekeepingRecords, 
 				roundEndEvent.getLoadedTrivia().getTriviaTopic().getMetadata().getName());
 		
+		// The voice channel is left when the cue ends, rather than holding up this thread while it plays.
 		File roundCompleteAudioCue = audioCues.getRoundComplete().orElse(null);
 		if (roundCompleteAudioCue != null) {
-			AudioTrack at = audioManager.findTrack(roundCompleteAudioCue);
-			long durationMs = at.getDuration();
-			audioManager.playInVC(at, 0);
-			try {
-				Thread.sleep(durationMs + 500);
-			} catch (InterruptedException e) {
-				LOG.warn("TriviaListener thread was interrupted from sleep.", e);
-			}
+			audioManager.playThenLeaveVC(roundCompleteAudioCue);
+		} else {
+			audioManager.leaveVC();
 		}
-		
-		audioManager.leaveVC();
 	}
 	
 	private void saveToDB(long guildId, Map<Long, RoundRecord> scorekeepingRecords, String triviaName) {
 		LocalDateTime now = LocalDateTime.now();
 		
+		List<UserTriviaStatsUpdate> updates = new ArrayList<>(scorekeepingRecords.size());
 		for (Entry<Long, RoundRecord> entry : scorekeepingRecords.entrySet()) {
 			long userId = entry.getKey();
 			RoundRecord record = entry.getValue();
@@ -264,8 +270,10 @@ class TriviaListenerImpl implements TriviaListener {
 					triviaName, 
 					now, 
 					record);
-			store.addUserTriviaStats(guildId, userId, uts);
+			updates.add(new UserTriviaStatsUpdate(guildId, userId, uts));
 		}
+		
+		store.addUserTriviaStats(updates);
 	}
 	
 	@Override
@@ -278,6 +286,8 @@ class TriviaListenerImpl implements TriviaListener {
 	
 	@Override
 	public void onCrash() {
+		prefetchedClips.clear();
+		prefetchedTracks.clear();
 		audioManager.leaveVC();
 		
 		botUtils.sendMessage(channel, "The trivia has crashed. :(");
@@ -369,16 +379,37 @@ class TriviaListenerImpl implements TriviaListener {
 		deletableMessages.add(message);
 	}
 
+	@Override
+	public void onMusicIdQuestionPrefetch(MusicIdQuestionPrefetchEvent musicIdQuestionPrefetchEvent) {
+		File audioFile = musicIdQuestionPrefetchEvent.getQuestion().getAudioFile();
+		
+		// Cached clips need no transcoding. Otherwise, fall back to the track while the clips are encoded for next time.
+		Optional<OpusClip> clip = opusClipCache.getClip(audioFile, musicIdQuestionPrefetchEvent.getMaxDurationMs());
+		if (clip.isPresent()) {
+			prefetchedClips.put(audioFile, clip.get());
+		} else {
+			prefetchedTracks.put(audioFile, audioManager.findTrack(audioFile));
+		}
+	}
+
 	@Override
 	public void onMusicIdQuestionStart(MusicIdQuestionStartEvent musicIdQuestionStartEvent) {
 		purgeDeletableMessagesAsync();
 		
 		MusicIdQuestion question = musicIdQuestionStartEvent.getQuestion();
 		
-		AudioTrack audioTrack = audioManager.findTrack(question.getAudioFile());
-		long maxPosition = Math.max(audioTrack.getDuration() - musicIdQuestionStartEvent.getMaxDurationMs(), 0);
-		long randomPosition = (long) (Math.random() * maxPosition);
-		audioManager.playInVC(audioTrack, randomPosition);
+		OpusClip clip = prefetchedClips.remove(question.getAudioFile());
+		if (clip != null) {
+			audioManager.playInVC(clip);
+		} else {
+			AudioTrack audioTrack = prefetchedTracks.remove(question.getAudioFile());
+			if (audioTrack == null) {
+				audioTrack = audioManager.findTrack(question.getAudioFile());
+			}
+			long maxPosition = Math.max(audioTrack.getDuration() - musicIdQuestionStartEvent.getMaxDurationMs(), 0);
+			long randomPosition = (long) (Math.random() * maxPosition);
+			audioManager.playInVC(audioTrack, randomPosition);
+		}
 		
 		EmbedBuilder eb = getQuestionEmbedBuilder(musicIdQuestionStartEvent);
 		
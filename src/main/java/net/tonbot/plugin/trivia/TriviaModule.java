@@ -2,8 +2,14 @@ package net.tonbot.plugin.trivia;
 
 import java.awt.Color;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.jaudiotagger.audio.AudioFileIO;
 import org.mapdb.DB;
@@ -15,6 +21,7 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Scopes;
@@ -22,15 +29,33 @@ import com.google.inject.Singleton;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.player.DefaultAudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManagers;
+import com.sedmelluq.discord.lavaplayer.track.playback.NonAllocatingAudioFrameBuffer;
 
 import net.tonbot.common.Activity;
 import net.tonbot.common.BotUtils;
 import net.tonbot.plugin.trivia.db.MapDbTriviaPersistentStore;
 import net.tonbot.plugin.trivia.db.TriviaPersistentStore;
+import net.tonbot.plugin.trivia.db.WriteBehindTriviaPersistentStore;
+import net.tonbot.plugin.trivia.musicid.SongTagIndex;
 import sx.blah.discord.api.IDiscordClient;
 
 class TriviaModule extends AbstractModule {
 
+	// Question timers only need to be accurate to within a tenth of a second.
+	private static final long TIMER_TICK_MS = 100;
+	
+	// 512 ticks of 100ms covers a ~51 second question without wrapping around the wheel.
+	private static final int TIMER_TICKS_PER_WHEEL = 512;
+	
+	private static final int MIN_SESSION_WORKER_THREADS = 4;
+	
+	// Each write is the stats of one round.
+	private static final int STATS_QUEUE_CAPACITY = 256;
+	private static final int STATS_MAX_BATCH_SIZE = 64;
+	
+	// A track's clips take about a megabyte, so this keeps the clips of a few hundred tracks.
+	private static final long CLIP_CACHE_MAX_BYTES = 256L * 1024 * 1024;
+
 	private final IDiscordClient discordClient;
 	private final BotUtils botUtils;
 	private final Color color;
@@ -47,16 +72,20 @@ class TriviaModule extends AbstractModule {
 	protected void configure() {
 		bind(IDiscordClient.class).toInstance(discordClient);
 		bind(TriviaSessionManager.class).in(Scopes.SINGLETON);
+		bind(TriviaLibrary.class).in(Scopes.SINGLETON);
+		bind(TriviaLibraryReloader.class).in(Scopes.SINGLETON);
+		bind(SongTagIndex.class).in(Scopes.SINGLETON);
+		bind(AudioTrackLoader.class).in(Scopes.SINGLETON);
+		bind(GuildAudioPool.class).in(Scopes.SINGLETON);
 		bind(BotUtils.class).toInstance(this.botUtils);
 		bind(File.class).toInstance(triviaDataDir);
 		bind(Color.class).toInstance(color);
-		bind(TriviaPersistentStore.class).to(MapDbTriviaPersistentStore.class);
 	}
 
 	@Provides
 	@Singleton
-	Set<Activity> activities(PlayActivity playActivity, TopicsActivity listActivity, StopActivity stopActivity, StatsActivity statsActivity) {
-		return ImmutableSet.of(playActivity, listActivity, stopActivity, statsActivity);
+	Set<Activity> activities(PlayActivity playActivity, TopicsActivity listActivity, StopActivity stopActivity, StatsActivity statsActivity, LeaderboardActivity leaderboardActivity) {
+		return ImmutableSet.of(playActivity, listActivity, stopActivity, statsActivity, leaderboardActivity);
 	}
 
 	@Provides
@@ -68,6 +97,14 @@ class TriviaModule extends AbstractModule {
 	@Provides
 	@Singleton
 	ObjectMapper objectMapper() {
+		return createObjectMapper();
+	}
+	
+	/**
+	 * Creates the {@link ObjectMapper} used to read trivia topics. Also used by
+	 * tools which run outside of the bot, such as {@link TopicPackCompiler}.
+	 */
+	static ObjectMapper createObjectMapper() {
 		ObjectMapper objMapper = new ObjectMapper();
 		objMapper.enable(DeserializationFeature.FAIL_ON_NULL_FOR_PRIMITIVES);
 		objMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
@@ -77,20 +114,70 @@ class TriviaModule extends AbstractModule {
 		return objMapper;
 	}
 
+	@Provides
+	@Singleton
+	TriviaLibraryConfiguration triviaLibraryConfiguration(ObjectMapper objectMapper) {
+		File configFile = new File(triviaDataDir, "library.json");
+		if (!configFile.exists()) {
+			return TriviaLibraryConfiguration.builder().build();
+		}
+		
+		try {
+			return objectMapper.readValue(configFile, TriviaLibraryConfiguration.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read " + configFile.getAbsolutePath(), e);
+		}
+	}
+
 	@Provides
 	@Singleton
 	Random random() {
 		return new Random(System.currentTimeMillis());
 	}
 	
+	/**
+	 * The worker pool shared by all trivia sessions. Timer tasks are dispatched onto it.
+	 */
+	@Provides
+	@Singleton
+	ExecutorService sessionWorkerExecutor() {
+		ThreadFactory tf = new ThreadFactoryBuilder()
+				.setNameFormat("Trivia Session Worker %d")
+				.setDaemon(true)
+				.build();
+		int threads = Math.max(MIN_SESSION_WORKER_THREADS, Runtime.getRuntime().availableProcessors());
+		return Executors.newFixedThreadPool(threads, tf);
+	}
+	
+	@Provides
+	@Singleton
+	HashedWheelTimer hashedWheelTimer(ExecutorService sessionWorkerExecutor) {
+		return new HashedWheelTimer(TIMER_TICK_MS, TimeUnit.MILLISECONDS, TIMER_TICKS_PER_WHEEL, sessionWorkerExecutor);
+	}
+	
 	@Provides
 	@Singleton
 	AudioPlayerManager audioPlayerManager() {
 		AudioPlayerManager apm = new DefaultAudioPlayerManager();
+		// Frames are copied out of a preallocated buffer instead of being allocated one by one.
+		apm.getConfiguration().setFrameBufferFactory(NonAllocatingAudioFrameBuffer::new);
 		AudioSourceManagers.registerLocalSource(apm);
 		return apm;
 	}
 	
+	@Provides
+	@Singleton
+	OpusClipCache opusClipCache(AudioPlayerManager audioPlayerManager, AudioTrackLoader audioTrackLoader, Random random) {
+		return new OpusClipCache(new File(triviaDataDir, "clip-cache"), CLIP_CACHE_MAX_BYTES, audioPlayerManager,
+				audioTrackLoader, random);
+	}
+	
+	@Provides
+	@Singleton
+	TriviaPersistentStore triviaPersistentStore(MapDbTriviaPersistentStore mapDbStore) {
+		return new WriteBehindTriviaPersistentStore(mapDbStore, STATS_QUEUE_CAPACITY, STATS_MAX_BATCH_SIZE);
+	}
+	
 	@Provides
 	@Singleton
 	AudioFileIO audioFileIO() {
@@ -105,7 +192,9 @@ class TriviaModule extends AbstractModule {
 		
 		File triviaDbFile = new File(triviaPersistenceDir, "database.db");
 		
-		DB db = DBMaker.fileDB(triviaDbFile).make();
+		DB db = DBMaker.fileDB(triviaDbFile)
+				.transactionEnable()
+				.make();
 		return db;
 	}
 }
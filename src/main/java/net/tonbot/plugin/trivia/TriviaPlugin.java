@@ -2,6 +2,7 @@ package net.tonbot.plugin.trivia;
 
 import java.io.File;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -12,6 +13,7 @@ import net.tonbot.common.Activity;
 import net.tonbot.common.TonbotPlugin;
 import net.tonbot.common.TonbotPluginArgs;
 import net.tonbot.plugin.trivia.db.TriviaPersistentStore;
+import net.tonbot.plugin.trivia.musicid.SongTagIndex;
 
 public class TriviaPlugin extends TonbotPlugin {
 
@@ -25,6 +27,8 @@ public class TriviaPlugin extends TonbotPlugin {
 
 		this.injector = Guice.createInjector(new TriviaModule(pluginArgs.getDiscordClient(), pluginArgs.getBotUtils(),
 				pluginArgs.getColor(), triviaTopicsDir));
+		
+		this.injector.getInstance(TriviaLibraryReloader.class).start();
 	}
 
 	@Override
@@ -51,6 +55,14 @@ public class TriviaPlugin extends TonbotPlugin {
 
 	@Override
 	public void destroy() {
+		this.injector.getInstance(TriviaLibraryReloader.class).stop();
+		this.injector.getInstance(GuildAudioPool.class).shutdown();
+		this.injector.getInstance(OpusClipCache.class).shutdown();
+		this.injector.getInstance(HashedWheelTimer.class).stop();
+		this.injector.getInstance(ExecutorService.class).shutdown();
+		this.injector.getInstance(SongTagIndex.class).flush();
+		
+		// Writes out any stats that are still queued.
 		TriviaPersistentStore store = this.injector.getInstance(TriviaPersistentStore.class);
 		store.close();
 	}
@@ -4,8 +4,14 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang3.StringUtils;
@@ -13,10 +19,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import net.tonbot.common.TonbotBusinessException;
 import net.tonbot.plugin.trivia.model.AudioCues;
-import net.tonbot.plugin.trivia.model.MusicIdQuestionTemplate;
 import net.tonbot.plugin.trivia.model.Question;
 import net.tonbot.plugin.trivia.model.QuestionTemplate;
 
@@ -30,11 +36,15 @@ class TriviaSession {
 	private static final long ROUND_START_DELAY_MS = 12000;
 	private static final long PRE_QUESTION_DELAY_MS = 8000;
 	
+	// The maximum number of inbox messages that are processed under a single lock acquisition.
+	private static final int MAX_INBOX_BATCH_SIZE = 64;
+	
 	private final TriviaSessionManager triviaSessionManager;
 	
 	private final SessionDestroyingTriviaListener listener;
 	private final LoadedTrivia trivia;
-	private final List<QuestionTemplate> availableQuestionTemplates;
+	private final List<QuestionTemplate> questionTemplates;
+	private final QuestionDeck questionDeck;
 	private final TriviaConfiguration config;
 	private final Random random;
 	private final QuestionHandlers questionHandlers;
@@ -44,11 +54,22 @@ class TriviaSession {
 
 	private TriviaSessionState state;
 	private QuestionHandler currentQuestionHandler;
+	
+	// Builds the handler for the next question on a worker thread during the pause before it starts.
+	// Volatile because destroy() cancels it without holding the lock.
+	private volatile FutureTask<QuestionHandler> nextQuestionHandler;
 
 	private Scorekeeper scorekeeper;
 
 	private ScheduledTaskRunner scheduledTaskRunner;
 	private ReentrantLock lock;
+	
+	// Multi-producer, single-consumer inbox of user messages. 
+	// Discord event threads only enqueue. Whichever thread brings inboxWip up from zero schedules
+	// the one and only consumer, which keeps draining until inboxWip falls back to zero.
+	private final Queue<UserMessage> inbox;
+	private final AtomicInteger inboxWip;
+	private final Executor workerExecutor;
 
 	public TriviaSession(
 			TriviaSessionManager triviaSessionManager,
@@ -56,7 +77,9 @@ class TriviaSession {
 			LoadedTrivia trivia, 
 			TriviaConfiguration config, 
 			Random random, 
-			QuestionHandlers questionHandlers) {
+			QuestionHandlers questionHandlers,
+			HashedWheelTimer timer,
+			Executor workerExecutor) {
 		
 		this.triviaSessionManager = Preconditions.checkNotNull(triviaSessionManager, "triviaSessionManager must be non-null.");
 		Preconditions.checkNotNull(listener, "listener must be non-null.");
@@ -66,28 +89,34 @@ class TriviaSession {
 		this.random = Preconditions.checkNotNull(random, "random must be non-null.");
 		this.questionHandlers = Preconditions.checkNotNull(questionHandlers, "questionHandlers must be non-null.");
 
-		this.availableQuestionTemplates = new ArrayList<>(
-				this.trivia.getTriviaTopic().getQuestionBundle().getQuestionTemplates());
-		this.totalQuestionsToAsk = Math.min(config.getMaxQuestions(), availableQuestionTemplates.size());
+		this.questionTemplates = this.trivia.getTriviaTopic().getQuestionBundle().getQuestionTemplates();
+		int numQuestionsToAsk = Math.max(0, Math.min(config.getMaxQuestions(), questionTemplates.size()));
+		this.questionDeck = new QuestionDeck(questionTemplates.size(), numQuestionsToAsk);
+		this.totalQuestionsToAsk = numQuestionsToAsk;
 
 		this.numQuestionsAsked = 0;
 		this.state = TriviaSessionState.NOT_STARTED;
 		this.currentQuestionHandler = null;
+		this.nextQuestionHandler = null;
 		this.scorekeeper = new Scorekeeper(config.getScoreDecayFactor());
-		this.scheduledTaskRunner = new ScheduledTaskRunner();
+		this.scheduledTaskRunner = new ScheduledTaskRunner(Preconditions.checkNotNull(timer, "timer must be non-null."));
 		this.lock = new ReentrantLock();
+		this.inbox = new ConcurrentLinkedQueue<>();
+		this.inboxWip = new AtomicInteger(0);
+		this.workerExecutor = Preconditions.checkNotNull(workerExecutor, "workerExecutor must be non-null.");
 	}
 
 	public void start() {
 		lock.lock();
 		try {
-			Preconditions.checkState(this.state == TriviaSessionState.NOT_STARTED,
-					"The session has already started or has already ended.");
+			if (this.state == TriviaSessionState.ENDED) {
+				// The session was stopped before it could start.
+				return;
+			}
 			
-			boolean hasAudio = availableQuestionTemplates.stream()
-				.filter(qt -> (qt instanceof MusicIdQuestionTemplate))
-				.findAny()
-				.isPresent();
+			Preconditions.checkState(this.state == TriviaSessionState.NOT_STARTED, "The session has already started.");
+			
+			boolean hasAudio = trivia.getTriviaTopic().getQuestionBundle().hasMusicIdQuestions();
 			
 			LoadedAudioCues loadedAudioCues = trivia.getTriviaTopic().getMetadata().getAudioCues()
 				.map(this::loadAudioCues)
@@ -141,19 +170,22 @@ class TriviaSession {
 	 * This method is to be called by a separate thread to time out a question.
 	 */
 	private void timeoutQuestion() {
+		QuestionHandler questionHandler;
 		lock.lock();
 		try {
 			Preconditions.checkState(this.state == TriviaSessionState.WAITING_FOR_ANSWER,
 					"The session has not yet started or has already ended.");
 
-			if (currentQuestionHandler != null) {
-				currentQuestionHandler.notifyEnd(null, 0, 0);
-			}
-
+			questionHandler = currentQuestionHandler;
 			loadNextQuestionOrEnd(PRE_QUESTION_DELAY_MS);
 		} finally {
 			lock.unlock();
 		}
+		
+		// Outside of the lock, since this makes Discord calls.
+		if (questionHandler != null) {
+			questionHandler.notifyEnd(null, 0, 0);
+		}
 	}
 
 	private void loadNextQuestionOrEnd(long delayMs) {
@@ -163,15 +195,14 @@ class TriviaSession {
 		boolean hasNextQuestion = totalQuestionsToAsk - numQuestionsAsked > 0;
 		Runnable runnable;
 		if (hasNextQuestion) {
+			FutureTask<QuestionHandler> prefetch = prefetchNextQuestion();
 			runnable = () -> {
 				lock.lock();
 				try {
 					state = TriviaSessionState.WAITING_FOR_ANSWER;
-					QuestionTemplate nextQuestionTemplate = pickRandomElement(this.availableQuestionTemplates);
-					this.availableQuestionTemplates.remove(nextQuestionTemplate);
 					this.numQuestionsAsked++;
 					
-					this.currentQuestionHandler = questionHandlers.get(nextQuestionTemplate, config, listener, trivia);
+					this.currentQuestionHandler = awaitPrefetch(prefetch);
 					
 					Question question = currentQuestionHandler.getQuestion();
 					LOG.info("Asking question #{}: {}", numQuestionsAsked, question);
@@ -211,36 +242,143 @@ class TriviaSession {
 		this.scheduledTaskRunner.replaceSchedule(runnable, delayMs, TimeUnit.MILLISECONDS);
 	}
 
+	/**
+	 * Draws the next question and starts building its handler on a worker thread, so that it is ready by the time the
+	 * question starts.
+	 * 
+	 * @return The task which builds the next {@link QuestionHandler}.
+	 */
+	private FutureTask<QuestionHandler> prefetchNextQuestion() {
+		QuestionTemplate nextQuestionTemplate = questionTemplates.get(questionDeck.draw(random));
+		
+		FutureTask<QuestionHandler> prefetch = new FutureTask<>(() -> {
+			QuestionHandler handler = questionHandlers.get(nextQuestionTemplate, config, listener, trivia);
+			handler.prefetch();
+			return handler;
+		});
+		
+		this.nextQuestionHandler = prefetch;
+		workerExecutor.execute(prefetch);
+		
+		return prefetch;
+	}
+	
+	private QuestionHandler awaitPrefetch(FutureTask<QuestionHandler> prefetch) throws ExecutionException {
+		// If no worker has picked up the prefetch yet, then run it here rather than wait for one.
+		// Running a task which has already started or finished is a no-op.
+		prefetch.run();
+		this.nextQuestionHandler = null;
+		
+		return Uninterruptibles.getUninterruptibly(prefetch);
+	}
+	
+	private void cancelPrefetch() {
+		FutureTask<QuestionHandler> prefetch = nextQuestionHandler;
+		if (prefetch != null) {
+			prefetch.cancel(false);
+			nextQuestionHandler = null;
+		}
+	}
+
 	/**
 	 * Takes in a message and if it is considered to be an answer, checks if it answers the current question. 
 	 * The {@code TriviaListener#onUserMessageReceived(UserMessageReceivedEvent)} event is always fired.
 	 * 
 	 * Answer processing only occurs if the session is waiting for an answer.
 	 * 
+	 * This method only enqueues the message. Messages are processed asynchronously by a single consumer, 
+	 * strictly in the order in which they were taken in.
+	 * 
 	 * @param userMessage
 	 *            {@link UserMessage}. Non-null.
 	 */
 	public void takeInput(UserMessage userMessage) {
 		Preconditions.checkNotNull(userMessage, "userMessage must be non-null.");
 
-		boolean isAnswer = isAnswer(userMessage);
+		inbox.offer(userMessage);
 		
-		UserMessageReceivedEvent messageReceivedEvent = new UserMessageReceivedEvent(userMessage, isAnswer);
-		listener.onUserMessageReceived(messageReceivedEvent);
+		if (inboxWip.getAndIncrement() == 0) {
+			workerExecutor.execute(this::drainInbox);
+		}
+	}
+	
+	/**
+	 * Processes inbox messages until the inbox is empty. Only one thread runs this at a time.
+	 */
+	private void drainInbox() {
+		List<UserMessage> batch = new ArrayList<>(MAX_INBOX_BATCH_SIZE);
+		int missed = 1;
 		
-		if (isAnswer) {
-			UserMessage answerMessage = getUserAnswerMessage(userMessage);
+		do {
+			UserMessage userMessage;
+			while ((userMessage = inbox.poll()) != null) {
+				batch.add(userMessage);
+				
+				if (batch.size() == MAX_INBOX_BATCH_SIZE) {
+					processInboxBatch(batch);
+					batch.clear();
+				}
+			}
+			
+			if (!batch.isEmpty()) {
+				processInboxBatch(batch);
+				batch.clear();
+			}
 			
-			lock.lock();
+			missed = inboxWip.addAndGet(-missed);
+		} while (missed != 0);
+	}
+	
+	/**
+	 * Checks a batch of messages under the lock, then fires the notifications for them after the lock is released,
+	 * in the order that they happened. Notifications make Discord calls, so they must not hold up the lock.
+	 * A message which fails is logged and does not affect the rest of the batch.
+	 */
+	private void processInboxBatch(List<UserMessage> batch) {
+		List<Runnable> notifications = new ArrayList<>();
+		
+		lock.lock();
+		try {
+			for (UserMessage userMessage : batch) {
+				try {
+					boolean isAnswer = isAnswer(userMessage);
+					
+					UserMessageReceivedEvent messageReceivedEvent = new UserMessageReceivedEvent(userMessage, isAnswer);
+					notifications.add(() -> listener.onUserMessageReceived(messageReceivedEvent));
+					
+					if (isAnswer) {
+						takeAnswer(getUserAnswerMessage(userMessage), notifications);
+					}
+				} catch (Exception e) {
+					LOG.error("Unable to process message {}.", userMessage.getMessageId(), e);
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		
+		fire(notifications);
+	}
+	
+	private void fire(List<Runnable> notifications) {
+		for (Runnable notification : notifications) {
 			try {
-				takeAnswer(answerMessage);
-			} finally {
-				lock.unlock();
+				notification.run();
+			} catch (Exception e) {
+				LOG.error("Trivia listener has unexpectedly thrown an exception.", e);
 			}
 		}
 	}
 	
-	private void takeAnswer(UserMessage userAnswer) {
+	/**
+	 * Checks an answer and updates the score. Must be called while holding the lock.
+	 * 
+	 * @param userAnswer
+	 *            The answer.
+	 * @param notifications
+	 *            The list to add notifications to. They are to be fired once the lock is released.
+	 */
+	private void takeAnswer(UserMessage userAnswer, List<Runnable> notifications) {
 		if (this.state != TriviaSessionState.WAITING_FOR_ANSWER) {
 			return;
 		}
@@ -253,8 +391,7 @@ class TriviaSession {
 
 		if (correct.get()) {
 			this.scheduledTaskRunner.cancel();
-			long incorrectAnswers = this.scorekeeper.getQuestionRecord(userAnswer.getUserId())
-					.getIncorrectAnswers();
+			long incorrectAnswers = this.scorekeeper.getIncorrectAnswers(userAnswer.getUserId());
 			long awardedPoints = this.scorekeeper.logCorrectAnswer(userAnswer.getUserId());
 
 			LOG.info("Player {} correct response: {}", userAnswer.getUserId(), userAnswer.getMessage());
@@ -263,8 +400,9 @@ class TriviaSession {
 					.messageId(userAnswer.getMessageId())
 					.build();
 			
-			this.listener.onAnswerCorrect(answerCorrectEvent);
-			this.currentQuestionHandler.notifyEnd(userAnswer, awardedPoints, incorrectAnswers);
+			QuestionHandler questionHandler = this.currentQuestionHandler;
+			notifications.add(() -> listener.onAnswerCorrect(answerCorrectEvent));
+			notifications.add(() -> questionHandler.notifyEnd(userAnswer, awardedPoints, incorrectAnswers));
 			
 			loadNextQuestionOrEnd(PRE_QUESTION_DELAY_MS);
 		} else {
@@ -277,7 +415,7 @@ class TriviaSession {
 			AnswerIncorrectEvent event = AnswerIncorrectEvent.builder()
 					.messageId(userAnswer.getMessageId())
 					.build();
-			listener.onAnswerIncorrect(event);
+			notifications.add(() -> listener.onAnswerIncorrect(event));
 		}
 	}
 	
@@ -318,7 +456,8 @@ class TriviaSession {
 			
 			this.scorekeeper.endQuestion();
 
-			this.scheduledTaskRunner.cancel();
+			this.scheduledTaskRunner.shutdown();
+			cancelPrefetch();
 
 			RoundEndEvent roundEndEvent = RoundEndEvent.builder()
 					.scorekeepingRecords(this.scorekeeper.getRecords())
@@ -345,18 +484,13 @@ class TriviaSession {
 		}
 		
 		// Something went horribly wrong. Shut down everything.
-		this.scheduledTaskRunner.shutdownNow();
+		this.scheduledTaskRunner.shutdown();
+		cancelPrefetch();
 		this.state = TriviaSessionState.ENDED;
 		
 		triviaSessionManager.sessionHasEnded(this);
 	}
 
-	private <T> T pickRandomElement(List<T> list) {
-		int randomIndex = random.nextInt(list.size());
-
-		return list.get(randomIndex);
-	}
-
 	private static enum TriviaSessionState {
 		/**
 		 * The initial state. May be transitioned into the {@code WAITING_FOR_ANSWER}
@@ -5,6 +5,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -12,12 +14,16 @@ import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 
 import net.tonbot.plugin.trivia.model.TriviaTopic;
+import net.tonbot.plugin.trivia.musicid.SongTagIndex;
 
 class TriviaSessionManager {
 
 	private final TriviaLibrary triviaLibrary;
 	private final Random random;
 	private final QuestionHandlers questionHandlers;
+	private final HashedWheelTimer timer;
+	private final ExecutorService sessionWorkerExecutor;
+	private final SongTagIndex songTagIndex;
 	
 	private final Map<TriviaSessionKey, TriviaSession> sessions;
 	private final ReadWriteLock lock;
@@ -26,10 +32,16 @@ class TriviaSessionManager {
 	public TriviaSessionManager(
 			TriviaLibrary triviaLibrary, 
 			Random random, 
-			QuestionHandlers questionHandlers) {
+			QuestionHandlers questionHandlers,
+			HashedWheelTimer timer,
+			ExecutorService sessionWorkerExecutor,
+			SongTagIndex songTagIndex) {
 		this.triviaLibrary = Preconditions.checkNotNull(triviaLibrary, "triviaLibrary must be non-null.");
 		this.random = Preconditions.checkNotNull(random, "random must be non-null.");
 		this.questionHandlers = Preconditions.checkNotNull(questionHandlers, "questionHandlers must be non-null.");
+		this.timer = Preconditions.checkNotNull(timer, "timer must be non-null.");
+		this.sessionWorkerExecutor = Preconditions.checkNotNull(sessionWorkerExecutor, "sessionWorkerExecutor must be non-null.");
+		this.songTagIndex = Preconditions.checkNotNull(songTagIndex, "songTagIndex must be non-null.");
 
 		this.sessions = new HashMap<>();
 		this.lock = new ReentrantReadWriteLock();
@@ -71,6 +83,13 @@ class TriviaSessionManager {
 		Preconditions.checkNotNull(triviaTopicName, "triviaTopicName must be non-null.");
 		Preconditions.checkNotNull(difficulty, "difficulty must be non-null.");
 		
+		// In lazy loading mode, this may read the whole topic from disk, so it must not hold up getSession().
+		LoadedTrivia loadedTrivia = triviaLibrary.getTrivia(triviaTopicName)
+				.orElseThrow(() -> new InvalidTopicException("Trivia topic " + triviaTopicName + " is not valid."));
+		TriviaConfiguration triviaConfig = getConfigFor(loadedTrivia.getTriviaTopic(), difficulty);
+		
+		TriviaSession triviaSession = new TriviaSession(this, listener, loadedTrivia, triviaConfig, random, questionHandlers, timer, sessionWorkerExecutor);
+		
 		lock.writeLock().lock();
 		try {
 			TriviaSession currentSession = this.sessions.get(sessionKey);
@@ -79,19 +98,15 @@ class TriviaSessionManager {
 				throw new ExistingSessionException("A session already exists for key " + sessionKey);
 			}
 			
-			LoadedTrivia loadedTrivia = triviaLibrary.getTrivia(triviaTopicName)
-					.orElseThrow(() -> new InvalidTopicException("Trivia topic " + triviaTopicName + " is not valid."));
-			TriviaConfiguration triviaConfig = getConfigFor(loadedTrivia.getTriviaTopic(), difficulty);
-			
-			TriviaSession triviaSession = new TriviaSession(this, listener, loadedTrivia, triviaConfig, random, questionHandlers);
 			this.sessions.put(sessionKey, triviaSession);
-
-			triviaSession.start();
-			
-			return triviaSession;
 		} finally {
 			lock.writeLock().unlock();
 		}
+		
+		// Starting the round talks to Discord, so it is done after releasing the lock too.
+		triviaSession.start();
+		
+		return triviaSession;
 	}
 	
 	/**
@@ -135,6 +150,14 @@ class TriviaSessionManager {
 		} finally {
 			lock.writeLock().unlock();
 		}
+		
+		// Writes the song tags which were read during the round. This is called while the session, and maybe this
+		// manager, are locked, so the write is left to a worker.
+		try {
+			sessionWorkerExecutor.execute(songTagIndex::flush);
+		} catch (RejectedExecutionException e) {
+			// Shutting down. The plugin flushes the index itself once the workers have stopped.
+		}
 	}
 
 	private TriviaConfiguration getConfigFor(TriviaTopic topic, Difficulty difficulty) {
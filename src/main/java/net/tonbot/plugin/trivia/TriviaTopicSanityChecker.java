@@ -1,11 +1,15 @@
 package net.tonbot.plugin.trivia;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import com.google.common.base.Preconditions;
 
 import net.tonbot.plugin.trivia.model.MusicIdQuestionTemplate;
 import net.tonbot.plugin.trivia.model.QuestionTemplate;
+import net.tonbot.plugin.trivia.model.TriviaMetadata;
 import net.tonbot.plugin.trivia.model.TriviaTopic;
 
 class TriviaTopicSanityChecker {
@@ -16,6 +20,7 @@ class TriviaTopicSanityChecker {
 	 * <li>Image URLs are pointing to files that exist</li>
 	 * <li>Audio paths are pointing to files that exist</li>
 	 * </ul>
+	 * Each distinct path is only checked once, no matter how many questions use it.
 	 * 
 	 * @param triviaTopic
 	 *            The trivia topic. Non-null.
@@ -28,53 +33,140 @@ class TriviaTopicSanityChecker {
 		Preconditions.checkNotNull(triviaTopic, "triviaTopic must be non-null.");
 		Preconditions.checkNotNull(triviaTopicDir, "triviaTopicDir must be non-null.");
 		
-		triviaTopic.getMetadata()
+		ExistenceChecker existenceChecker = new ExistenceChecker(triviaTopic.getMetadata(), triviaTopicDir);
+		
+		checkMetadata(triviaTopic.getMetadata(), existenceChecker);
+		
+		triviaTopic.getQuestionBundle().getQuestionTemplates().forEach(q -> checkQuestion(q, existenceChecker));
+	}
+	
+	/**
+	 * Sanity checks only the trivia topic's metadata. Use together with
+	 * {@link #questionCheck(TriviaMetadata, File)} to check questions as they are
+	 * read.
+	 * 
+	 * @param metadata
+	 *            The trivia topic's metadata. Non-null.
+	 * @param triviaTopicDir
+	 *            The trivia topic's directory. Non-null.
+	 * @throws TriviaTopicSanityException
+	 *             if the any sanity check failed.
+	 */
+	public void checkMetadata(TriviaMetadata metadata, File triviaTopicDir) {
+		Preconditions.checkNotNull(metadata, "metadata must be non-null.");
+		Preconditions.checkNotNull(triviaTopicDir, "triviaTopicDir must be non-null.");
+		
+		checkMetadata(metadata, new ExistenceChecker(metadata, triviaTopicDir));
+	}
+	
+	/**
+	 * Creates a check of single questions of a trivia topic. The check throws
+	 * {@link TriviaTopicSanityException} if the question fails the same checks as
+	 * {@link #check(TriviaTopic, File)} does. Each distinct path is only checked
+	 * once across all questions given to the same check.
+	 * 
+	 * @param metadata
+	 *            The trivia topic's metadata. Non-null.
+	 * @param triviaTopicDir
+	 *            The trivia topic's directory. Non-null.
+	 * @return The question check.
+	 */
+	public Consumer<QuestionTemplate> questionCheck(TriviaMetadata metadata, File triviaTopicDir) {
+		Preconditions.checkNotNull(metadata, "metadata must be non-null.");
+		Preconditions.checkNotNull(triviaTopicDir, "triviaTopicDir must be non-null.");
+		
+		ExistenceChecker existenceChecker = new ExistenceChecker(metadata, triviaTopicDir);
+		return q -> checkQuestion(q, existenceChecker);
+	}
+	
+	/**
+	 * Checks whether all of the given files exist. Used to check the questions of
+	 * a {@link TopicPack} without decoding any of them, in the common case that
+	 * nothing is missing.
+	 * 
+	 * @param relativePaths
+	 *            The paths of the files, relative to the topic directory.
+	 *            Non-null.
+	 * @param triviaTopicDir
+	 *            The trivia topic's directory. Non-null.
+	 * @return True iff every file exists.
+	 */
+	public boolean allExist(Iterable<String> relativePaths, File triviaTopicDir) {
+		Preconditions.checkNotNull(relativePaths, "relativePaths must be non-null.");
+		Preconditions.checkNotNull(triviaTopicDir, "triviaTopicDir must be non-null.");
+		
+		for (String relativePath : relativePaths) {
+			if (!new File(triviaTopicDir, relativePath).exists()) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	private void checkMetadata(TriviaMetadata metadata, ExistenceChecker existenceChecker) {
+		metadata
 			.getAudioCues()
 			.ifPresent(audioCues -> {
-				audioCues.getSuccessSoundPath().ifPresent(p -> checkFileExistence(p, triviaTopic, triviaTopicDir));
-				audioCues.getFailureSoundPath().ifPresent(p -> checkFileExistence(p, triviaTopic, triviaTopicDir));
-				audioCues.getRoundCompleteSoundPath().ifPresent(p -> checkFileExistence(p, triviaTopic, triviaTopicDir));
+				audioCues.getSuccessSoundPath().ifPresent(p -> existenceChecker.check(p));
+				audioCues.getFailureSoundPath().ifPresent(p -> existenceChecker.check(p));
+				audioCues.getRoundCompleteSoundPath().ifPresent(p -> existenceChecker.check(p));
 			});
 		
-		triviaTopic.getMetadata().getIconPath()
+		metadata.getIconPath()
 			.ifPresent(iconPath -> {
-				checkFileExistence(iconPath, triviaTopic, triviaTopicDir);
-			});
-		
-		triviaTopic.getQuestionBundle().getQuestionTemplates().forEach(q -> {
-				checkImageUrls(q, triviaTopic, triviaTopicDir);
-				checkMusicIdQuestions(q, triviaTopic, triviaTopicDir);
+				existenceChecker.check(iconPath);
 			});
 	}
 
-	private void checkImageUrls(QuestionTemplate q, TriviaTopic triviaTopic, File triviaTopicDir) {
-		q.getImagePaths().forEach(imgUrl -> {
-			File imgFile = new File(triviaTopicDir, imgUrl);
-			if (!imgFile.exists()) {
-				throw new TriviaTopicSanityException("Trivia Topic " + triviaTopic.getMetadata().getName()
-						+ " uses an non-existent image at " + imgUrl);
-			}
-		});
+	private void checkQuestion(QuestionTemplate q, ExistenceChecker existenceChecker) {
+		checkImageUrls(q, existenceChecker);
+		checkMusicIdQuestions(q, existenceChecker);
 	}
 	
-	private void checkMusicIdQuestions(QuestionTemplate q, TriviaTopic triviaTopic, File triviaTopicDir) {
+	private void checkImageUrls(QuestionTemplate q, ExistenceChecker existenceChecker) {
+		q.getImagePaths().forEach(imgUrl -> existenceChecker.check(imgUrl, "image"));
+	}
+	
+	private void checkMusicIdQuestions(QuestionTemplate q, ExistenceChecker existenceChecker) {
 		if (q instanceof MusicIdQuestionTemplate) {
 			MusicIdQuestionTemplate musicIdQuestionTemplate = ((MusicIdQuestionTemplate) q);
 			
-			checkAudioFileExistence(musicIdQuestionTemplate, triviaTopic, triviaTopicDir);
+			existenceChecker.check(musicIdQuestionTemplate.getAudioPath());
 		}
 	}
 	
-	private void checkAudioFileExistence(MusicIdQuestionTemplate q, TriviaTopic triviaTopic, File triviaTopicDir) {
-		String audioRelativePath = q.getAudioPath();
-		checkFileExistence(audioRelativePath, triviaTopic, triviaTopicDir);
-	}
-	
-	private void checkFileExistence(String relativePath, TriviaTopic triviaTopic, File triviaTopicDir) {
-		File audioFile = new File(triviaTopicDir, relativePath);
-		if (!audioFile.exists()) {
-			throw new TriviaTopicSanityException("Trivia Topic " + triviaTopic.getMetadata().getName()
-					+ " uses an non-existent file at " + relativePath);
+	/**
+	 * Checks file existence, remembering paths which were already found to exist.
+	 */
+	private static class ExistenceChecker {
+		
+		private final TriviaMetadata metadata;
+		private final File triviaTopicDir;
+		private final Set<String> existingPaths;
+		
+		ExistenceChecker(TriviaMetadata metadata, File triviaTopicDir) {
+			this.metadata = metadata;
+			this.triviaTopicDir = triviaTopicDir;
+			this.existingPaths = new HashSet<>();
+		}
+		
+		void check(String relativePath) {
+			check(relativePath, "file");
+		}
+		
+		void check(String relativePath, String description) {
+			if (existingPaths.contains(relativePath)) {
+				return;
+			}
+			
+			File file = new File(triviaTopicDir, relativePath);
+			if (!file.exists()) {
+				throw new TriviaTopicSanityException("Trivia Topic " + metadata.getName()
+						+ " uses an non-existent " + description + " at " + relativePath);
+			}
+			
+			existingPaths.add(relativePath);
 		}
 	}
 }
@@ -0,0 +1,21 @@
+package net.tonbot.plugin.trivia;
+
+import com.google.common.base.Preconditions;
+
+import lombok.Getter;
+import net.tonbot.common.TonbotBusinessException;
+import sx.blah.discord.handle.obj.IVoiceChannel;
+
+@SuppressWarnings("serial")
+class VoiceChannelInUseException extends TonbotBusinessException {
+
+	@Getter
+	private final IVoiceChannel voiceChannel;
+	
+	public VoiceChannelInUseException(String message, IVoiceChannel voiceChannel) {
+		super(message);
+		
+		this.voiceChannel = Preconditions.checkNotNull(voiceChannel, "voiceChannel must be non-null.");
+	}
+
+}
@@ -0,0 +1,18 @@
+package net.tonbot.plugin.trivia.db;
+
+import lombok.Data;
+
+/**
+ * A user's place on a guild's leaderboard.
+ */
+@Data
+public class LeaderboardEntry {
+
+	private final long userId;
+	
+	// The total points earned.
+	private final long points;
+	
+	// The number of rounds played.
+	private final long plays;
+}
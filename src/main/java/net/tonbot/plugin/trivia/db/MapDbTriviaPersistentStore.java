@@ -2,24 +2,75 @@ package net.tonbot.plugin.trivia.db;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Optional;
 
+import org.mapdb.BTreeMap;
 import org.mapdb.DB;
 import org.mapdb.Serializer;
+import org.mapdb.serializer.SerializerArrayTuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
+/**
+ * Stores stats in MapDB. Each call to add stats is committed as one transaction,
+ * so the {@link DB} must have transactions enabled.
+ * <p>
+ * Every {@link UserTriviaStats} is its own entry in a sorted map, keyed by
+ * (guild ID, user ID, ended at). Adding stats never touches a user's earlier
+ * stats, and a user's stats are read with a range scan over their key prefix.
+ * <p>
+ * Each user's totals per topic are kept in a second sorted map, keyed by
+ * (guild ID, user ID, topic name), and updated in the same transaction that
+ * adds the stats. So are the leaderboards, which are sorted maps of the number
+ * of rounds played keyed by (guild ID, topic name, points, user ID) for each
+ * topic and by (guild ID, points, user ID) across all topics. The top users
+ * are read by iterating over a guild's keys from the highest points down.
+ * <p>
+ * Stats are stored in a compact binary form by {@link UserTriviaStatsSerializer}
+ * and {@link TopicStatsSerializer}. Earlier versions stored them as JSON, in
+ * tables which are converted on startup.
+ */
 public class MapDbTriviaPersistentStore implements TriviaPersistentStore {
 
+	private static final Logger LOG = LoggerFactory.getLogger(MapDbTriviaPersistentStore.class);
+	
+	private static final String USER_TRIVIA_STATS_TABLE_NAME = "user_trivia_stats_v2";
+	private static final String TOPIC_STATS_TABLE_NAME = "topic_stats_v2";
+	private static final String TOPIC_LEADERBOARD_TABLE_NAME = "topic_leaderboard";
+	private static final String GUILD_LEADERBOARD_TABLE_NAME = "guild_leaderboard";
+	
+	// The old layout, with one GuildUserStats JSON blob per user. Migrated on startup.
 	private static final String GUILD_USER_STATS_TABLE_NAME = "guild_user_stats";
 	
+	// The sorted tables, from when stats were stored as JSON. Converted on startup.
+	private static final String JSON_USER_TRIVIA_STATS_TABLE_NAME = "user_trivia_stats";
+	private static final String JSON_TOPIC_STATS_TABLE_NAME = "topic_stats";
+	
+	// The number of entries to convert from JSON in each transaction.
+	private static final int JSON_CONVERSION_BATCH_SIZE = 1000;
+	
+	private static final SerializerArrayTuple USER_TRIVIA_STATS_KEY_SERIALIZER = new SerializerArrayTuple(
+			Serializer.LONG, Serializer.LONG, Serializer.LONG);
+	private static final SerializerArrayTuple TOPIC_STATS_KEY_SERIALIZER = new SerializerArrayTuple(
+			Serializer.LONG, Serializer.LONG, Serializer.STRING);
+	
 	private final DB db;
-	private final Map<String, byte[]> guildUserStatsTable;
+	private final BTreeMap<Object[], UserTriviaStats> userTriviaStatsTable;
+	private final BTreeMap<Object[], TopicStats> topicStatsTable;
+	private final BTreeMap<Object[], Long> topicLeaderboardTable;
+	private final BTreeMap<Object[], Long> guildLeaderboardTable;
 	private final ObjectMapper objMapper;
 	
 	@Inject
@@ -27,61 +78,323 @@ public class MapDbTriviaPersistentStore implements TriviaPersistentStore {
 		this.db = Preconditions.checkNotNull(db, "db must be non-null.");
 		this.objMapper = Preconditions.checkNotNull(objMapper, "objMapper must be non-null.");
 		
-		this.guildUserStatsTable = db.hashMap(GUILD_USER_STATS_TABLE_NAME, Serializer.STRING, Serializer.BYTE_ARRAY)
+		this.userTriviaStatsTable = db.treeMap(USER_TRIVIA_STATS_TABLE_NAME,
+				USER_TRIVIA_STATS_KEY_SERIALIZER, new UserTriviaStatsSerializer())
+				.createOrOpen();
+		this.topicStatsTable = db.treeMap(TOPIC_STATS_TABLE_NAME,
+				TOPIC_STATS_KEY_SERIALIZER, new TopicStatsSerializer())
+				.createOrOpen();
+		this.topicLeaderboardTable = db.treeMap(TOPIC_LEADERBOARD_TABLE_NAME,
+				new SerializerArrayTuple(Serializer.LONG, Serializer.STRING, Serializer.LONG, Serializer.LONG), Serializer.LONG)
 				.createOrOpen();
+		this.guildLeaderboardTable = db.treeMap(GUILD_LEADERBOARD_TABLE_NAME,
+				new SerializerArrayTuple(Serializer.LONG, Serializer.LONG, Serializer.LONG), Serializer.LONG)
+				.createOrOpen();
+		
+		// Otherwise, rolling back the first write would also roll back the creation of the table.
+		db.commit();
+		
+		migrateGuildUserStats();
+		convertFromJson(JSON_USER_TRIVIA_STATS_TABLE_NAME, USER_TRIVIA_STATS_KEY_SERIALIZER, userTriviaStatsTable,
+				UserTriviaStats.class);
+		convertFromJson(JSON_TOPIC_STATS_TABLE_NAME, TOPIC_STATS_KEY_SERIALIZER, topicStatsTable, TopicStats.class);
+		buildTopicStats();
+		buildLeaderboards();
 	}
 	
 	@Override
 	public void addUserTriviaStats(long guildId, long userId, UserTriviaStats triviaStats) {
 		Preconditions.checkNotNull(triviaStats, "triviaStats must be non-null.");
 		
-		String key = getGuildUserTriviaStatsKey(guildId, userId);
+		addUserTriviaStats(ImmutableList.of(new UserTriviaStatsUpdate(guildId, userId, triviaStats)));
+	}
+	
+	@Override
+	public synchronized void addUserTriviaStats(List<UserTriviaStatsUpdate> updates) {
+		Preconditions.checkNotNull(updates, "updates must be non-null.");
 		
-		byte[] serializedGuildUserStats = guildUserStatsTable.computeIfAbsent(key, k -> {
+		boolean committed = false;
+		try {
+			for (UserTriviaStatsUpdate update : updates) {
+				put(update.getGuildId(), update.getUserId(), update.getTriviaStats());
+				addToRollups(update.getGuildId(), update.getUserId(), update.getTriviaStats());
+			}
 			
-			GuildUserStats guserStats = new GuildUserStats(guildId, userId, new ArrayList<>());
-			try {
-				return objMapper.writeValueAsBytes(guserStats);
-			} catch (JsonProcessingException e) {
-				throw new UncheckedIOException(e);
+			db.commit();
+			committed = true;
+		} finally {
+			if (!committed) {
+				db.rollback();
 			}
-		});
+		}
+	}
+	
+	@Override
+	public Optional<GuildUserStats> getUserTriviaStats(long guildId, long userId) {
+		Map<Object[], UserTriviaStats> userEntries = userTriviaStatsTable.prefixSubMap(new Object[] { guildId, userId });
+		if (userEntries.isEmpty()) {
+			return Optional.empty();
+		}
 		
+		return Optional.of(new GuildUserStats(guildId, userId, new ArrayList<>(userEntries.values())));
+	}
+	
+	@Override
+	public List<TopicStats> getTopicStats(long guildId, long userId) {
+		Map<Object[], TopicStats> userEntries = topicStatsTable.prefixSubMap(new Object[] { guildId, userId });
+		return new ArrayList<>(userEntries.values());
+	}
+	
+	@Override
+	public List<LeaderboardEntry> getLeaderboard(long guildId, String topicName, int limit) {
+		Preconditions.checkArgument(limit > 0, "limit must be positive.");
 		
-		try {
-			GuildUserStats guildUserStats = objMapper.readValue(serializedGuildUserStats, GuildUserStats.class);
-			
-			guildUserStats.getTriviaStats().add(triviaStats);
-			
-			byte[] newSerializedGuildUserStats = objMapper.writeValueAsBytes(guildUserStats);
+		NavigableMap<Object[], Long> guildEntries = topicName == null
+				? guildLeaderboardTable.prefixSubMap(new Object[] { guildId })
+				: topicLeaderboardTable.prefixSubMap(new Object[] { guildId, topicName });
+		
+		List<LeaderboardEntry> leaderboard = new ArrayList<>(limit);
+		for (Entry<Object[], Long> entry : guildEntries.descendingMap().entrySet()) {
+			if (leaderboard.size() == limit) {
+				break;
+			}
 			
-			guildUserStatsTable.put(key, newSerializedGuildUserStats);
-		} catch (IOException e) {
-			throw new UncheckedIOException(e);
+			// The points and user ID are always the last two elements of the key.
+			Object[] key = entry.getKey();
+			leaderboard.add(new LeaderboardEntry((Long) key[key.length - 1], (Long) key[key.length - 2], entry.getValue()));
 		}
+		
+		return leaderboard;
 	}
 	
-	@Override
-	public Optional<GuildUserStats> getUserTriviaStats(long guildId, long userId) {
+	/**
+	 * Adds a round to the user's {@link TopicStats} and moves the user to
+	 * their new places on the leaderboards.
+	 */
+	private void addToRollups(long guildId, long userId, UserTriviaStats triviaStats) {
+		String topicName = triviaStats.getTopicName();
 		
-		String key = getGuildUserTriviaStatsKey(guildId, userId);
-		byte[] serializedValue = guildUserStatsTable.get(key);
-		if (serializedValue == null) {
-			return Optional.empty();
-		} else {
+		// The user's totals across all topics, before this round.
+		long totalPoints = 0;
+		long totalPlays = 0;
+		for (TopicStats topicStats : getTopicStats(guildId, userId)) {
+			totalPoints += topicStats.getEarnedPoints();
+			totalPlays += topicStats.getPlays();
+		}
+		
+		Object[] key = new Object[] { guildId, userId, topicName };
+		TopicStats previous = topicStatsTable.get(key);
+		if (previous == null) {
+			previous = TopicStats.empty(topicName);
+		}
+		TopicStats updated = previous.plus(triviaStats);
+		
+		topicStatsTable.put(key, updated);
+		
+		topicLeaderboardTable.remove(new Object[] { guildId, topicName, previous.getEarnedPoints(), userId });
+		topicLeaderboardTable.put(new Object[] { guildId, topicName, updated.getEarnedPoints(), userId }, updated.getPlays());
+		
+		long earnedPoints = updated.getEarnedPoints() - previous.getEarnedPoints();
+		guildLeaderboardTable.remove(new Object[] { guildId, totalPoints, userId });
+		guildLeaderboardTable.put(new Object[] { guildId, totalPoints + earnedPoints, userId }, totalPlays + 1);
+	}
+	
+	private void put(long guildId, long userId, UserTriviaStats triviaStats) {
+		// Stats which ended at the same instant are kept in the order they were added.
+		long endedAt = toKeyTime(triviaStats.getEndedAt());
+		while (userTriviaStatsTable.putIfAbsent(new Object[] { guildId, userId, endedAt }, triviaStats) != null) {
+			endedAt++;
+		}
+	}
+	
+	/**
+	 * Converts the time to nanoseconds, for sorting. The time zone does not
+	 * matter, as long as it is always the same one.
+	 */
+	private static long toKeyTime(LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano();
+	}
+	
+	/**
+	 * Moves stats from the old table, which had one {@link GuildUserStats} JSON
+	 * blob per user, into the sorted table. Each user is moved in its own
+	 * transaction, so an interrupted migration picks up where it left off.
+	 */
+	private void migrateGuildUserStats() {
+		if (!db.exists(GUILD_USER_STATS_TABLE_NAME)) {
+			return;
+		}
+		
+		Map<String, byte[]> guildUserStatsTable = db.hashMap(GUILD_USER_STATS_TABLE_NAME, Serializer.STRING, Serializer.BYTE_ARRAY)
+				.open();
+		if (guildUserStatsTable.isEmpty()) {
+			return;
+		}
+		
+		LOG.info("Migrating the stats of {} users.", guildUserStatsTable.size());
+		
+		for (String key : new ArrayList<>(guildUserStatsTable.keySet())) {
+			boolean committed = false;
 			try {
-				GuildUserStats result = objMapper.readValue(serializedValue, GuildUserStats.class);
-				return Optional.of(result);
+				GuildUserStats guildUserStats = objMapper.readValue(guildUserStatsTable.get(key), GuildUserStats.class);
+				for (UserTriviaStats triviaStats : guildUserStats.getTriviaStats()) {
+					put(guildUserStats.getGuildId(), guildUserStats.getUserId(), triviaStats);
+				}
+				guildUserStatsTable.remove(key);
+				
+				db.commit();
+				committed = true;
 			} catch (IOException e) {
-				throw new UncheckedIOException(e);
+				throw new UncheckedIOException("Unable to migrate the stats at " + key, e);
+			} finally {
+				if (!committed) {
+					db.rollback();
+				}
 			}
 		}
+		
+		LOG.info("Migrated stats to the {} table.", USER_TRIVIA_STATS_TABLE_NAME);
 	}
 	
-	private String getGuildUserTriviaStatsKey(long guildId, long userId) {
-		return Long.toString(guildId) + "_" + Long.toString(userId);
+	/**
+	 * Converts the entries of a table which stored values as JSON into the
+	 * table which stores them in binary, keeping their keys. Converted entries
+	 * are removed from the JSON table in the same transaction, a batch at a
+	 * time, so an interrupted conversion picks up where it left off.
+	 */
+	private <T> void convertFromJson(String jsonTableName, SerializerArrayTuple keySerializer,
+			BTreeMap<Object[], T> binaryTable, Class<T> valueType) {
+		if (!db.exists(jsonTableName)) {
+			return;
+		}
+		
+		Map<Object[], byte[]> jsonTable = db.treeMap(jsonTableName, keySerializer, Serializer.BYTE_ARRAY).open();
+		if (jsonTable.isEmpty()) {
+			return;
+		}
+		
+		LOG.info("Converting {} entries of the {} table from JSON.", jsonTable.size(), jsonTableName);
+		
+		List<Entry<Object[], byte[]>> batch = new ArrayList<>(JSON_CONVERSION_BATCH_SIZE);
+		while (!jsonTable.isEmpty()) {
+			for (Entry<Object[], byte[]> entry : jsonTable.entrySet()) {
+				if (batch.size() == JSON_CONVERSION_BATCH_SIZE) {
+					break;
+				}
+				batch.add(entry);
+			}
+			
+			boolean committed = false;
+			try {
+				for (Entry<Object[], byte[]> entry : batch) {
+					binaryTable.put(entry.getKey(), objMapper.readValue(entry.getValue(), valueType));
+					jsonTable.remove(entry.getKey());
+				}
+				
+				db.commit();
+				committed = true;
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to convert the " + jsonTableName + " table.", e);
+			} finally {
+				if (!committed) {
+					db.rollback();
+				}
+			}
+			
+			batch.clear();
+		}
+		
+		LOG.info("Converted the {} table.", jsonTableName);
 	}
-
+	
+	/**
+	 * Builds the {@link TopicStats} of every user from their stats, if there
+	 * are stats from before topic stats were kept. This is done in a single
+	 * transaction, so that it either finishes or is started over.
+	 */
+	private void buildTopicStats() {
+		if (!topicStatsTable.isEmpty() || userTriviaStatsTable.isEmpty()) {
+			return;
+		}
+		
+		LOG.info("Building topic stats from {} rounds.", userTriviaStatsTable.size());
+		
+		Map<Object[], UserTriviaStats> allStats = userTriviaStatsTable;
+		boolean committed = false;
+		try {
+			for (Entry<Object[], UserTriviaStats> entry : allStats.entrySet()) {
+				long guildId = (Long) entry.getKey()[0];
+				long userId = (Long) entry.getKey()[1];
+				addToRollups(guildId, userId, entry.getValue());
+			}
+			
+			db.commit();
+			committed = true;
+		} finally {
+			if (!committed) {
+				db.rollback();
+			}
+		}
+		
+		LOG.info("Built topic stats.");
+	}
+	
+	/**
+	 * Builds the leaderboards from the {@link TopicStats}, if there are topic
+	 * stats from before leaderboards were kept. This is done in a single
+	 * transaction, so that it either finishes or is started over.
+	 */
+	private void buildLeaderboards() {
+		if (!topicLeaderboardTable.isEmpty() || topicStatsTable.isEmpty()) {
+			return;
+		}
+		
+		LOG.info("Building leaderboards from {} topic stats.", topicStatsTable.size());
+		
+		// Topic stats are sorted by guild and user, so each user's totals are complete once the next user is reached.
+		Map<Object[], TopicStats> allTopicStats = topicStatsTable;
+		Long currentGuildId = null;
+		Long currentUserId = null;
+		long totalPoints = 0;
+		long totalPlays = 0;
+		
+		boolean committed = false;
+		try {
+			for (Entry<Object[], TopicStats> entry : allTopicStats.entrySet()) {
+				Long guildId = (Long) entry.getKey()[0];
+				Long userId = (Long) entry.getKey()[1];
+				TopicStats topicStats = entry.getValue();
+				
+				if (currentUserId != null && !(guildId.equals(currentGuildId) && userId.equals(currentUserId))) {
+					guildLeaderboardTable.put(new Object[] { currentGuildId, totalPoints, currentUserId }, totalPlays);
+					totalPoints = 0;
+					totalPlays = 0;
+				}
+				currentGuildId = guildId;
+				currentUserId = userId;
+				totalPoints += topicStats.getEarnedPoints();
+				totalPlays += topicStats.getPlays();
+				
+				topicLeaderboardTable.put(
+						new Object[] { guildId, topicStats.getTopicName(), topicStats.getEarnedPoints(), userId },
+						topicStats.getPlays());
+			}
+			
+			if (currentUserId != null) {
+				guildLeaderboardTable.put(new Object[] { currentGuildId, totalPoints, currentUserId }, totalPlays);
+			}
+			
+			db.commit();
+			committed = true;
+		} finally {
+			if (!committed) {
+				db.rollback();
+			}
+		}
+		
+		LOG.info("Built leaderboards.");
+	}
+	
 	@Override
 	public void close() {
 		db.close();
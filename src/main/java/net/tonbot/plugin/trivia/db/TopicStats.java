@@ -0,0 +1,96 @@
+package net.tonbot.plugin.trivia.db;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+import net.tonbot.plugin.trivia.RoundRecord;
+
+/**
+ * A user's totals for one topic, across every round they have played of it.
+ */
+@Data
+public class TopicStats {
+
+	@JsonProperty("topicName")
+	private final String topicName;
+	
+	// The number of rounds played.
+	@JsonProperty("plays")
+	private final long plays;
+	
+	@JsonProperty("earnedPoints")
+	private final long earnedPoints;
+	
+	@JsonProperty("possiblePoints")
+	private final long possiblePoints;
+	
+	@JsonProperty("correctQuestions")
+	private final long correctQuestions;
+	
+	@JsonProperty("totalQuestions")
+	private final long totalQuestions;
+	
+	// The sum and count of the times taken to correctly answer questions, where the time was recorded.
+	@JsonProperty("answerTimeSumMs")
+	private final long answerTimeSumMs;
+	
+	@JsonProperty("answerTimeCount")
+	private final long answerTimeCount;
+	
+	@JsonCreator
+	TopicStats(
+			@JsonProperty("topicName") String topicName,
+			@JsonProperty("plays") long plays,
+			@JsonProperty("earnedPoints") long earnedPoints,
+			@JsonProperty("possiblePoints") long possiblePoints,
+			@JsonProperty("correctQuestions") long correctQuestions,
+			@JsonProperty("totalQuestions") long totalQuestions,
+			@JsonProperty("answerTimeSumMs") long answerTimeSumMs,
+			@JsonProperty("answerTimeCount") long answerTimeCount) {
+		this.topicName = Preconditions.checkNotNull(topicName, "topicName must be non-null.");
+		this.plays = plays;
+		this.earnedPoints = earnedPoints;
+		this.possiblePoints = possiblePoints;
+		this.correctQuestions = correctQuestions;
+		this.totalQuestions = totalQuestions;
+		this.answerTimeSumMs = answerTimeSumMs;
+		this.answerTimeCount = answerTimeCount;
+	}
+	
+	/**
+	 * Creates the stats of a topic that has not been played yet.
+	 * 
+	 * @param topicName
+	 *            The topic name. Non-null.
+	 * @return {@link TopicStats}.
+	 */
+	static TopicStats empty(String topicName) {
+		return new TopicStats(topicName, 0, 0, 0, 0, 0, 0, 0);
+	}
+	
+	/**
+	 * Adds one round to these stats.
+	 * 
+	 * @param triviaStats
+	 *            The round's {@link UserTriviaStats}. Must be for the same topic.
+	 *            Non-null.
+	 * @return The new {@link TopicStats}.
+	 */
+	TopicStats plus(UserTriviaStats triviaStats) {
+		Preconditions.checkNotNull(triviaStats, "triviaStats must be non-null.");
+		Preconditions.checkArgument(topicName.equals(triviaStats.getTopicName()), "triviaStats must be for the same topic.");
+		
+		RoundRecord roundRecord = triviaStats.getRoundRecord();
+		return new TopicStats(
+				topicName,
+				plays + 1,
+				earnedPoints + roundRecord.getTotalEarnedScore(),
+				possiblePoints + roundRecord.getTotalPossibleScore(),
+				correctQuestions + roundRecord.getTotalCorrectlyAnsweredQuestions(),
+				totalQuestions + roundRecord.getTotalQuestions(),
+				answerTimeSumMs + roundRecord.getTotalTimeToAnswerMs(),
+				answerTimeCount + roundRecord.getTotalTimedAnswers());
+	}
+}
@@ -0,0 +1,85 @@
+package net.tonbot.plugin.trivia.db;
+
+import java.io.IOException;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+/**
+ * MapDB serializer which stores {@link TopicStats} in a compact binary form: a
+ * format version byte, the topic name, then each count, packed. When a B-tree
+ * node of values is written, the version is written once for the whole node.
+ */
+class TopicStatsSerializer extends GroupSerializerObjectArray<TopicStats> {
+
+	static final int VERSION = 1;
+	
+	@Override
+	public void serialize(DataOutput2 out, TopicStats value) throws IOException {
+		out.writeByte(VERSION);
+		write(out, value);
+	}
+	
+	@Override
+	public TopicStats deserialize(DataInput2 in, int available) throws IOException {
+		checkVersion(in.readUnsignedByte());
+		return read(in);
+	}
+	
+	@Override
+	public void valueArraySerialize(DataOutput2 out, Object vals) throws IOException {
+		Object[] values = (Object[]) vals;
+		if (values.length == 0) {
+			return;
+		}
+		
+		out.writeByte(VERSION);
+		for (Object value : values) {
+			write(out, (TopicStats) value);
+		}
+	}
+	
+	@Override
+	public Object[] valueArrayDeserialize(DataInput2 in, int size) throws IOException {
+		Object[] vals = new Object[size];
+		if (size == 0) {
+			return vals;
+		}
+		
+		checkVersion(in.readUnsignedByte());
+		for (int i = 0; i < size; i++) {
+			vals[i] = read(in);
+		}
+		return vals;
+	}
+	
+	private static void write(DataOutput2 out, TopicStats value) throws IOException {
+		out.writeUTF(value.getTopicName());
+		out.packLong(value.getPlays());
+		out.packLong(value.getEarnedPoints());
+		out.packLong(value.getPossiblePoints());
+		out.packLong(value.getCorrectQuestions());
+		out.packLong(value.getTotalQuestions());
+		out.packLong(value.getAnswerTimeSumMs());
+		out.packLong(value.getAnswerTimeCount());
+	}
+	
+	private static TopicStats read(DataInput2 in) throws IOException {
+		return new TopicStats(
+				in.readUTF(),
+				in.unpackLong(),
+				in.unpackLong(),
+				in.unpackLong(),
+				in.unpackLong(),
+				in.unpackLong(),
+				in.unpackLong(),
+				in.unpackLong());
+	}
+	
+	private static void checkVersion(int version) throws IOException {
+		if (version != VERSION) {
+			throw new IOException("Unknown topic stats format version " + version);
+		}
+	}
+}
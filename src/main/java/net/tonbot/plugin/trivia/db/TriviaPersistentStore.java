@@ -1,5 +1,6 @@
 package net.tonbot.plugin.trivia.db;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface TriviaPersistentStore {
@@ -12,6 +13,12 @@ public interface TriviaPersistentStore {
 	 */
 	void addUserTriviaStats(long guildId, long userId, UserTriviaStats triviaStats);
 	
+	/**
+	 * Adds many {@link UserTriviaStats} at once, such as everyone's stats at the end of a round. Either all of them are added or none are.
+	 * @param updates The {@link UserTriviaStatsUpdate}s. Non-null.
+	 */
+	void addUserTriviaStats(List<UserTriviaStatsUpdate> updates);
+	
 	/**
 	 * Gets a user's trivia stats. 
 	 * @param guild Guild ID.
@@ -20,6 +27,23 @@ public interface TriviaPersistentStore {
 	 */
 	Optional<GuildUserStats> getUserTriviaStats(long guild, long userId);
 	
+	/**
+	 * Gets a user's totals for each topic that they have played. These are kept up to date as stats are added, so this does not read the user's history.
+	 * @param guildId Guild ID.
+	 * @param userId User ID.
+	 * @return The {@link TopicStats}, ordered by topic name. Empty if the user has not played.
+	 */
+	List<TopicStats> getTopicStats(long guildId, long userId);
+	
+	/**
+	 * Gets the users in a guild who have earned the most points. The leaderboards are kept up to date as stats are added, so this does not read any user's history.
+	 * @param guildId Guild ID.
+	 * @param topicName The topic name, or null to rank users by their points across all topics.
+	 * @param limit The maximum number of users to get. Must be positive.
+	 * @return The {@link LeaderboardEntry}s, with the most points first.
+	 */
+	List<LeaderboardEntry> getLeaderboard(long guildId, String topicName, int limit);
+	
 	/**
 	 * Closes the store.
 	 */
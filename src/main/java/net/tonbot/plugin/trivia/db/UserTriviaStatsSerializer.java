@@ -0,0 +1,123 @@
+package net.tonbot.plugin.trivia.db;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.mapdb.DataInput2;
+import org.mapdb.DataOutput2;
+import org.mapdb.serializer.GroupSerializerObjectArray;
+
+import net.tonbot.plugin.trivia.RoundRecordCodec;
+
+/**
+ * MapDB serializer which stores {@link UserTriviaStats} in a compact binary
+ * form.
+ * <p>
+ * Values start with a format version byte. When a B-tree node of values is
+ * written, the version is written once for the whole node, and each value is
+ * written relative to the value before it: the topic name is left out if it
+ * is the same, and the end time is written as the difference in seconds. A
+ * user's stats are sorted by their end time, so the difference is usually
+ * small.
+ * <p>
+ * Layout of a value:
+ * <ul>
+ * <li>Flags: whether the topic name is the same as the previous value's.</li>
+ * <li>The topic name, unless it is the same.</li>
+ * <li>The end time in UTC: seconds since the previous value's end time (or
+ * since the epoch), zigzag encoded and packed; then nanoseconds, packed.</li>
+ * <li>The round record. See {@link RoundRecordCodec}.</li>
+ * </ul>
+ */
+class UserTriviaStatsSerializer extends GroupSerializerObjectArray<UserTriviaStats> {
+
+	static final int VERSION = 1;
+	
+	private static final int SAME_TOPIC = 1;
+	
+	@Override
+	public void serialize(DataOutput2 out, UserTriviaStats value) throws IOException {
+		out.writeByte(VERSION);
+		write(out, value, null);
+	}
+	
+	@Override
+	public UserTriviaStats deserialize(DataInput2 in, int available) throws IOException {
+		checkVersion(in.readUnsignedByte());
+		return read(in, null);
+	}
+	
+	@Override
+	public void valueArraySerialize(DataOutput2 out, Object vals) throws IOException {
+		Object[] values = (Object[]) vals;
+		if (values.length == 0) {
+			return;
+		}
+		
+		out.writeByte(VERSION);
+		
+		UserTriviaStats previous = null;
+		for (Object value : values) {
+			UserTriviaStats triviaStats = (UserTriviaStats) value;
+			write(out, triviaStats, previous);
+			previous = triviaStats;
+		}
+	}
+	
+	@Override
+	public Object[] valueArrayDeserialize(DataInput2 in, int size) throws IOException {
+		Object[] vals = new Object[size];
+		if (size == 0) {
+			return vals;
+		}
+		
+		checkVersion(in.readUnsignedByte());
+		
+		UserTriviaStats previous = null;
+		for (int i = 0; i < size; i++) {
+			previous = read(in, previous);
+			vals[i] = previous;
+		}
+		return vals;
+	}
+	
+	private static void write(DataOutput2 out, UserTriviaStats value, UserTriviaStats previous) throws IOException {
+		boolean sameTopic = previous != null && previous.getTopicName().equals(value.getTopicName());
+		out.writeByte(sameTopic ? SAME_TOPIC : 0);
+		if (!sameTopic) {
+			out.writeUTF(value.getTopicName());
+		}
+		
+		long previousSeconds = previous == null ? 0 : previous.getEndedAt().toEpochSecond(ZoneOffset.UTC);
+		out.packLong(zigzag(value.getEndedAt().toEpochSecond(ZoneOffset.UTC) - previousSeconds));
+		out.packInt(value.getEndedAt().getNano());
+		
+		RoundRecordCodec.write(out, value.getRoundRecord());
+	}
+	
+	private static UserTriviaStats read(DataInput2 in, UserTriviaStats previous) throws IOException {
+		int flags = in.readUnsignedByte();
+		String topicName = (flags & SAME_TOPIC) != 0 ? previous.getTopicName() : in.readUTF();
+		
+		long previousSeconds = previous == null ? 0 : previous.getEndedAt().toEpochSecond(ZoneOffset.UTC);
+		long seconds = previousSeconds + unzigzag(in.unpackLong());
+		LocalDateTime endedAt = LocalDateTime.ofEpochSecond(seconds, in.unpackInt(), ZoneOffset.UTC);
+		
+		return new UserTriviaStats(topicName, endedAt, RoundRecordCodec.read(in));
+	}
+	
+	private static void checkVersion(int version) throws IOException {
+		if (version != VERSION) {
+			throw new IOException("Unknown user trivia stats format version " + version);
+		}
+	}
+	
+	private static long zigzag(long n) {
+		return (n << 1) ^ (n >> 63);
+	}
+	
+	private static long unzigzag(long n) {
+		return (n >>> 1) ^ -(n & 1);
+	}
+}
@@ -0,0 +1,22 @@
+package net.tonbot.plugin.trivia.db;
+
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * A {@link UserTriviaStats} to be added to a user's {@link GuildUserStats}.
+ */
+@Data
+public class UserTriviaStatsUpdate {
+	
+	private final long guildId;
+	private final long userId;
+	private final UserTriviaStats triviaStats;
+	
+	public UserTriviaStatsUpdate(long guildId, long userId, UserTriviaStats triviaStats) {
+		this.guildId = guildId;
+		this.userId = userId;
+		this.triviaStats = Preconditions.checkNotNull(triviaStats, "triviaStats must be non-null.");
+	}
+}
@@ -0,0 +1,228 @@
+package net.tonbot.plugin.trivia.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * A {@link TriviaPersistentStore} which queues up new stats and writes them to
+ * another store on a background thread, so that ending a round does not wait
+ * on the disk. Writes which queue up while the previous batch is being written
+ * are passed to the other store together, in a single call to
+ * {@link TriviaPersistentStore#addUserTriviaStats(List)}.
+ * <p>
+ * The queue is bounded. When it is full, adding stats blocks until the writer
+ * catches up. Reads wait for stats that were added before them to be written.
+ * Closing the store writes everything that is still queued.
+ * <p>
+ * This class is thread safe.
+ */
+public class WriteBehindTriviaPersistentStore implements TriviaPersistentStore {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(WriteBehindTriviaPersistentStore.class);
+	
+	// How often the writer checks whether the store has been closed while the queue is empty.
+	private static final long POLL_INTERVAL_MS = 100;
+	
+	private static final long CLOSE_TIMEOUT_MS = 30000;
+	
+	private final TriviaPersistentStore store;
+	private final int maxBatchSize;
+	private final BlockingQueue<List<UserTriviaStatsUpdate>> queue;
+	private final ExecutorService writerExecutor;
+	
+	// The number of writes that have been queued, or are about to be.
+	private final AtomicLong queuedCount;
+	
+	// Held for reading while adding, and for writing while closing, so that nothing is added after the writer has
+	// seen the store closed and the queue empty.
+	private final ReadWriteLock closeLock;
+	
+	// The number of writes that have been written or have failed. Guarded by this.
+	private long writtenCount;
+	
+	private volatile boolean closed;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param store
+	 *            The store to write to. Non-null.
+	 * @param queueCapacity
+	 *            The most writes that can be waiting to be written. Must be
+	 *            positive.
+	 * @param maxBatchSize
+	 *            The most writes to pass to the other store at once. Must be
+	 *            positive.
+	 */
+	public WriteBehindTriviaPersistentStore(TriviaPersistentStore store, int queueCapacity, int maxBatchSize) {
+		this.store = Preconditions.checkNotNull(store, "store must be non-null.");
+		Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive.");
+		Preconditions.checkArgument(maxBatchSize > 0, "maxBatchSize must be positive.");
+		
+		this.maxBatchSize = maxBatchSize;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.queuedCount = new AtomicLong(0);
+		this.closeLock = new ReentrantReadWriteLock();
+		this.writtenCount = 0;
+		this.closed = false;
+		
+		this.writerExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+				.setNameFormat("Trivia Stats Writer")
+				.setDaemon(true)
+				.build());
+		this.writerExecutor.execute(this::writeQueued);
+	}
+	
+	@Override
+	public void addUserTriviaStats(long guildId, long userId, UserTriviaStats triviaStats) {
+		Preconditions.checkNotNull(triviaStats, "triviaStats must be non-null.");
+		
+		addUserTriviaStats(ImmutableList.of(new UserTriviaStatsUpdate(guildId, userId, triviaStats)));
+	}
+	
+	@Override
+	public void addUserTriviaStats(List<UserTriviaStatsUpdate> updates) {
+		Preconditions.checkNotNull(updates, "updates must be non-null.");
+		
+		if (updates.isEmpty()) {
+			Preconditions.checkState(!closed, "The store is closed.");
+			return;
+		}
+		
+		List<UserTriviaStatsUpdate> write = ImmutableList.copyOf(updates);
+		
+		closeLock.readLock().lock();
+		try {
+			Preconditions.checkState(!closed, "The store is closed.");
+			
+			// Counted before it is queued, so that a read never expects fewer writes than the writer may have done.
+			queuedCount.incrementAndGet();
+			if (!queue.offer(write)) {
+				LOG.warn("The stats queue is full. Waiting for the writer to catch up.");
+				Uninterruptibles.putUninterruptibly(queue, write);
+			}
+		} finally {
+			closeLock.readLock().unlock();
+		}
+	}
+	
+	@Override
+	public Optional<GuildUserStats> getUserTriviaStats(long guildId, long userId) {
+		awaitWritten(queuedCount.get());
+		return store.getUserTriviaStats(guildId, userId);
+	}
+	
+	@Override
+	public List<TopicStats> getTopicStats(long guildId, long userId) {
+		awaitWritten(queuedCount.get());
+		return store.getTopicStats(guildId, userId);
+	}
+	
+	@Override
+	public List<LeaderboardEntry> getLeaderboard(long guildId, String topicName, int limit) {
+		awaitWritten(queuedCount.get());
+		return store.getLeaderboard(guildId, topicName, limit);
+	}
+	
+	/**
+	 * Writes everything that is still queued, then closes the other store.
+	 */
+	@Override
+	public void close() {
+		closeLock.writeLock().lock();
+		try {
+			closed = true;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+		
+		writerExecutor.shutdown();
+		try {
+			if (!writerExecutor.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+				LOG.error("Timed out while waiting for the stats writer. {} writes were not saved.", queue.size());
+			}
+		} catch (InterruptedException e) {
+			LOG.error("Interrupted while waiting for the stats writer. {} writes were not saved.", queue.size());
+			Thread.currentThread().interrupt();
+		}
+		
+		store.close();
+	}
+	
+	private void writeQueued() {
+		List<List<UserTriviaStatsUpdate>> batch = new ArrayList<>(maxBatchSize);
+		
+		while (!closed || !queue.isEmpty()) {
+			List<UserTriviaStatsUpdate> first;
+			try {
+				first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				// Nothing interrupts the writer, other than the JVM shutting down.
+				return;
+			}
+			
+			if (first == null) {
+				continue;
+			}
+			
+			batch.add(first);
+			queue.drainTo(batch, maxBatchSize - 1);
+			
+			write(batch);
+			
+			synchronized (this) {
+				writtenCount += batch.size();
+				notifyAll();
+			}
+			
+			batch.clear();
+		}
+	}
+	
+	private void write(List<List<UserTriviaStatsUpdate>> batch) {
+		List<UserTriviaStatsUpdate> updates = new ArrayList<>();
+		for (List<UserTriviaStatsUpdate> write : batch) {
+			updates.addAll(write);
+		}
+		
+		try {
+			store.addUserTriviaStats(updates);
+		} catch (RuntimeException e) {
+			LOG.error("Unable to save {} stats.", updates.size(), e);
+		}
+	}
+	
+	private synchronized void awaitWritten(long count) {
+		boolean interrupted = false;
+		try {
+			while (writtenCount < count && !writerExecutor.isTerminated()) {
+				try {
+					wait(POLL_INTERVAL_MS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -1,8 +1,10 @@
 package net.tonbot.plugin.trivia.model;
 
+import java.util.Collections;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
@@ -14,11 +16,49 @@ import lombok.Data;
 public class QuestionTemplateBundle {
 
 	private final List<QuestionTemplate> questionTemplates;
+	
+	// Counted up front, so that finding out whether a round needs audio never has to go through the questions.
+	@JsonIgnore
+	private final int musicIdQuestionCount;
 
 	@Builder
 	@JsonCreator
 	public QuestionTemplateBundle(@JsonProperty("questions") List<QuestionTemplate> questionTemplates) {
 		Preconditions.checkNotNull(questionTemplates, "questionTemplates must be non-null.");
 		this.questionTemplates = ImmutableList.copyOf(questionTemplates);
+		this.musicIdQuestionCount = (int) this.questionTemplates.stream()
+				.filter(qt -> qt instanceof MusicIdQuestionTemplate)
+				.count();
+	}
+	
+	private QuestionTemplateBundle(List<QuestionTemplate> questionTemplates, int musicIdQuestionCount) {
+		this.questionTemplates = Collections.unmodifiableList(questionTemplates);
+		this.musicIdQuestionCount = musicIdQuestionCount;
+	}
+	
+	/**
+	 * Creates a bundle which wraps the given list without copying it. This allows
+	 * questions to be decoded on demand by the list's {@code get} method.
+	 * 
+	 * @param questionTemplates
+	 *            The question templates. Must not be modified afterwards and must
+	 *            not contain nulls. Non-null.
+	 * @param musicIdQuestionCount
+	 *            The number of {@link MusicIdQuestionTemplate}s in the list.
+	 *            Non-negative.
+	 * @return A new {@link QuestionTemplateBundle}.
+	 */
+	public static QuestionTemplateBundle wrap(List<QuestionTemplate> questionTemplates, int musicIdQuestionCount) {
+		Preconditions.checkNotNull(questionTemplates, "questionTemplates must be non-null.");
+		Preconditions.checkArgument(musicIdQuestionCount >= 0, "musicIdQuestionCount must be non-negative.");
+		
+		return new QuestionTemplateBundle(questionTemplates, musicIdQuestionCount);
+	}
+	
+	/**
+	 * Whether there are any music ID questions, which need audio.
+	 */
+	public boolean hasMusicIdQuestions() {
+		return musicIdQuestionCount > 0;
 	}
 }
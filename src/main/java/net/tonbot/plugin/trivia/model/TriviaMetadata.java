@@ -28,6 +28,7 @@ public class TriviaMetadata {
 	private final List<List<String>> synonyms;
 	private final AudioCues audioCues;
 	private final Map<SongProperty, Long> songPropertyWeights;
+	private final TypoTolerance typoTolerance;
 
 	@Builder
 	@JsonCreator
@@ -40,7 +41,8 @@ public class TriviaMetadata {
 			@JsonProperty("defaultTimePerQuestion") long defaultTimePerQuestion,
 			@JsonProperty("synonyms") List<List<String>> synonyms,
 			@JsonProperty("audioCues") AudioCues audioCues,
-			@JsonProperty("songPropertyWeights") Map<SongProperty, Long> songPropertyWeights) {
+			@JsonProperty("songPropertyWeights") Map<SongProperty, Long> songPropertyWeights,
+			@JsonProperty("typoTolerance") TypoTolerance typoTolerance) {
 		Preconditions.checkArgument(!StringUtils.isBlank(name), "name must not be blank.");
 		Preconditions.checkArgument(!StringUtils.isBlank(version), "version must not be blank.");
 		Preconditions.checkArgument(!StringUtils.isBlank(description), "description must not be blank.");
@@ -56,6 +58,7 @@ public class TriviaMetadata {
 		this.synonyms = synonyms == null ? ImmutableList.of() : ImmutableList.copyOf(synonyms);
 		this.audioCues = audioCues;
 		this.songPropertyWeights = songPropertyWeights == null ? ImmutableMap.of() : ImmutableMap.copyOf(songPropertyWeights);
+		this.typoTolerance = typoTolerance;
 	}
 	
 	public Optional<AudioCues> getAudioCues() {
@@ -65,5 +68,9 @@ public class TriviaMetadata {
 	public Optional<String> getIconPath() {
 		return Optional.ofNullable(iconPath);
 	}
+	
+	public Optional<TypoTolerance> getTypoTolerance() {
+		return Optional.ofNullable(typoTolerance);
+	}
 
 }
@@ -0,0 +1,38 @@
+package net.tonbot.plugin.trivia.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+
+import lombok.Data;
+
+/**
+ * Controls how many typos are forgiven when matching typed answers.
+ */
+@Data
+public class TypoTolerance {
+	
+	private final int maxDistance;
+	private final int minLength;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param maxDistance
+	 *            The maximum Levenshtein distance between a guess and an answer
+	 *            for the guess to be accepted. Must be non-negative.
+	 * @param minLength
+	 *            Answers shorter than this are only accepted if they are typed
+	 *            exactly. Must be non-negative.
+	 */
+	@JsonCreator
+	public TypoTolerance(
+			@JsonProperty("maxDistance") int maxDistance,
+			@JsonProperty("minLength") int minLength) {
+		Preconditions.checkArgument(maxDistance >= 0, "maxDistance must be non-negative.");
+		Preconditions.checkArgument(minLength >= 0, "minLength must be non-negative.");
+		
+		this.maxDistance = maxDistance;
+		this.minLength = minLength;
+	}
+}
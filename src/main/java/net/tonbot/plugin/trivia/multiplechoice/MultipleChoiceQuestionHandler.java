@@ -28,6 +28,11 @@ public class MultipleChoiceQuestionHandler implements QuestionHandler {
 		return question;
 	}
 	
+	@Override
+	public void prefetch() {
+		// Nothing to prepare.
+	}
+
 	@Override
 	public void notifyStart(long questionNumber, long totalQuestions, long maxDurationMs) {
 
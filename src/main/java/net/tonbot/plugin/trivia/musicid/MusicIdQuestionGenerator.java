@@ -1,24 +1,22 @@
 package net.tonbot.plugin.trivia.musicid;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
-import org.jaudiotagger.audio.AudioFile;
-import org.jaudiotagger.audio.AudioFileIO;
-import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
-import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
-import org.jaudiotagger.tag.TagException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 
 import lombok.Data;
 import lombok.NonNull;
+import net.tonbot.plugin.trivia.AliasSampler;
 import net.tonbot.plugin.trivia.LoadedTrivia;
 import net.tonbot.plugin.trivia.QuestionGenerator;
 import net.tonbot.plugin.trivia.TriviaConfiguration;
@@ -28,13 +26,19 @@ import net.tonbot.plugin.trivia.model.SongPropertyData;
 
 public class MusicIdQuestionGenerator implements QuestionGenerator<MusicIdQuestionTemplate, MusicIdQuestion>{
 	
-	private final AudioFileIO audioFileIO;
+	private final SongTagIndex songTagIndex;
 	private final WeightedRandomPicker randomPicker;
 	
+	// Topic song property weights (by identity) to question template properties to their samplers.
+	private final LoadingCache<Map<SongProperty, Long>, Map<Set<SongProperty>, AliasSampler<SongProperty>>> samplers;
+	
 	@Inject
-	public MusicIdQuestionGenerator(AudioFileIO audioFileIO, WeightedRandomPicker randomPicker) {
+	public MusicIdQuestionGenerator(SongTagIndex songTagIndex, WeightedRandomPicker randomPicker) {
 		this.randomPicker = Preconditions.checkNotNull(randomPicker, "randomPicker must be non-null.");
-		this.audioFileIO = Preconditions.checkNotNull(audioFileIO, "audioFileIO must be non-null.");
+		this.songTagIndex = Preconditions.checkNotNull(songTagIndex, "songTagIndex must be non-null.");
+		this.samplers = CacheBuilder.newBuilder()
+				.weakKeys()
+				.build(CacheLoader.from(weights -> new ConcurrentHashMap<>()));
 	}
 	
 	@Override
@@ -42,12 +46,13 @@ public class MusicIdQuestionGenerator implements QuestionGenerator<MusicIdQuesti
 		Preconditions.checkNotNull(loadedTrivia, "loadedTrivia must be non-null.");
 		Preconditions.checkNotNull(questionTemplate, "questionTemplate must be non-null.");
 		
-		AudioFile audioFile = getAudioFile(questionTemplate, loadedTrivia);
+		File audioFile = new File(loadedTrivia.getTriviaTopicDir(), questionTemplate.getAudioPath());
+		SongTags songTags = songTagIndex.getTags(loadedTrivia.getTriviaTopicDir(), questionTemplate.getAudioPath());
 		
-		PropertyValues propertyValues = getRandomUsableTagValues(questionTemplate, audioFile, loadedTrivia);
+		PropertyValues propertyValues = getRandomUsableTagValues(questionTemplate, audioFile, songTags, loadedTrivia);
 		
 		return MusicIdQuestion.builder()
-				.audioFile(audioFile.getFile())
+				.audioFile(audioFile)
 				.propertyToAsk(propertyValues.getProperty())
 				.answers(propertyValues.getAnswers())
 				.points(questionTemplate.getPoints())
@@ -55,53 +60,52 @@ public class MusicIdQuestionGenerator implements QuestionGenerator<MusicIdQuesti
 		
 	}
 	
-	private PropertyValues getRandomUsableTagValues(MusicIdQuestionTemplate qt, AudioFile audioFile, LoadedTrivia loadedTrivia) {
+	private PropertyValues getRandomUsableTagValues(MusicIdQuestionTemplate qt, File audioFile, SongTags songTags, LoadedTrivia loadedTrivia) {
 		
 		Map<SongProperty, Long> propertyWeights = loadedTrivia.getTriviaTopic().getMetadata().getSongPropertyWeights();
 		
-		Map<SongProperty, Long> qtPropertyWeights = new HashMap<>();
-		
-		for (SongProperty sp : qt.getProperties().keySet()) {
-			qtPropertyWeights.put(sp, propertyWeights.getOrDefault(sp, null));
-		}
+		SongProperty propertyToAsk = randomPicker.pick(getSampler(propertyWeights, qt.getProperties().keySet()));
 		
-		SongProperty propertyToAsk = randomPicker.pick(qtPropertyWeights);
-		
-		List<String> answers = getAnswers(propertyToAsk, qt, audioFile);
+		List<String> answers = getAnswers(propertyToAsk, qt, songTags);
 		
 		if (answers.isEmpty()) {
 			throw new IllegalStateException("Unable to find any answers for property " + propertyToAsk 
-					+ "  for audio file " + audioFile.getFile().getAbsolutePath());	
+					+ "  for audio file " + audioFile.getAbsolutePath());	
 		}
 		
 		return new PropertyValues(propertyToAsk, answers);
 	}
 	
-	private List<String> getAnswers(SongProperty propertyToAsk, MusicIdQuestionTemplate qt, AudioFile audioFile) {
+	/**
+	 * Gets the sampler for the given topic weights and question properties, building it if necessary.
+	 */
+	private AliasSampler<SongProperty> getSampler(Map<SongProperty, Long> propertyWeights, Set<SongProperty> properties) {
+		Map<Set<SongProperty>, AliasSampler<SongProperty>> topicSamplers = 
+				samplers.getUnchecked(propertyWeights);
+		
+		AliasSampler<SongProperty> sampler = topicSamplers.get(properties);
+		if (sampler == null) {
+			Map<SongProperty, Long> qtPropertyWeights = new HashMap<>();
+			for (SongProperty sp : properties) {
+				qtPropertyWeights.put(sp, propertyWeights.getOrDefault(sp, null));
+			}
+			
+			sampler = AliasSampler.of(qtPropertyWeights);
+			topicSamplers.putIfAbsent(Sets.immutableEnumSet(properties), sampler);
+		}
+		
+		return sampler;
+	}
+	
+	private List<String> getAnswers(SongProperty propertyToAsk, MusicIdQuestionTemplate qt, SongTags songTags) {
 		SongPropertyData tagData = qt.getProperties().get(propertyToAsk);
 		
 		List<String> answers = tagData.getAnswers()
-			.orElseGet(() -> {
-				List<String> propertyValues = propertyToAsk.getFieldKey()
-						.map(fieldKey -> audioFile.getTag().getAll(fieldKey))
-						.orElse(ImmutableList.of());
-				
-				return propertyValues;
-			});
+			.orElseGet(() -> songTags.getAll(propertyToAsk));
 		
 		return answers;
 	}
 	
-	private AudioFile getAudioFile(MusicIdQuestionTemplate questionTemplate, LoadedTrivia loadedTrivia) {
-		try {
-			AudioFile audioFile = audioFileIO.readFile(new File(loadedTrivia.getTriviaTopicDir(), questionTemplate.getAudioPath()));
-			return audioFile;
-		} catch (CannotReadException | IOException | TagException | ReadOnlyFileException
-				| InvalidAudioFrameException e) {
-			throw new IllegalStateException("Unable to read audio file at " + questionTemplate.getAudioPath(), e);
-		}
-	}
-	
 	@Data
 	private static class PropertyValues {
 		@NonNull
@@ -1,22 +1,14 @@
 package net.tonbot.plugin.trivia.musicid;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
-import org.jaudiotagger.audio.AudioFile;
-import org.jaudiotagger.audio.AudioFileIO;
-import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
-import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
-import org.jaudiotagger.tag.TagException;
-
 import com.google.common.base.Preconditions;
 
+import net.tonbot.plugin.trivia.AnswerCandidates;
 import net.tonbot.plugin.trivia.FuzzyMatcher;
 import net.tonbot.plugin.trivia.LoadedTrivia;
 import net.tonbot.plugin.trivia.QuestionHandler;
@@ -25,25 +17,34 @@ import net.tonbot.plugin.trivia.TriviaListener;
 import net.tonbot.plugin.trivia.UserMessage;
 import net.tonbot.plugin.trivia.Win;
 import net.tonbot.plugin.trivia.model.Question;
+import net.tonbot.plugin.trivia.model.TriviaMetadata;
 
 public class MusicIdQuestionHandler implements QuestionHandler {
 	
 	private final MusicIdQuestion question;
 	private final TriviaListener listener;
 	private final FuzzyMatcher fuzzyMatcher;
-	private final AudioFileIO audioFileIO;
+	private final AnswerCandidates answerCandidates;
+	private final SongTagIndex songTagIndex;
+	private final File triviaTopicDir;
+	private final long maxDurationMs;
 	
 	public MusicIdQuestionHandler(
 			MusicIdQuestion question, 
 			TriviaConfiguration config,
 			TriviaListener listener,
 			LoadedTrivia loadedTrivia,
-			AudioFileIO audioFileIO) {
+			SongTagIndex songTagIndex) {
 		this.question = Preconditions.checkNotNull(question, "question must be non-null.");
 		this.listener = Preconditions.checkNotNull(listener, "listener must be non-null.");
+		Preconditions.checkNotNull(config, "config must be non-null.");
+		this.maxDurationMs = config.getDefaultTimePerQuestion();
 		Preconditions.checkNotNull(loadedTrivia, "loadedTrivia must be non-null.");
-		this.fuzzyMatcher = new FuzzyMatcher(loadedTrivia.getTriviaTopic().getMetadata().getSynonyms());
-		this.audioFileIO = Preconditions.checkNotNull(audioFileIO, "audioFileIO must be non-null.");
+		TriviaMetadata metadata = loadedTrivia.getTriviaTopic().getMetadata();
+		this.fuzzyMatcher = new FuzzyMatcher(metadata.getSynonyms(), metadata.getTypoTolerance().orElse(null));
+		this.answerCandidates = fuzzyMatcher.compile(question.getAnswers());
+		this.songTagIndex = Preconditions.checkNotNull(songTagIndex, "songTagIndex must be non-null.");
+		this.triviaTopicDir = loadedTrivia.getTriviaTopicDir();
 	}
 
 	@Override
@@ -51,6 +52,16 @@ public class MusicIdQuestionHandler implements QuestionHandler {
 		return question;
 	}
 	
+	@Override
+	public void prefetch() {
+		MusicIdQuestionPrefetchEvent event = MusicIdQuestionPrefetchEvent.builder()
+				.question(question)
+				.maxDurationMs(maxDurationMs)
+				.build();
+		
+		listener.onMusicIdQuestionPrefetch(event);
+	}
+	
 	@Override
 	public void notifyStart(long questionNumber, long totalQuestions, long maxDurationMs) {
 		MusicIdQuestionStartEvent event = MusicIdQuestionStartEvent.builder()
@@ -67,7 +78,7 @@ public class MusicIdQuestionHandler implements QuestionHandler {
 	public Optional<Boolean> checkCorrectness(UserMessage userMessage) {
 		String answer = userMessage.getMessage();
 		
-		boolean answerIsCorrect = fuzzyMatcher.matches(answer, question.getAnswers());
+		boolean answerIsCorrect = fuzzyMatcher.matches(answer, answerCandidates);
 		
 		return Optional.of(answerIsCorrect);
 	}
@@ -97,23 +108,17 @@ public class MusicIdQuestionHandler implements QuestionHandler {
 	}
 	
 	private SongMetadata getSongMetadataForEvent(File file) {
+		String audioPath = triviaTopicDir.toPath().relativize(file.toPath()).toString();
+		SongTags songTags = songTagIndex.getTags(triviaTopicDir, audioPath);
 		
-		try {
-			AudioFile af = audioFileIO.readFile(file);
-			
-			Map<SongProperty, String> properties = Arrays.asList(SongProperty.values()).stream()
-					.filter(tag -> tag.getFieldKey().isPresent())
-					.filter(tag -> !StringUtils.isBlank(af.getTag().getFirst(tag.getFieldKey().get())))
-					.collect(Collectors.toMap(t -> t, t -> af.getTag().getFirst(t.getFieldKey().get())));
-			
-			SongMetadata sm = SongMetadata.builder()
-					.properties(properties)
-					.build();
-			
-			return sm;
-		} catch (CannotReadException | IOException | TagException | ReadOnlyFileException
-				| InvalidAudioFrameException e) {
-			throw new IllegalStateException("Unable to read metadata from file " + file.getAbsolutePath(), e);
-		}
+		Map<SongProperty, String> properties = Arrays.asList(SongProperty.values()).stream()
+				.filter(tag -> songTags.getFirst(tag).isPresent())
+				.collect(Collectors.toMap(t -> t, t -> songTags.getFirst(t).get()));
+		
+		SongMetadata sm = SongMetadata.builder()
+				.properties(properties)
+				.build();
+		
+		return sm;
 	}
 }
@@ -0,0 +1,12 @@
+package net.tonbot.plugin.trivia.musicid;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class MusicIdQuestionPrefetchEvent {
+	
+	private final MusicIdQuestion question;
+	private final long maxDurationMs;
+}
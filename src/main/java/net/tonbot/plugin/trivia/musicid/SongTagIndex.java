@@ -0,0 +1,197 @@
+package net.tonbot.plugin.trivia.musicid;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
+import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
+import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.inject.Inject;
+
+/**
+ * Caches the tags of music ID audio files so that each file only needs to be
+ * parsed once. Each topic's index is persisted to {@value #INDEX_FILE_NAME} in
+ * the topic directory, so tags survive restarts. An entry is only used if the
+ * audio file's size and last modified time still match, so replacing a file
+ * causes it to be parsed again.
+ * <p>
+ * Newly read tags are only kept in memory until {@link #flush()} is called, so
+ * that the index file is written once for a batch of new tags rather than once
+ * per tag.
+ * <p>
+ * This class is thread safe.
+ */
+public class SongTagIndex {
+	
+	private static final Logger LOG = LoggerFactory.getLogger(SongTagIndex.class);
+	
+	public static final String INDEX_FILE_NAME = "song-tags.json";
+	
+	private static final TypeReference<Map<String, SongTags>> INDEX_TYPE = new TypeReference<Map<String, SongTags>>() {};
+	
+	private final AudioFileIO audioFileIO;
+	private final ObjectMapper objectMapper;
+	
+	// Topic directory to its index. Each index maps audio paths, relative to the topic directory, to their tags.
+	private final Map<File, Map<String, SongTags>> topicIndexes;
+	
+	// Topic directories whose index has tags which have not been written yet.
+	private final Set<File> dirtyTopicDirs;
+	
+	@Inject
+	public SongTagIndex(AudioFileIO audioFileIO, ObjectMapper objectMapper) {
+		this.audioFileIO = Preconditions.checkNotNull(audioFileIO, "audioFileIO must be non-null.");
+		this.objectMapper = Preconditions.checkNotNull(objectMapper, "objectMapper must be non-null.");
+		this.topicIndexes = new ConcurrentHashMap<>();
+		this.dirtyTopicDirs = ConcurrentHashMap.newKeySet();
+	}
+	
+	/**
+	 * Gets the tags of an audio file, reading them from the file only if they are
+	 * not already indexed or if the file has changed since.
+	 * 
+	 * @param topicDir
+	 *            The topic directory. Non-null.
+	 * @param audioPath
+	 *            The path of the audio file, relative to the topic directory.
+	 *            Non-null.
+	 * @return The audio file's {@link SongTags}.
+	 * @throws IllegalStateException
+	 *             if the audio file could not be read.
+	 */
+	public SongTags getTags(File topicDir, String audioPath) {
+		Preconditions.checkNotNull(topicDir, "topicDir must be non-null.");
+		Preconditions.checkNotNull(audioPath, "audioPath must be non-null.");
+		
+		Map<String, SongTags> index = topicIndexes.computeIfAbsent(topicDir, this::readIndex);
+		File audioFile = new File(topicDir, audioPath);
+		
+		SongTags tags = index.get(audioPath);
+		if (tags != null && tags.getSize() == audioFile.length() && tags.getLastModified() == audioFile.lastModified()) {
+			return tags;
+		}
+		
+		tags = readTags(audioFile);
+		index.put(audioPath, tags);
+		dirtyTopicDirs.add(topicDir);
+		
+		return tags;
+	}
+	
+	/**
+	 * Writes the index of every topic which has new tags.
+	 */
+	public void flush() {
+		for (File topicDir : dirtyTopicDirs) {
+			// Tags added after this point mark the topic dirty again, so they are never lost.
+			if (!dirtyTopicDirs.remove(topicDir)) {
+				continue;
+			}
+			
+			Map<String, SongTags> index = topicIndexes.get(topicDir);
+			if (index != null) {
+				writeIndex(topicDir, index);
+			}
+		}
+	}
+	
+	/**
+	 * Drops a topic's index from memory, writing it first if it has new tags. The
+	 * index is read from disk again the next time that the topic's tags are
+	 * needed. Should be called when a topic is reloaded.
+	 * 
+	 * @param topicDir
+	 *            The topic directory. Non-null.
+	 */
+	public void invalidate(File topicDir) {
+		Preconditions.checkNotNull(topicDir, "topicDir must be non-null.");
+		
+		Map<String, SongTags> index = topicIndexes.remove(topicDir);
+		if (dirtyTopicDirs.remove(topicDir) && index != null && topicDir.isDirectory()) {
+			writeIndex(topicDir, index);
+		}
+	}
+	
+	private SongTags readTags(File audioFile) {
+		// Get the size and time first, so that a concurrent change makes the entry stale rather than wrong.
+		long size = audioFile.length();
+		long lastModified = audioFile.lastModified();
+		
+		AudioFile af;
+		try {
+			af = audioFileIO.readFile(audioFile);
+		} catch (CannotReadException | IOException | TagException | ReadOnlyFileException
+				| InvalidAudioFrameException e) {
+			throw new IllegalStateException("Unable to read audio file at " + audioFile.getAbsolutePath(), e);
+		}
+		
+		Map<SongProperty, List<String>> values = new EnumMap<>(SongProperty.class);
+		Tag tag = af.getTag();
+		if (tag != null) {
+			for (SongProperty property : SongProperty.values()) {
+				if (!property.getFieldKey().isPresent()) {
+					continue;
+				}
+				
+				List<String> propertyValues = tag.getAll(property.getFieldKey().get()).stream()
+						.filter(value -> !StringUtils.isBlank(value))
+						.collect(Collectors.toList());
+				if (!propertyValues.isEmpty()) {
+					values.put(property, propertyValues);
+				}
+			}
+		}
+		
+		return new SongTags(size, lastModified, values);
+	}
+	
+	private Map<String, SongTags> readIndex(File topicDir) {
+		Map<String, SongTags> index = new ConcurrentHashMap<>();
+		
+		File indexFile = new File(topicDir, INDEX_FILE_NAME);
+		if (indexFile.isFile()) {
+			try {
+				index.putAll(objectMapper.readValue(indexFile, INDEX_TYPE));
+			} catch (IOException e) {
+				LOG.warn("Unable to read song tag index {}. It will be rebuilt.", indexFile.getAbsolutePath(), e);
+			}
+		}
+		
+		return index;
+	}
+	
+	private void writeIndex(File topicDir, Map<String, SongTags> index) {
+		File indexFile = new File(topicDir, INDEX_FILE_NAME);
+		
+		// Sessions of the same topic may add tags at the same time.
+		synchronized (index) {
+			File tempFile = new File(topicDir, INDEX_FILE_NAME + ".tmp");
+			try {
+				objectMapper.writeValue(tempFile, index);
+				Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				LOG.warn("Unable to write song tag index {}.", indexFile.getAbsolutePath(), e);
+			}
+		}
+	}
+}
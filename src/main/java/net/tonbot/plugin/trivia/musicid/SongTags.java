@@ -0,0 +1,74 @@
+package net.tonbot.plugin.trivia.musicid;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import lombok.Data;
+
+/**
+ * The tag values of a single audio file, along with the size and last modified
+ * time of the file that they were read from.
+ */
+@Data
+public class SongTags {
+	
+	private final long size;
+	private final long lastModified;
+	private final Map<SongProperty, List<String>> values;
+	
+	/**
+	 * Constructor.
+	 * 
+	 * @param size
+	 *            The size of the audio file, in bytes.
+	 * @param lastModified
+	 *            The last modified time of the audio file, in milliseconds since
+	 *            the epoch.
+	 * @param values
+	 *            Map of song properties to their tag values. Properties without
+	 *            values may be left out. Non-null.
+	 */
+	@JsonCreator
+	public SongTags(
+			@JsonProperty("size") long size,
+			@JsonProperty("lastModified") long lastModified,
+			@JsonProperty("values") Map<SongProperty, List<String>> values) {
+		Preconditions.checkNotNull(values, "values must be non-null.");
+		
+		this.size = size;
+		this.lastModified = lastModified;
+		this.values = ImmutableMap.copyOf(values);
+	}
+	
+	/**
+	 * Gets all of the values of a property.
+	 * 
+	 * @param property
+	 *            The {@link SongProperty}. Non-null.
+	 * @return The values. Empty if the property has no values.
+	 */
+	public List<String> getAll(SongProperty property) {
+		Preconditions.checkNotNull(property, "property must be non-null.");
+		
+		return values.getOrDefault(property, ImmutableList.of());
+	}
+	
+	/**
+	 * Gets the first value of a property.
+	 * 
+	 * @param property
+	 *            The {@link SongProperty}. Non-null.
+	 * @return The first value, if there is one.
+	 */
+	public Optional<String> getFirst(SongProperty property) {
+		List<String> all = getAll(property);
+		return all.isEmpty() ? Optional.empty() : Optional.of(all.get(0));
+	}
+}
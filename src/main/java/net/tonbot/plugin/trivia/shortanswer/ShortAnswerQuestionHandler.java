@@ -4,6 +4,7 @@ import java.util.Optional;
 
 import com.google.common.base.Preconditions;
 
+import net.tonbot.plugin.trivia.AnswerCandidates;
 import net.tonbot.plugin.trivia.FuzzyMatcher;
 import net.tonbot.plugin.trivia.LoadedTrivia;
 import net.tonbot.plugin.trivia.QuestionHandler;
@@ -11,17 +12,21 @@ import net.tonbot.plugin.trivia.TriviaListener;
 import net.tonbot.plugin.trivia.UserMessage;
 import net.tonbot.plugin.trivia.Win;
 import net.tonbot.plugin.trivia.model.Question;
+import net.tonbot.plugin.trivia.model.TriviaMetadata;
 
 public class ShortAnswerQuestionHandler implements QuestionHandler {
 
 	private final ShortAnswerQuestion question;
 	private final TriviaListener listener;
 	private final FuzzyMatcher fuzzyMatcher;
+	private final AnswerCandidates answerCandidates;
 
 	public ShortAnswerQuestionHandler(ShortAnswerQuestion question, TriviaListener listener, LoadedTrivia loadedTrivia) {
 		this.question = Preconditions.checkNotNull(question, "question must be non-null.");
 		this.listener = Preconditions.checkNotNull(listener, "listener must be non-null.");
-		this.fuzzyMatcher = new FuzzyMatcher(loadedTrivia.getTriviaTopic().getMetadata().getSynonyms());
+		TriviaMetadata metadata = loadedTrivia.getTriviaTopic().getMetadata();
+		this.fuzzyMatcher = new FuzzyMatcher(metadata.getSynonyms(), metadata.getTypoTolerance().orElse(null));
+		this.answerCandidates = fuzzyMatcher.compile(question.getAnswers());
 	}
 	
 	@Override
@@ -29,6 +34,11 @@ public class ShortAnswerQuestionHandler implements QuestionHandler {
 		return question;
 	}
 
+	@Override
+	public void prefetch() {
+		// Nothing to prepare.
+	}
+
 	@Override
 	public void notifyStart(long questionNumber, long totalQuestions, long maxDurationSeconds) {
 		ShortAnswerQuestionStartEvent event = ShortAnswerQuestionStartEvent.builder()
@@ -45,7 +55,7 @@ public class ShortAnswerQuestionHandler implements QuestionHandler {
 	public Optional<Boolean> checkCorrectness(UserMessage userMessage) {
 		Preconditions.checkNotNull(userMessage, "userMessage must be non-null.");
 
-		return Optional.of(fuzzyMatcher.matches(userMessage.getMessage(), question.getAnswers()));
+		return Optional.of(fuzzyMatcher.matches(userMessage.getMessage(), answerCandidates));
 	}
 
 	@Override
@@ -0,0 +1,83 @@
+package net.tonbot.plugin.trivia
+
+import spock.lang.Specification
+
+class AliasSamplerTest extends Specification {
+	
+	// Chi-square critical value for 4 degrees of freedom at p = 0.001.
+	private static final double CRITICAL_VALUE = 18.467
+	
+	def "samples follow the weights"() {
+		given:
+		Map<String, Long> weights = new LinkedHashMap<>()
+		weights.put("a", 1L)
+		weights.put("b", 2L)
+		weights.put("c", 7L)
+		weights.put("d", null) // Takes on the floor of the average, 3.
+		weights.put("e", 0L)
+		weights.put("f", 8L)
+		Map<String, Double> expectedProportions = [a : 1 / 21, b : 2 / 21, c : 7 / 21, d : 3 / 21, e : 0, f : 8 / 21]
+		
+		AliasSampler<String> sampler = AliasSampler.of(weights)
+		Random random = new Random(1234)
+		int samples = 200000
+		
+		when:
+		Map<String, Integer> counts = [:].withDefault { 0 }
+		samples.times { counts[sampler.sample(random)]++ }
+		
+		then:
+		counts["e"] == 0
+		
+		and:
+		double chiSquare = expectedProportions
+			.findAll { it.value > 0 }
+			.collect { key, proportion ->
+				double expected = proportion * samples
+				Math.pow(counts[key] - expected, 2) / expected
+			}
+			.sum()
+		chiSquare < CRITICAL_VALUE
+	}
+	
+	def "all null weights are equally likely"() {
+		given:
+		AliasSampler<String> sampler = AliasSampler.of(["a", "b"], [null, null])
+		Random random = new Random(99)
+		
+		when:
+		int aCount = 0
+		100000.times { if (sampler.sample(random) == "a") aCount++ }
+		
+		then:
+		Math.abs(aCount - 50000) < 1000
+	}
+	
+	def "large weights do not overflow"() {
+		given:
+		AliasSampler<String> sampler = AliasSampler.of([a : Long.MAX_VALUE, b : Long.MAX_VALUE, c : 0L])
+		Random random = new Random(7)
+		
+		when:
+		Set<String> picked = (1..1000).collect { sampler.sample(random) } as Set
+		
+		then:
+		picked == ["a", "b"] as Set
+	}
+	
+	def "all zero weights"() {
+		when:
+		AliasSampler.of([a : 0L, b : 0L])
+		
+		then:
+		thrown IllegalArgumentException
+	}
+	
+	def "negative weight"() {
+		when:
+		AliasSampler.of([a : 1L, b : -1L])
+		
+		then:
+		thrown IllegalArgumentException
+	}
+}
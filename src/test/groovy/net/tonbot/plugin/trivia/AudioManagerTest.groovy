@@ -0,0 +1,140 @@
+package net.tonbot.plugin.trivia
+
+import java.util.concurrent.TimeUnit
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer
+import java.util.concurrent.TimeUnit
+
+import com.sedmelluq.discord.lavaplayer.player.event.AudioEventAdapter
+import java.util.concurrent.TimeUnit
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+import java.util.concurrent.TimeUnit
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackEndReason
+
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IVoiceChannel
+import spock.lang.Specification
+
+class AudioManagerTest extends Specification {
+	
+	IGuild guild = Mock()
+	IVoiceChannel voiceChannel = Mock()
+	GuildAudioPool guildAudioPool = Mock()
+	GuildAudioPool.Lease lease = Mock()
+	AudioPlayer audioPlayer = Mock()
+	LavaplayerAudioProvider audioProvider = Mock()
+	AudioTrackLoader audioTrackLoader = Mock()
+	HashedWheelTimer timer = Mock()
+	
+	AudioManager audioManager
+	
+	def setup() {
+		guildAudioPool.acquire(guild, voiceChannel) >> lease
+		lease.getAudioPlayer() >> audioPlayer
+		lease.getAudioProvider() >> audioProvider
+		
+		audioManager = new AudioManager(guild, guildAudioPool, audioTrackLoader, timer)
+		audioManager.joinVC(voiceChannel)
+	}
+	
+	def "leaves once the cue has finished"() {
+		given:
+		File cue = new File("cue.mp3")
+		AudioTrack cueTrack = Mock()
+		AudioTrack previousTrack = Mock()
+		audioTrackLoader.load(cue) >> cueTrack
+		AudioEventAdapter adapter
+		
+		when:
+		audioManager.playThenLeaveVC(cue)
+		
+		then:
+		1 * audioPlayer.addListener(_) >> { AudioEventAdapter a -> adapter = a }
+		1 * audioPlayer.playTrack(cueTrack)
+		0 * guildAudioPool.release(_)
+		
+		when: "the cue replaces whatever was playing before"
+		adapter.onTrackEnd(audioPlayer, previousTrack, AudioTrackEndReason.REPLACED)
+		
+		then:
+		0 * guildAudioPool.release(_)
+		
+		when:
+		adapter.onTrackEnd(audioPlayer, cueTrack, AudioTrackEndReason.FINISHED)
+		
+		then:
+		1 * audioPlayer.removeListener(adapter)
+		1 * guildAudioPool.release(lease)
+	}
+	
+	def "leaves after the cue's duration if its end is never reported"() {
+		given:
+		File cue = new File("cue.mp3")
+		AudioTrack cueTrack = Mock()
+		cueTrack.getDuration() >> 2000
+		audioTrackLoader.load(cue) >> cueTrack
+		AudioEventAdapter adapter
+		Runnable fallback
+		
+		when:
+		audioManager.playThenLeaveVC(cue)
+		
+		then:
+		1 * audioPlayer.addListener(_) >> { AudioEventAdapter a -> adapter = a }
+		1 * timer.schedule(_, 2000 + AudioManager.LEAVE_FALLBACK_MARGIN_MS, TimeUnit.MILLISECONDS) >> { args ->
+			fallback = args[0]
+			return null
+		}
+		0 * guildAudioPool.release(_)
+		
+		when:
+		fallback.run()
+		
+		then:
+		1 * audioPlayer.removeListener(adapter)
+		1 * guildAudioPool.release(lease)
+		
+		when: "the end is reported late"
+		adapter.onTrackEnd(audioPlayer, cueTrack, AudioTrackEndReason.FINISHED)
+		
+		then:
+		0 * guildAudioPool.release(_)
+	}
+	
+	def "the fallback does not leave a voice channel which was joined again"() {
+		given:
+		File cue = new File("cue.mp3")
+		AudioTrack cueTrack = Mock()
+		audioTrackLoader.load(cue) >> cueTrack
+		Runnable fallback
+		timer.schedule(_, _, _) >> { args ->
+			fallback = args[0]
+			return null
+		}
+		GuildAudioPool.Lease newLease = Mock()
+		newLease.getAudioPlayer() >> audioPlayer
+		newLease.getAudioProvider() >> audioProvider
+		
+		when:
+		audioManager.playThenLeaveVC(cue)
+		audioManager.leaveVC()
+		audioManager.joinVC(voiceChannel)
+		fallback.run()
+		
+		then:
+		1 * guildAudioPool.release(lease)
+		1 * guildAudioPool.acquire(guild, voiceChannel) >> newLease
+		0 * guildAudioPool.release(newLease)
+	}
+	
+	def "leaving twice only releases once"() {
+		when:
+		audioManager.leaveVC()
+		audioManager.leaveVC()
+		
+		then:
+		1 * guildAudioPool.release(lease)
+	}
+}
@@ -0,0 +1,63 @@
+package net.tonbot.plugin.trivia
+
+import java.util.concurrent.CompletableFuture
+
+import com.sedmelluq.discord.lavaplayer.player.AudioLoadResultHandler
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack
+
+import spock.lang.Specification
+
+class AudioTrackLoaderTest extends Specification {
+	
+	File audioFile
+	
+	def setup() {
+		audioFile = File.createTempFile("cue", ".mp3")
+		audioFile.text = "cue"
+	}
+	
+	def cleanup() {
+		audioFile.delete()
+	}
+	
+	def "files are only loaded once"() {
+		given:
+		AudioPlayerManager audioPlayerManager = Mock()
+		AudioTrack prototype = Mock()
+		AudioTrack clone1 = Mock()
+		AudioTrack clone2 = Mock()
+		AudioTrackLoader loader = new AudioTrackLoader(audioPlayerManager)
+		
+		when:
+		AudioTrack first = loader.load(audioFile)
+		AudioTrack second = loader.load(audioFile)
+		
+		then:
+		1 * audioPlayerManager.loadItem(audioFile.getAbsolutePath(), _) >> { String id, AudioLoadResultHandler handler ->
+			handler.trackLoaded(prototype)
+			CompletableFuture.completedFuture(null)
+		}
+		2 * prototype.makeClone() >>> [clone1, clone2]
+		first.is(clone1)
+		second.is(clone2)
+	}
+	
+	def "modified files are loaded again"() {
+		given:
+		AudioPlayerManager audioPlayerManager = Mock()
+		AudioTrack prototype = Mock()
+		AudioTrackLoader loader = new AudioTrackLoader(audioPlayerManager)
+		
+		when:
+		loader.load(audioFile)
+		audioFile.setLastModified(audioFile.lastModified() - 10000)
+		loader.load(audioFile)
+		
+		then:
+		2 * audioPlayerManager.loadItem(audioFile.getAbsolutePath(), _) >> { String id, AudioLoadResultHandler handler ->
+			handler.trackLoaded(prototype)
+			CompletableFuture.completedFuture(null)
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package net.tonbot.plugin.trivia
+
+import net.tonbot.plugin.trivia.model.TypoTolerance
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class FuzzyMatcherTest extends Specification {
+	
+	@Unroll
+	def "normalize '#phrase'"() {
+		expect:
+		FuzzyMatcher.normalize(phrase) == expected
+		
+		where:
+		phrase                       | expected
+		""                           | ""
+		"already normalized"         | "already normalized"
+		"Nemesis II"                 | "nemesis ii"
+		"  Leading and trailing  "   | "leading and trailing"
+		"Demon's Dance"              | "demons dance"
+		"a\t\t-\n b"                 | "a b"
+		"!?!"                        | ""
+		"Beyoncé"                    | "beyoncé"
+	}
+	
+	def "normalize matches the previous regex based behaviour"() {
+		given:
+		List<String> phrases = ["Two Steps From Hell", "  SkyWorld!  ", "Archangel (Remastered)", "a - b", "It's   OK."]
+		
+		expect:
+		phrases.each { phrase ->
+			String legacy = phrase.trim().replaceAll("\\p{Punct}", "").replaceAll("\\s+", " ").toLowerCase().trim()
+			assert FuzzyMatcher.normalize(phrase) == legacy
+		}
+	}
+	
+	def "matches against compiled candidates"() {
+		given:
+		FuzzyMatcher matcher = new FuzzyMatcher(null)
+		AnswerCandidates candidates = matcher.compile(["Nemesis II", "Nemesis 2"])
+		
+		expect:
+		matcher.matches("nemesis ii", candidates)
+		matcher.matches("  NEMESIS 2!", candidates)
+		!matcher.matches("nemesis", candidates)
+		!matcher.matches(null, candidates)
+	}
+	
+	def "matches through synonyms"() {
+		given:
+		FuzzyMatcher matcher = new FuzzyMatcher([["TSFH", "Two Steps From Hell"]])
+		AnswerCandidates candidates = matcher.compile(["Two Steps From Hell"])
+		
+		expect:
+		matcher.matches("tsfh", candidates)
+		matcher.matches("Two Steps From Hell", candidates)
+		!matcher.matches("two steps", candidates)
+	}
+	
+	def "typos are not tolerated by default"() {
+		given:
+		FuzzyMatcher matcher = new FuzzyMatcher(null)
+		AnswerCandidates candidates = matcher.compile(["Beethoven"])
+		
+		expect:
+		matcher.matches("beethoven", candidates)
+		!matcher.matches("Beethovan", candidates)
+	}
+	
+	@Unroll
+	def "typo tolerant match of '#guess'"() {
+		given:
+		FuzzyMatcher matcher = new FuzzyMatcher([["TSFH", "Two Steps From Hell"]], new TypoTolerance(2, 5))
+		AnswerCandidates candidates = matcher.compile(["Beethoven", "Bach", "TSFH"])
+		
+		expect:
+		matcher.matches(guess, candidates) == expected
+		
+		where:
+		guess                  | expected
+		"Beethovan"            | true
+		"beethovn"             | true
+		"Beeethovven"          | true
+		"Bethovan!!"           | true
+		"Betovan"              | false
+		"Bach"                 | true
+		"Bahc"                 | false
+		"Two Step From Hel"    | true
+		"Tw Step Frm Hel"      | false
+	}
+	
+	def "typo tolerant matching agrees with the textbook edit distance"() {
+		given:
+		Random random = new Random(42)
+		String alphabet = "abcé "
+		
+		expect:
+		500.times {
+			int maxDistance = random.nextInt(4)
+			String answer = randomString(random, alphabet, 1 + random.nextInt(80)).trim()
+			String guess = randomString(random, alphabet, random.nextInt(85))
+			
+			String normalizedAnswer = FuzzyMatcher.normalize(answer)
+			String normalizedGuess = FuzzyMatcher.normalize(guess)
+			int effectiveMaxDistance = Math.min(maxDistance, normalizedAnswer.length() - 1)
+			boolean expected = normalizedGuess == normalizedAnswer ||
+					(effectiveMaxDistance > 0 && editDistance(normalizedAnswer, normalizedGuess) <= effectiveMaxDistance)
+			
+			FuzzyMatcher matcher = new FuzzyMatcher(null, new TypoTolerance(maxDistance, 0))
+			assert matcher.matches(guess, matcher.compile([answer])) == expected
+		}
+	}
+	
+	private static String randomString(Random random, String alphabet, int length) {
+		StringBuilder sb = new StringBuilder()
+		length.times { sb.append(alphabet.charAt(random.nextInt(alphabet.length()))) }
+		return sb.toString()
+	}
+	
+	private static int editDistance(String a, String b) {
+		int[][] d = new int[a.length() + 1][b.length() + 1]
+		for (int i = 0; i <= a.length(); i++) {
+			d[i][0] = i
+		}
+		for (int j = 0; j <= b.length(); j++) {
+			d[0][j] = j
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1
+				d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1)
+			}
+		}
+		return d[a.length()][b.length()]
+	}
+}
@@ -0,0 +1,142 @@
+package net.tonbot.plugin.trivia
+
+import java.util.concurrent.TimeUnit
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager
+
+import sx.blah.discord.handle.audio.IAudioManager
+import sx.blah.discord.handle.audio.IAudioProvider
+import sx.blah.discord.handle.obj.IGuild
+import sx.blah.discord.handle.obj.IVoiceChannel
+import spock.lang.Specification
+
+class GuildAudioPoolTest extends Specification {
+	
+	IGuild guild = Mock()
+	IAudioManager guildAudioManager = Mock()
+	IVoiceChannel voiceChannel = Mock()
+	IVoiceChannel otherVoiceChannel = Mock()
+	AudioPlayerManager audioPlayerManager = Mock()
+	HashedWheelTimer timer = Mock()
+	
+	IVoiceChannel connectedVoiceChannel = null
+	IAudioProvider currentProvider = null
+	Runnable idleTask = null
+	
+	GuildAudioPool pool
+	
+	def setup() {
+		guild.getLongID() >> 1L
+		guild.getAudioManager() >> guildAudioManager
+		guild.getConnectedVoiceChannel() >> { connectedVoiceChannel }
+		guildAudioManager.setAudioProvider(_) >> { IAudioProvider provider -> currentProvider = provider }
+		guildAudioManager.getAudioProvider() >> { currentProvider }
+		
+		voiceChannel.getLongID() >> 10L
+		voiceChannel.join() >> { connectedVoiceChannel = voiceChannel }
+		voiceChannel.leave() >> { connectedVoiceChannel = null }
+		otherVoiceChannel.getLongID() >> 20L
+		otherVoiceChannel.join() >> { connectedVoiceChannel = otherVoiceChannel }
+		
+		timer.schedule(_, GuildAudioPool.IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS) >> { Runnable task, long delay, TimeUnit unit ->
+			idleTask = task
+			Mock(HashedWheelTimer.Timeout)
+		}
+		
+		pool = new GuildAudioPool(audioPlayerManager, timer)
+	}
+	
+	def "a follow-up round reuses the connection and player"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		
+		when:
+		GuildAudioPool.Lease first = pool.acquire(guild, voiceChannel)
+		pool.release(first)
+		GuildAudioPool.Lease second = pool.acquire(guild, voiceChannel)
+		
+		then:
+		1 * audioPlayerManager.createPlayer() >> audioPlayer
+		1 * voiceChannel.join() >> { connectedVoiceChannel = voiceChannel }
+		0 * voiceChannel.leave()
+		0 * audioPlayer.destroy()
+		second.getAudioPlayer().is(first.getAudioPlayer())
+		currentProvider.is(second.getAudioProvider())
+	}
+	
+	def "idle players are closed"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		audioPlayerManager.createPlayer() >> audioPlayer
+		
+		when:
+		pool.release(pool.acquire(guild, voiceChannel))
+		idleTask.run()
+		
+		then:
+		1 * audioPlayer.stopTrack()
+		1 * audioPlayer.destroy()
+		connectedVoiceChannel == null
+	}
+	
+	def "busy in the same channel"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		audioPlayerManager.createPlayer() >> audioPlayer
+		GuildAudioPool.Lease first = pool.acquire(guild, voiceChannel)
+		
+		when:
+		pool.acquire(guild, voiceChannel)
+		
+		then:
+		thrown VoiceChannelInUseException
+		
+		when: "the first round releases the player"
+		pool.release(first)
+		GuildAudioPool.Lease second = pool.acquire(guild, voiceChannel)
+		
+		then:
+		1 * audioPlayer.stopTrack()
+		second.getAudioPlayer().is(audioPlayer)
+	}
+	
+	def "a released lease can no longer release"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		audioPlayerManager.createPlayer() >> audioPlayer
+		
+		when:
+		GuildAudioPool.Lease first = pool.acquire(guild, voiceChannel)
+		pool.release(first)
+		pool.acquire(guild, voiceChannel)
+		pool.release(first)
+		
+		then:
+		1 * audioPlayer.stopTrack()
+	}
+	
+	def "idle players move to another channel"() {
+		given:
+		audioPlayerManager.createPlayer() >> Mock(AudioPlayer)
+		
+		when:
+		pool.release(pool.acquire(guild, voiceChannel))
+		pool.acquire(guild, otherVoiceChannel)
+		
+		then:
+		connectedVoiceChannel.is(otherVoiceChannel)
+	}
+	
+	def "busy in another channel"() {
+		given:
+		audioPlayerManager.createPlayer() >> Mock(AudioPlayer)
+		pool.acquire(guild, voiceChannel)
+		
+		when:
+		pool.acquire(guild, otherVoiceChannel)
+		
+		then:
+		thrown AlreadyInAnotherVoiceChannelException
+	}
+}
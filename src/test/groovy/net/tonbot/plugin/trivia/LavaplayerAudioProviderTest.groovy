@@ -0,0 +1,66 @@
+package net.tonbot.plugin.trivia
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayer
+import com.sedmelluq.discord.lavaplayer.track.playback.MutableAudioFrame
+
+import spock.lang.Specification
+
+class LavaplayerAudioProviderTest extends Specification {
+	
+	def "clips are played before the player"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		LavaplayerAudioProvider provider = new LavaplayerAudioProvider(audioPlayer)
+		
+		when:
+		provider.playClip(new OpusClip([[1] as byte[], [2] as byte[]]))
+		List<byte[]> provided = (1..3).collect { provider.isReady() ? provider.provide() : null }
+		
+		then:
+		1 * audioPlayer.provide(_ as MutableAudioFrame) >> { MutableAudioFrame frame -> store(frame, [9]) }
+		provided == [[1] as byte[], [2] as byte[], [9] as byte[]]
+	}
+	
+	def "stopped clip"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		LavaplayerAudioProvider provider = new LavaplayerAudioProvider(audioPlayer)
+		
+		when:
+		provider.playClip(new OpusClip([[1] as byte[]]))
+		provider.stopClip()
+		boolean ready = provider.isReady()
+		
+		then:
+		1 * audioPlayer.provide(_ as MutableAudioFrame) >> false
+		!ready
+	}
+	
+	def "frames of the same length reuse the same array"() {
+		given:
+		AudioPlayer audioPlayer = Mock()
+		LavaplayerAudioProvider provider = new LavaplayerAudioProvider(audioPlayer)
+		List<List<Integer>> frames = [[1, 2], [3, 4], [5]]
+		audioPlayer.provide(_ as MutableAudioFrame) >> { MutableAudioFrame frame -> store(frame, frames.remove(0)) }
+		
+		when:
+		provider.isReady()
+		byte[] first = provider.provide()
+		List<Byte> firstContents = first.toList()
+		provider.isReady()
+		byte[] second = provider.provide()
+		provider.isReady()
+		byte[] third = provider.provide()
+		
+		then:
+		firstContents == [1, 2]
+		second.is(first)
+		second == [3, 4] as byte[]
+		third == [5] as byte[]
+	}
+	
+	private static boolean store(MutableAudioFrame frame, List<Integer> data) {
+		frame.store(data as byte[], 0, data.size())
+		return true
+	}
+}
@@ -0,0 +1,78 @@
+package net.tonbot.plugin.trivia
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager
+
+import spock.lang.Specification
+
+class OpusClipCacheTest extends Specification {
+	
+	File dir
+	
+	def setup() {
+		dir = File.createTempDir()
+	}
+	
+	def cleanup() {
+		dir.deleteDir()
+	}
+	
+	def "round trip"() {
+		given:
+		File clipFile = new File(dir, "clip.opus")
+		OpusClip clip = new OpusClip([[1, 2, 3] as byte[], [] as byte[], new byte[1000]])
+		
+		when:
+		OpusClipCache.write(clip, clipFile)
+		OpusClip read = OpusClipCache.read(clipFile)
+		
+		then:
+		read.getFrames().size() == 3
+		read.getFrames()[0] == [1, 2, 3] as byte[]
+		read.getFrames()[1].length == 0
+		read.getFrames()[2] == new byte[1000]
+		read.getDurationMs() == 60
+		!new File(dir, "clip.opus.tmp").exists()
+	}
+	
+	def "not a clip"() {
+		given:
+		File clipFile = new File(dir, "clip.opus")
+		clipFile.text = "definitely not a clip"
+		
+		when:
+		OpusClipCache.read(clipFile)
+		
+		then:
+		thrown IOException
+	}
+	
+	def "prune deletes the least recently used clips"() {
+		given:
+		OpusClipCache cache = new OpusClipCache(dir, 250, Mock(AudioPlayerManager), Mock(AudioTrackLoader), new Random())
+		File oldest = clipFile("a-0.opus", 100, 1000)
+		File older = clipFile("a-1.opus", 100, 2000)
+		File newer = clipFile("b-0.opus", 100, 3000)
+		File newest = clipFile("b-1.opus", 100, 4000)
+		File halfWritten = clipFile("b-2.opus.tmp", 10, 5000)
+		
+		when:
+		cache.prune()
+		
+		then:
+		!oldest.exists()
+		!older.exists()
+		newer.exists()
+		newest.exists()
+		!halfWritten.exists()
+		
+		cleanup:
+		cache.shutdown()
+	}
+	
+	private File clipFile(String name, int size, long lastModified) {
+		File file = new File(dir, name)
+		file.bytes = new byte[size]
+		file.setLastModified(lastModified)
+		return file
+	}
+}
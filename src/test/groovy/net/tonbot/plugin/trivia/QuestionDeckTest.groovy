@@ -0,0 +1,82 @@
+package net.tonbot.plugin.trivia
+
+import spock.lang.Specification
+
+class QuestionDeckTest extends Specification {
+	
+	def "draws are distinct and in range"() {
+		given:
+		QuestionDeck deck = new QuestionDeck(1000, 50)
+		Random random = new Random(42)
+		
+		when:
+		List<Integer> draws = []
+		while (deck.hasNext()) {
+			draws.add(deck.draw(random))
+		}
+		
+		then:
+		draws.size() == 50
+		draws.toSet().size() == 50
+		draws.every { it >= 0 && it < 1000 }
+	}
+	
+	def "drawing the whole deck is a permutation"() {
+		given:
+		QuestionDeck deck = new QuestionDeck(100, 100)
+		Random random = new Random(7)
+		
+		when:
+		List<Integer> draws = (1..100).collect { deck.draw(random) }
+		
+		then:
+		draws.sort() == (0..99).toList()
+		!deck.hasNext()
+	}
+	
+	def "every index is equally likely to be drawn second"() {
+		given:
+		Random random = new Random(1234)
+		int[] counts = new int[5]
+		int trials = 50000
+		
+		when:
+		trials.times {
+			QuestionDeck deck = new QuestionDeck(5, 2)
+			deck.draw(random)
+			counts[deck.draw(random)]++
+		}
+		
+		then:
+		counts.every { Math.abs(it - trials / 5) < 500 }
+	}
+	
+	def "drawing past the maximum"() {
+		given:
+		QuestionDeck deck = new QuestionDeck(3, 1)
+		Random random = new Random()
+		deck.draw(random)
+		
+		when:
+		deck.draw(random)
+		
+		then:
+		thrown IllegalStateException
+	}
+	
+	def "empty deck"() {
+		given:
+		QuestionDeck deck = new QuestionDeck(0, 0)
+		
+		expect:
+		!deck.hasNext()
+	}
+	
+	def "more draws than questions"() {
+		when:
+		new QuestionDeck(3, 4)
+		
+		then:
+		thrown IllegalArgumentException
+	}
+}
@@ -0,0 +1,128 @@
+package net.tonbot.plugin.trivia
+
+import net.tonbot.plugin.trivia.model.QuestionTemplateBundle
+import net.tonbot.plugin.trivia.model.ShortAnswerQuestionTemplate
+import net.tonbot.plugin.trivia.model.TriviaMetadata
+import spock.lang.Specification
+
+class QuestionTemplateStreamReaderTest extends Specification {
+	
+	File questionsFile
+	QuestionTemplateStreamReader reader
+	
+	def setup() {
+		questionsFile = File.createTempFile("questions", ".json")
+		reader = new QuestionTemplateStreamReader(TriviaModule.createObjectMapper())
+	}
+	
+	def cleanup() {
+		questionsFile.delete()
+	}
+	
+	def "invalid questions are skipped"() {
+		given:
+		questionsFile.text = '''
+		{
+			"version" : { "ignored" : [1, 2, 3] },
+			"questions" : [
+				{
+					"type" : "short_answer",
+					"points" : 5,
+					"question" : "What was the former name of Thomas Bergersen's 2011 album, Illusions?",
+					"answers" : ["Nemesis II", "Nemesis 2"]
+				},
+				{
+					"type" : "short_answer",
+					"points" : 5,
+					"question" : "A question without answers"
+				},
+				{
+					"type" : "not_a_real_type",
+					"points" : 5
+				},
+				{
+					"type" : "short_answer",
+					"points" : 3,
+					"question" : "Who composed Heart of Courage?",
+					"answers" : ["Thomas Bergersen"]
+				}
+			]
+		}
+		'''
+		
+		when:
+		QuestionTemplateBundle bundle = reader.read(questionsFile)
+		
+		then:
+		bundle.getQuestionTemplates().collect { it.question } == [
+			"What was the former name of Thomas Bergersen's 2011 album, Illusions?",
+			"Who composed Heart of Courage?"
+		]
+		bundle.getQuestionTemplates().every { it instanceof ShortAnswerQuestionTemplate }
+	}
+	
+	def "questions which fail the sanity check are skipped"() {
+		given:
+		File topicDir = questionsFile.getParentFile()
+		File imageFile = File.createTempFile("image", ".png", topicDir)
+		questionsFile.text = """
+		{
+			"questions" : [
+				{
+					"type" : "short_answer",
+					"points" : 5,
+					"question" : "A question with an image",
+					"images" : ["${imageFile.getName()}"],
+					"answers" : ["Yes"]
+				},
+				{
+					"type" : "short_answer",
+					"points" : 5,
+					"question" : "A question with a missing image",
+					"images" : ["does-not-exist.png"],
+					"answers" : ["No"]
+				}
+			]
+		}
+		"""
+		TriviaMetadata metadata = TriviaMetadata.builder()
+			.name("Test")
+			.version("1")
+			.description("A test topic.")
+			.defaultQuestionsPerRound(1)
+			.defaultTimePerQuestion(1000)
+			.build()
+		
+		when:
+		QuestionTemplateBundle bundle = reader.read(questionsFile,
+			new TriviaTopicSanityChecker().questionCheck(metadata, topicDir))
+		
+		then:
+		bundle.getQuestionTemplates().collect { it.question } == ["A question with an image"]
+		
+		cleanup:
+		imageFile.delete()
+	}
+	
+	def "missing questions field"() {
+		given:
+		questionsFile.text = '{ "foo" : "bar" }'
+		
+		when:
+		reader.read(questionsFile)
+		
+		then:
+		thrown IOException
+	}
+	
+	def "malformed JSON"() {
+		given:
+		questionsFile.text = '{ "questions" : [ { "type" : '
+		
+		when:
+		reader.read(questionsFile)
+		
+		then:
+		thrown IOException
+	}
+}
@@ -0,0 +1,72 @@
+package net.tonbot.plugin.trivia
+
+import spock.lang.Specification
+
+class ScorekeeperTest extends Specification {
+	
+	Scorekeeper scorekeeper = new Scorekeeper(0.5)
+	
+	def "users who join late have records for every question"() {
+		given:
+		scorekeeper.setupQuestion(10)
+		scorekeeper.logIncorrectAnswer(1L)
+		scorekeeper.logCorrectAnswer(1L)
+		scorekeeper.endQuestion()
+		
+		scorekeeper.setupQuestion(20)
+		scorekeeper.logIncorrectAnswer(2L)
+		scorekeeper.logIncorrectAnswer(2L)
+		scorekeeper.endQuestion()
+		
+		when:
+		Map<Long, RoundRecord> records = scorekeeper.getRecords()
+		
+		then:
+		records.keySet() == [1L, 2L] as Set
+		
+		records[1L].questionRecords*.value == [10L, 20L]
+		records[1L].questionRecords*.answeredCorrectly == [true, false]
+		records[1L].questionRecords*.incorrectAnswers == [1L, 0L]
+		records[1L].questionRecords[0].timeToAnswerMs != null
+		records[1L].questionRecords[1].timeToAnswerMs == null
+		records[1L].totalEarnedScore == 5
+		
+		records[2L].questionRecords*.value == [10L, 20L]
+		records[2L].questionRecords*.answeredCorrectly == [false, false]
+		records[2L].questionRecords*.incorrectAnswers == [0L, 2L]
+		records[2L].totalEarnedScore == 0
+	}
+	
+	def "awarded points decay with incorrect answers"() {
+		given:
+		scorekeeper.setupQuestion(10)
+		scorekeeper.logIncorrectAnswer(1L)
+		scorekeeper.logIncorrectAnswer(1L)
+		
+		expect:
+		scorekeeper.getIncorrectAnswers(1L) == 2
+		scorekeeper.getIncorrectAnswers(2L) == 0
+		scorekeeper.logCorrectAnswer(1L) == 3
+	}
+	
+	def "the current question is not recorded until it ends"() {
+		given:
+		scorekeeper.setupQuestion(10)
+		scorekeeper.logIncorrectAnswer(1L)
+		
+		expect:
+		scorekeeper.getRecords().isEmpty()
+	}
+	
+	def "only one user can answer a question correctly"() {
+		given:
+		scorekeeper.setupQuestion(10)
+		scorekeeper.logCorrectAnswer(1L)
+		
+		when:
+		scorekeeper.logCorrectAnswer(2L)
+		
+		then:
+		thrown IllegalStateException
+	}
+}
@@ -0,0 +1,122 @@
+package net.tonbot.plugin.trivia
+
+import net.tonbot.plugin.trivia.model.Choice
+import net.tonbot.plugin.trivia.model.MultipleChoiceQuestionTemplate
+import net.tonbot.plugin.trivia.model.MusicIdQuestionTemplate
+import net.tonbot.plugin.trivia.model.QuestionTemplateBundle
+import net.tonbot.plugin.trivia.model.ShortAnswerQuestionTemplate
+import net.tonbot.plugin.trivia.model.SongPropertyData
+import net.tonbot.plugin.trivia.musicid.SongProperty
+import spock.lang.Specification
+
+class TopicPackTest extends Specification {
+	
+	File topicDir
+	File questionsFile
+	File packFile
+	
+	def setup() {
+		topicDir = File.createTempDir()
+		questionsFile = new File(topicDir, "questions.json")
+		questionsFile.text = "{}"
+		packFile = new File(topicDir, "questions.pack")
+	}
+	
+	def cleanup() {
+		topicDir.deleteDir()
+	}
+	
+	def "round trip"() {
+		given:
+		QuestionTemplateBundle bundle = new QuestionTemplateBundle([
+			ShortAnswerQuestionTemplate.builder()
+				.points(5)
+				.imagePaths(["images/album.png"])
+				.question("What was the former name of Thomas Bergersen's 2011 album, Illusions?")
+				.answers(["Nemesis II", "Nemesis 2"])
+				.build(),
+			MultipleChoiceQuestionTemplate.builder()
+				.points(3)
+				.question("What was Two Steps From Hell's first public album?")
+				.choices([new Choice("Invincible", true), new Choice("Illusions", false), new Choice("Archangel", false)])
+				.build(),
+			MusicIdQuestionTemplate.builder()
+				.points(10)
+				.audioPath("music/song.mp3")
+				.properties([
+					(SongProperty.TITLE) : new SongPropertyData(["Heart of Courage"]),
+					(SongProperty.ALBUM) : new SongPropertyData(null)
+				])
+				.build()
+		])
+		
+		when:
+		new TopicPackWriter().write(bundle, questionsFile, packFile)
+		TopicPack pack = TopicPack.open(packFile, questionsFile).get()
+		
+		then:
+		pack.getQuestionBundle().getQuestionTemplates() == bundle.getQuestionTemplates()
+		pack.getReferencedFiles() == ["images/album.png", "music/song.mp3"]
+		pack.getQuestionBundle().hasMusicIdQuestions()
+	}
+	
+	def "pack without music ID questions"() {
+		given:
+		QuestionTemplateBundle bundle = new QuestionTemplateBundle([
+			ShortAnswerQuestionTemplate.builder()
+				.points(5)
+				.question("What was the former name of Thomas Bergersen's 2011 album, Illusions?")
+				.answers(["Nemesis II"])
+				.build()
+		])
+		
+		when:
+		new TopicPackWriter().write(bundle, questionsFile, packFile)
+		
+		then:
+		!TopicPack.open(packFile, questionsFile).get().getQuestionBundle().hasMusicIdQuestions()
+	}
+	
+	def "questions which fail the check are skipped"() {
+		given:
+		ShortAnswerQuestionTemplate shortAnswer = ShortAnswerQuestionTemplate.builder()
+			.points(5)
+			.question("What was the former name of Thomas Bergersen's 2011 album, Illusions?")
+			.answers(["Nemesis II"])
+			.build()
+		MusicIdQuestionTemplate musicId = MusicIdQuestionTemplate.builder()
+			.points(10)
+			.audioPath("music/song.mp3")
+			.properties([(SongProperty.TITLE) : new SongPropertyData(["Heart of Courage"])])
+			.build()
+		new TopicPackWriter().write(new QuestionTemplateBundle([musicId, shortAnswer]), questionsFile, packFile)
+		TopicPack pack = TopicPack.open(packFile, questionsFile).get()
+		
+		when:
+		QuestionTemplateBundle checked = pack.getQuestionBundle({ questionTemplate ->
+			if (questionTemplate instanceof MusicIdQuestionTemplate) {
+				throw new TriviaTopicSanityException("Missing audio.")
+			}
+		})
+		
+		then:
+		checked.getQuestionTemplates() == [shortAnswer]
+		!checked.hasMusicIdQuestions()
+	}
+	
+	def "missing pack"() {
+		expect:
+		!TopicPack.open(packFile, questionsFile).isPresent()
+	}
+	
+	def "stale pack"() {
+		given:
+		new TopicPackWriter().write(new QuestionTemplateBundle([]), questionsFile, packFile)
+		
+		when:
+		questionsFile.text = '{"questions" : []}'
+		
+		then:
+		!TopicPack.open(packFile, questionsFile).isPresent()
+	}
+}
@@ -0,0 +1,254 @@
+package net.tonbot.plugin.trivia.db
+
+import java.time.LocalDateTime
+
+import org.mapdb.DB
+import org.mapdb.DBMaker
+import org.mapdb.Serializer
+import org.mapdb.serializer.SerializerArrayTuple
+
+import com.fasterxml.jackson.databind.DeserializationFeature
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule
+
+import net.tonbot.plugin.trivia.RoundRecord
+import spock.lang.Specification
+
+class MapDbTriviaPersistentStoreTest extends Specification {
+	
+	DB db
+	ObjectMapper objMapper
+	MapDbTriviaPersistentStore store
+	
+	def setup() {
+		db = DBMaker.memoryDB().transactionEnable().make()
+		objMapper = new ObjectMapper()
+		objMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+		objMapper.registerModule(new Jdk8Module())
+		objMapper.registerModule(new JavaTimeModule())
+		store = new MapDbTriviaPersistentStore(db, objMapper)
+	}
+	
+	def cleanup() {
+		store.close()
+	}
+	
+	def "batch of updates"() {
+		given:
+		store.addUserTriviaStats(1L, 10L, stats("First"))
+		
+		when:
+		store.addUserTriviaStats([
+			new UserTriviaStatsUpdate(1L, 10L, stats("Second")),
+			new UserTriviaStatsUpdate(1L, 20L, stats("Second")),
+			new UserTriviaStatsUpdate(1L, 10L, stats("Third"))
+		])
+		
+		then:
+		store.getUserTriviaStats(1L, 10L).get().triviaStats*.topicName == ["First", "Second", "Third"]
+		store.getUserTriviaStats(1L, 20L).get().triviaStats*.topicName == ["Second"]
+		!store.getUserTriviaStats(2L, 10L).isPresent()
+	}
+	
+	def "a failed batch is rolled back"() {
+		given:
+		// The second user's stats fail to serialize, after the first user's have been put.
+		RoundRecord failingRoundRecord = Mock()
+		failingRoundRecord.getQuestionRecords() >> { throw new IllegalStateException() }
+		
+		when:
+		store.addUserTriviaStats([
+			new UserTriviaStatsUpdate(1L, 10L, stats("First")),
+			new UserTriviaStatsUpdate(1L, 20L, new UserTriviaStats("First", LocalDateTime.now(), failingRoundRecord))
+		])
+		
+		then:
+		thrown IllegalStateException
+		!store.getUserTriviaStats(1L, 10L).isPresent()
+		!store.getUserTriviaStats(1L, 20L).isPresent()
+	}
+	
+	def "stats which ended at the same time are all kept"() {
+		given:
+		LocalDateTime endedAt = LocalDateTime.of(2018, 1, 1, 12, 0)
+		
+		when:
+		store.addUserTriviaStats([
+			new UserTriviaStatsUpdate(1L, 10L, new UserTriviaStats("First", endedAt, new RoundRecord())),
+			new UserTriviaStatsUpdate(1L, 10L, new UserTriviaStats("Second", endedAt, new RoundRecord()))
+		])
+		
+		then:
+		store.getUserTriviaStats(1L, 10L).get().triviaStats*.topicName == ["First", "Second"]
+	}
+	
+	def "stats are migrated from the guild_user_stats table"() {
+		given:
+		Map<String, byte[]> oldTable = db.hashMap("guild_user_stats", Serializer.STRING, Serializer.BYTE_ARRAY).create()
+		oldTable.put("1_10", objMapper.writeValueAsBytes([
+			guildId: 1L,
+			userId: 10L,
+			triviaStats: [
+				new UserTriviaStats("Old", LocalDateTime.of(2018, 1, 1, 12, 0), new RoundRecord()),
+				new UserTriviaStats("Older", LocalDateTime.of(2017, 1, 1, 12, 0), new RoundRecord())
+			]
+		]))
+		db.commit()
+		
+		when:
+		store = new MapDbTriviaPersistentStore(db, objMapper)
+		store.addUserTriviaStats(1L, 10L, stats("New"))
+		
+		then:
+		store.getUserTriviaStats(1L, 10L).get().triviaStats*.topicName == ["Older", "Old", "New"]
+		store.getTopicStats(1L, 10L)*.topicName == ["New", "Old", "Older"]
+		oldTable.isEmpty()
+	}
+	
+	def "topic stats are kept up to date"() {
+		given:
+		RoundRecord roundRecord = objMapper.readValue("""
+			{
+				"questionRecords": [
+					{ "value": 10, "scoreDecayFactor": 0.5, "answeredCorrectly": true, "incorrectAnswers": 0, "timeToAnswerMs": 3000 },
+					{ "value": 20, "scoreDecayFactor": 0.5, "answeredCorrectly": false, "incorrectAnswers": 1, "timeToAnswerMs": null }
+				]
+			}
+		""", RoundRecord)
+		
+		when:
+		store.addUserTriviaStats(1L, 10L, new UserTriviaStats("Topic", LocalDateTime.now(), roundRecord))
+		store.addUserTriviaStats([
+			new UserTriviaStatsUpdate(1L, 10L, new UserTriviaStats("Topic", LocalDateTime.now(), roundRecord)),
+			new UserTriviaStatsUpdate(1L, 10L, stats("Another Topic")),
+			new UserTriviaStatsUpdate(1L, 20L, stats("Topic"))
+		])
+		List<TopicStats> topicStats = store.getTopicStats(1L, 10L)
+		
+		then:
+		topicStats*.topicName == ["Another Topic", "Topic"]
+		topicStats[1].plays == 2
+		topicStats[1].earnedPoints == 20
+		topicStats[1].possiblePoints == 60
+		topicStats[1].correctQuestions == 2
+		topicStats[1].totalQuestions == 4
+		topicStats[1].answerTimeSumMs == 6000
+		topicStats[1].answerTimeCount == 2
+		store.getTopicStats(1L, 20L)*.plays == [1]
+		store.getTopicStats(2L, 10L).isEmpty()
+	}
+	
+	def "leaderboards"() {
+		given:
+		store.addUserTriviaStats([
+			new UserTriviaStatsUpdate(1L, 10L, stats("Topic", 30)),
+			new UserTriviaStatsUpdate(1L, 20L, stats("Topic", 50)),
+			new UserTriviaStatsUpdate(1L, 30L, stats("Topic", 40)),
+			new UserTriviaStatsUpdate(1L, 30L, stats("Another Topic", 25)),
+			new UserTriviaStatsUpdate(2L, 10L, stats("Topic", 100))
+		])
+		
+		when: "user 10 moves up"
+		store.addUserTriviaStats(1L, 10L, stats("Topic", 30))
+		
+		then:
+		store.getLeaderboard(1L, "Topic", 10) == [
+			new LeaderboardEntry(10L, 60, 2),
+			new LeaderboardEntry(20L, 50, 1),
+			new LeaderboardEntry(30L, 40, 1)
+		]
+		store.getLeaderboard(1L, "Topic", 2)*.userId == [10L, 20L]
+		store.getLeaderboard(1L, null, 10) == [
+			new LeaderboardEntry(30L, 65, 2),
+			new LeaderboardEntry(10L, 60, 2),
+			new LeaderboardEntry(20L, 50, 1)
+		]
+		store.getLeaderboard(1L, "Another Topic", 10)*.userId == [30L]
+		store.getLeaderboard(3L, null, 10).isEmpty()
+	}
+	
+	def "leaderboards are built from existing topic stats"() {
+		given:
+		store.addUserTriviaStats([
+			new UserTriviaStatsUpdate(1L, 10L, stats("Topic", 30)),
+			new UserTriviaStatsUpdate(1L, 20L, stats("Topic", 50)),
+			new UserTriviaStatsUpdate(1L, 20L, stats("Another Topic", 5)),
+			new UserTriviaStatsUpdate(2L, 10L, stats("Topic", 100))
+		])
+		db.treeMap("topic_leaderboard").open().clear()
+		db.treeMap("guild_leaderboard").open().clear()
+		db.commit()
+		
+		when:
+		store = new MapDbTriviaPersistentStore(db, objMapper)
+		
+		then:
+		store.getLeaderboard(1L, "Topic", 10)*.userId == [20L, 10L]
+		store.getLeaderboard(1L, null, 10) == [
+			new LeaderboardEntry(20L, 55, 2),
+			new LeaderboardEntry(10L, 30, 1)
+		]
+		store.getLeaderboard(2L, null, 10) == [new LeaderboardEntry(10L, 100, 1)]
+	}
+	
+	def "stats are converted from the JSON tables"() {
+		given:
+		Map<Object[], byte[]> jsonStatsTable = db.treeMap("user_trivia_stats",
+				new SerializerArrayTuple(Serializer.LONG, Serializer.LONG, Serializer.LONG), Serializer.BYTE_ARRAY).create()
+		Map<Object[], byte[]> jsonTopicStatsTable = db.treeMap("topic_stats",
+				new SerializerArrayTuple(Serializer.LONG, Serializer.LONG, Serializer.STRING), Serializer.BYTE_ARRAY).create()
+		UserTriviaStats oldStats = stats("Old", 30)
+		jsonStatsTable.put([1L, 10L, 1L] as Object[], objMapper.writeValueAsBytes(oldStats))
+		jsonTopicStatsTable.put([1L, 10L, "Old"] as Object[], objMapper.writeValueAsBytes(TopicStats.empty("Old").plus(oldStats)))
+		db.treeMap("topic_leaderboard").open().put([1L, "Old", 30L, 10L] as Object[], 1L)
+		db.treeMap("guild_leaderboard").open().put([1L, 30L, 10L] as Object[], 1L)
+		db.commit()
+		
+		when:
+		store = new MapDbTriviaPersistentStore(db, objMapper)
+		store.addUserTriviaStats(1L, 10L, stats("New", 20))
+		
+		then:
+		store.getUserTriviaStats(1L, 10L).get().triviaStats*.topicName == ["Old", "New"]
+		store.getUserTriviaStats(1L, 10L).get().triviaStats[0] == oldStats
+		store.getTopicStats(1L, 10L)*.topicName == ["New", "Old"]
+		store.getTopicStats(1L, 10L)*.earnedPoints == [20L, 30L]
+		store.getLeaderboard(1L, null, 10) == [new LeaderboardEntry(10L, 50, 2)]
+		jsonStatsTable.isEmpty()
+		jsonTopicStatsTable.isEmpty()
+	}
+	
+	def "stats are kept when the database is reopened"() {
+		given:
+		File dbFile = File.createTempFile("trivia", ".db")
+		dbFile.delete()
+		dbFile.deleteOnExit()
+		store = new MapDbTriviaPersistentStore(DBMaker.fileDB(dbFile).transactionEnable().make(), objMapper)
+		UserTriviaStats triviaStats = stats("Topic", 10)
+		store.addUserTriviaStats(1L, 10L, triviaStats)
+		store.close()
+		
+		when:
+		store = new MapDbTriviaPersistentStore(DBMaker.fileDB(dbFile).transactionEnable().make(), objMapper)
+		
+		then:
+		store.getUserTriviaStats(1L, 10L).get().triviaStats == [triviaStats]
+		store.getTopicStats(1L, 10L)*.earnedPoints == [10L]
+	}
+	
+	private UserTriviaStats stats(String topicName, long earnedPoints) {
+		RoundRecord roundRecord = objMapper.readValue("""
+			{
+				"questionRecords": [
+					{ "value": ${earnedPoints}, "scoreDecayFactor": 0.5, "answeredCorrectly": true, "incorrectAnswers": 0, "timeToAnswerMs": null }
+				]
+			}
+		""", RoundRecord)
+		return new UserTriviaStats(topicName, LocalDateTime.now(), roundRecord)
+	}
+	
+	private static UserTriviaStats stats(String topicName) {
+		return new UserTriviaStats(topicName, LocalDateTime.now(), new RoundRecord())
+	}
+}
@@ -0,0 +1,27 @@
+package net.tonbot.plugin.trivia.db
+
+import org.mapdb.DataInput2
+import org.mapdb.DataOutput2
+
+import spock.lang.Specification
+
+class TopicStatsSerializerTest extends Specification {
+	
+	TopicStatsSerializer serializer = new TopicStatsSerializer()
+	
+	def "round trip of a node"() {
+		given:
+		Object[] values = [
+			new TopicStats("Topic", 3, 50, 90, 5, 9, 12000, 4),
+			TopicStats.empty("Another Topic")
+		]
+		DataOutput2 out = new DataOutput2()
+		
+		when:
+		serializer.valueArraySerialize(out, values)
+		Object[] result = serializer.valueArrayDeserialize(new DataInput2.ByteArray(out.copyBytes()), values.length)
+		
+		then:
+		result == values
+	}
+}
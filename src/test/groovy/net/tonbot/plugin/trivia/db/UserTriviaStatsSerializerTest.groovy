@@ -0,0 +1,83 @@
+package net.tonbot.plugin.trivia.db
+
+import java.time.LocalDateTime
+
+import org.mapdb.DataInput2
+import org.mapdb.DataOutput2
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule
+
+import net.tonbot.plugin.trivia.RoundRecord
+import spock.lang.Specification
+
+class UserTriviaStatsSerializerTest extends Specification {
+	
+	ObjectMapper objMapper
+	UserTriviaStatsSerializer serializer
+	
+	def setup() {
+		objMapper = new ObjectMapper()
+		objMapper.registerModule(new Jdk8Module())
+		objMapper.registerModule(new JavaTimeModule())
+		serializer = new UserTriviaStatsSerializer()
+	}
+	
+	def "round trip"() {
+		given:
+		UserTriviaStats triviaStats = new UserTriviaStats("Topic", LocalDateTime.of(2018, 1, 1, 12, 0, 0, 123456789), roundRecord())
+		DataOutput2 out = new DataOutput2()
+		
+		when:
+		serializer.serialize(out, triviaStats)
+		UserTriviaStats result = serializer.deserialize(new DataInput2.ByteArray(out.copyBytes()), -1)
+		
+		then:
+		result == triviaStats
+		out.pos < objMapper.writeValueAsBytes(triviaStats).length / 4
+	}
+	
+	def "round trip of a node"() {
+		given:
+		Object[] values = [
+			new UserTriviaStats("Topic", LocalDateTime.of(2018, 1, 1, 12, 0), roundRecord()),
+			new UserTriviaStats("Topic", LocalDateTime.of(2018, 1, 1, 12, 5), new RoundRecord()),
+			new UserTriviaStats("Another Topic", LocalDateTime.of(2017, 6, 1, 8, 30, 0, 1), roundRecord())
+		]
+		DataOutput2 out = new DataOutput2()
+		
+		when:
+		serializer.valueArraySerialize(out, values)
+		Object[] result = serializer.valueArrayDeserialize(new DataInput2.ByteArray(out.copyBytes()), values.length)
+		
+		then:
+		result == values
+	}
+	
+	def "unknown version"() {
+		given:
+		DataOutput2 out = new DataOutput2()
+		serializer.serialize(out, new UserTriviaStats("Topic", LocalDateTime.now(), new RoundRecord()))
+		byte[] bytes = out.copyBytes()
+		bytes[0] = UserTriviaStatsSerializer.VERSION + 1
+		
+		when:
+		serializer.deserialize(new DataInput2.ByteArray(bytes), -1)
+		
+		then:
+		thrown IOException
+	}
+	
+	private RoundRecord roundRecord() {
+		return objMapper.readValue("""
+			{
+				"questionRecords": [
+					{ "value": 10, "scoreDecayFactor": 0.5, "answeredCorrectly": true, "incorrectAnswers": 0, "timeToAnswerMs": 3000 },
+					{ "value": 20, "scoreDecayFactor": 0.5, "answeredCorrectly": false, "incorrectAnswers": 2, "timeToAnswerMs": null },
+					{ "value": 30, "scoreDecayFactor": 0.75, "answeredCorrectly": true, "incorrectAnswers": 1, "timeToAnswerMs": 12345 }
+				]
+			}
+		""", RoundRecord)
+	}
+}
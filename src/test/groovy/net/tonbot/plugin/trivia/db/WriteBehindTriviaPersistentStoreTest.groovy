@@ -0,0 +1,135 @@
+package net.tonbot.plugin.trivia.db
+
+import java.time.LocalDateTime
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import net.tonbot.plugin.trivia.RoundRecord
+import spock.lang.Specification
+
+class WriteBehindTriviaPersistentStoreTest extends Specification {
+	
+	TriviaPersistentStore mockStore = Mock()
+	
+	def "writes which queue up together are written together"() {
+		given:
+		CountDownLatch firstWriteStarted = new CountDownLatch(1)
+		CountDownLatch firstWriteAllowed = new CountDownLatch(1)
+		List<List<UserTriviaStatsUpdate>> writes = [].asSynchronized()
+		mockStore.addUserTriviaStats(_ as List) >> { args ->
+			writes.add(args[0])
+			firstWriteStarted.countDown()
+			firstWriteAllowed.await(5, TimeUnit.SECONDS)
+		}
+		WriteBehindTriviaPersistentStore store = new WriteBehindTriviaPersistentStore(mockStore, 10, 10)
+		
+		when:
+		store.addUserTriviaStats([update(1)])
+		firstWriteStarted.await(5, TimeUnit.SECONDS)
+		store.addUserTriviaStats([update(2), update(3)])
+		store.addUserTriviaStats([update(4)])
+		firstWriteAllowed.countDown()
+		store.close()
+		
+		then:
+		writes.collect { w -> w.collect { it.userId } } == [[1L], [2L, 3L, 4L]]
+	}
+	
+	def "reads see earlier writes"() {
+		given:
+		WriteBehindTriviaPersistentStore store = new WriteBehindTriviaPersistentStore(mockStore, 10, 10)
+		GuildUserStats guildUserStats = Mock()
+		
+		when:
+		store.addUserTriviaStats(1L, 2L, stats())
+		Optional<GuildUserStats> result = store.getUserTriviaStats(1L, 2L)
+		
+		then:
+		1 * mockStore.addUserTriviaStats({ it.size() == 1 })
+		
+		then:
+		1 * mockStore.getUserTriviaStats(1L, 2L) >> Optional.of(guildUserStats)
+		result.get() == guildUserStats
+	}
+	
+	def "closing writes out the queue before closing the store"() {
+		given:
+		WriteBehindTriviaPersistentStore store = new WriteBehindTriviaPersistentStore(mockStore, 10, 1)
+		
+		when:
+		(1..5).each { store.addUserTriviaStats([update(it)]) }
+		store.close()
+		
+		then:
+		5 * mockStore.addUserTriviaStats(_ as List)
+		
+		then:
+		1 * mockStore.close()
+	}
+	
+	def "a failed write does not stop later writes"() {
+		given:
+		WriteBehindTriviaPersistentStore store = new WriteBehindTriviaPersistentStore(mockStore, 10, 1)
+		
+		when:
+		store.addUserTriviaStats([update(1)])
+		store.addUserTriviaStats([update(2)])
+		store.close()
+		
+		then:
+		1 * mockStore.addUserTriviaStats({ it[0].userId == 1L }) >> { throw new UncheckedIOException(new IOException()) }
+		1 * mockStore.addUserTriviaStats({ it[0].userId == 2L })
+	}
+	
+	def "adding after close"() {
+		given:
+		WriteBehindTriviaPersistentStore store = new WriteBehindTriviaPersistentStore(mockStore, 10, 10)
+		store.close()
+		
+		when:
+		store.addUserTriviaStats([update(1)])
+		
+		then:
+		thrown IllegalStateException
+	}
+	
+	def "every add which was accepted while closing is written"() {
+		given:
+		AtomicInteger written = new AtomicInteger()
+		mockStore.addUserTriviaStats(_ as List) >> { args -> written.addAndGet(args[0].size()) }
+		WriteBehindTriviaPersistentStore store = new WriteBehindTriviaPersistentStore(mockStore, 4, 2)
+		AtomicInteger accepted = new AtomicInteger()
+		CountDownLatch started = new CountDownLatch(4)
+		
+		when:
+		List<Thread> adders = (1..4).collect { userId ->
+			Thread.start {
+				started.countDown()
+				try {
+					while (true) {
+						store.addUserTriviaStats([update(userId)])
+						accepted.incrementAndGet()
+					}
+				} catch (IllegalStateException e) {
+					// Closed.
+				}
+			}
+		}
+		started.await(5, TimeUnit.SECONDS)
+		store.close()
+		adders.each { it.join(5000) }
+		
+		then:
+		accepted.get() > 0
+		written.get() == accepted.get()
+	}
+	
+	private static UserTriviaStatsUpdate update(long userId) {
+		return new UserTriviaStatsUpdate(1L, userId, stats())
+	}
+	
+	private static UserTriviaStats stats() {
+		return new UserTriviaStats("Topic", LocalDateTime.now(), new RoundRecord())
+	}
+}
@@ -0,0 +1,127 @@
+package net.tonbot.plugin.trivia.musicid
+
+import org.jaudiotagger.audio.AudioFile
+import org.jaudiotagger.audio.AudioFileIO
+import org.jaudiotagger.tag.FieldKey
+import org.jaudiotagger.tag.Tag
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module
+
+import spock.lang.Specification
+
+class SongTagIndexTest extends Specification {
+	
+	File topicDir
+	File songFile
+	ObjectMapper objectMapper
+	
+	def setup() {
+		topicDir = File.createTempDir()
+		new File(topicDir, "music").mkdir()
+		songFile = new File(topicDir, "music/song.mp3")
+		songFile.text = "not really an mp3"
+		objectMapper = new ObjectMapper()
+		objectMapper.registerModule(new Jdk8Module())
+	}
+	
+	def cleanup() {
+		topicDir.deleteDir()
+	}
+	
+	def "tags are read once and persisted"() {
+		given:
+		AudioFileIO audioFileIO = Mock()
+		AudioFileIO restartedAudioFileIO = Mock()
+		SongTagIndex index = new SongTagIndex(audioFileIO, objectMapper)
+		
+		when:
+		SongTags first = index.getTags(topicDir, "music/song.mp3")
+		SongTags second = index.getTags(topicDir, "music/song.mp3")
+		
+		then:
+		1 * audioFileIO.readFile(songFile) >> audioFile(["Title"], ["Album"], [" "])
+		first.getAll(SongProperty.TITLE) == ["Title"]
+		first.getFirst(SongProperty.ALBUM) == Optional.of("Album")
+		first.getAll(SongProperty.ARTIST) == []
+		!first.getFirst(SongProperty.FEATURED_VOCALIST).isPresent()
+		second == first
+		!new File(topicDir, SongTagIndex.INDEX_FILE_NAME).exists()
+		
+		when: "the index is flushed and a new index is created, as if after a restart"
+		index.flush()
+		SongTags restarted = new SongTagIndex(restartedAudioFileIO, objectMapper).getTags(topicDir, "music/song.mp3")
+		
+		then:
+		0 * restartedAudioFileIO._
+		restarted == first
+		new File(topicDir, SongTagIndex.INDEX_FILE_NAME).isFile()
+	}
+	
+	def "changed files are read again"() {
+		given:
+		AudioFileIO audioFileIO = Mock()
+		SongTagIndex index = new SongTagIndex(audioFileIO, objectMapper)
+		
+		when:
+		index.getTags(topicDir, "music/song.mp3")
+		songFile.text = "a different, longer song"
+		SongTags changed = index.getTags(topicDir, "music/song.mp3")
+		
+		then:
+		2 * audioFileIO.readFile(songFile) >>> [audioFile(["Old"], [], []), audioFile(["New"], [], [])]
+		changed.getAll(SongProperty.TITLE) == ["New"]
+	}
+	
+	def "corrupt index is rebuilt"() {
+		given:
+		new File(topicDir, SongTagIndex.INDEX_FILE_NAME).text = "{ not json"
+		AudioFileIO audioFileIO = Mock()
+		SongTagIndex index = new SongTagIndex(audioFileIO, objectMapper)
+		
+		when:
+		SongTags tags = index.getTags(topicDir, "music/song.mp3")
+		
+		then:
+		1 * audioFileIO.readFile(songFile) >> audioFile(["Title"], [], [])
+		tags.getAll(SongProperty.TITLE) == ["Title"]
+	}
+	
+	def "invalidated topics are written and read again"() {
+		given:
+		AudioFileIO audioFileIO = Mock()
+		SongTagIndex index = new SongTagIndex(audioFileIO, objectMapper)
+		
+		when:
+		index.getTags(topicDir, "music/song.mp3")
+		index.invalidate(topicDir)
+		
+		then:
+		1 * audioFileIO.readFile(songFile) >> audioFile(["Title"], [], [])
+		new File(topicDir, SongTagIndex.INDEX_FILE_NAME).isFile()
+		
+		when: "the index file is replaced while the topic is not indexed"
+		new File(topicDir, SongTagIndex.INDEX_FILE_NAME).text = "{ not json"
+		SongTags tags = index.getTags(topicDir, "music/song.mp3")
+		
+		then: "it is read from disk again"
+		1 * audioFileIO.readFile(songFile) >> audioFile(["Retagged"], [], [])
+		tags.getAll(SongProperty.TITLE) == ["Retagged"]
+	}
+	
+	private AudioFile audioFile(List<String> titles, List<String> albums, List<String> artists) {
+		Tag tag = Stub()
+		tag.getAll(_ as FieldKey) >> { FieldKey key ->
+			switch (key) {
+				case FieldKey.TITLE: return titles
+				case FieldKey.ALBUM: return albums
+				case FieldKey.ARTIST: return artists
+				default: return []
+			}
+		}
+		
+		AudioFile audioFile = Stub()
+		audioFile.getTag() >> tag
+		return audioFile
+	}
+}